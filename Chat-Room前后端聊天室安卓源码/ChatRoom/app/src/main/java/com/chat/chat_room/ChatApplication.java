@@ -0,0 +1,45 @@
+package com.chat.chat_room;
+
+import android.app.Application;
+
+import com.chat.chat_room.api.RetrofitClient;
+import com.chat.chat_room.api.SessionManager;
+import com.chat.chat_room.api.metrics.NetworkMetrics;
+import com.chat.chat_room.data.MessageOutbox;
+import com.chat.chat_room.image.ImageLoader;
+import com.chat.chat_room.perf.FrameStats;
+
+import java.io.IOException;
+
+public class ChatApplication extends Application {
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // 提前在后台读取登录 token
+        SessionManager.init(this);
+        // 网络层需要应用上下文来创建磁盘缓存
+        RetrofitClient.init(this);
+        // 在后台创建网络客户端并提前连上服务器，与第一个页面的布局加载并行
+        new Thread(() -> RetrofitClient.getInstance().prewarm(), "network-prewarm").start();
+        // 继续发送上次未发出的消息
+        MessageOutbox.getInstance(this).flush();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        // 已解码的图片随时可以从磁盘缓存重新解码，内存紧张时先释放
+        ImageLoader.trimMemory(level);
+        // 切到后台时把网络和帧统计写入文件，进程被回收后仍可取出
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            new Thread(() -> {
+                try {
+                    NetworkMetrics.getInstance().dump(this);
+                    FrameStats.getInstance().dump(this);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }).start();
+        }
+    }
+}
\ No newline at end of file
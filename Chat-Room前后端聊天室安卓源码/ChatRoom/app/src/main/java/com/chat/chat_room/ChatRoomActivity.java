@@ -1,33 +1,102 @@
 package com.chat.chat_room;
 
+import android.net.Uri;
 import android.os.Bundle;
+import android.view.Menu;
 import android.view.MenuItem;
+import android.view.View;
 import android.widget.Toast;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SearchView;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
 import com.chat.chat_room.adapter.MessageAdapter;
-import com.chat.chat_room.api.RetrofitClient;
+import com.chat.chat_room.adapter.MessageUpdateDispatcher;
+import com.chat.chat_room.adapter.SearchResultAdapter;
+import com.chat.chat_room.api.CallLiveData;
+import com.chat.chat_room.api.ChatSocket;
+import com.chat.chat_room.api.CurrentUserCache;
+import com.chat.chat_room.api.ReadReceipts;
+import com.chat.chat_room.api.SessionManager;
+import com.chat.chat_room.data.ChatRepository;
+import com.chat.chat_room.data.ChatStore;
+import com.chat.chat_room.data.MessageOutbox;
 import com.chat.chat_room.model.Message;
-import com.chat.chat_room.model.MessageCreate;
 import com.chat.chat_room.model.User;
+import com.chat.chat_room.perf.JankTracker;
+import com.chat.chat_room.viewmodel.ChatRoomViewModel;
+import com.google.android.material.chip.Chip;
 import com.google.android.material.textfield.TextInputEditText;
 
+import java.util.Collections;
 import java.util.List;
 
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
-
 public class ChatRoomActivity extends AppCompatActivity {
+    // 每页消息条数
+    private static final int PAGE_SIZE = 50;
+    // 距离列表两端还剩多少条时开始预加载下一页
+    private static final int PREFETCH_DISTANCE = 10;
+    // 搜索结果最多显示的条数
+    private static final int SEARCH_LIMIT = 100;
+
     private SwipeRefreshLayout swipeRefreshLayout;
     private RecyclerView messagesRecyclerView;
     private MessageAdapter adapter;
     private TextInputEditText messageEditText;
     private int roomId;
+    // 消息窗口和同步游标保存在 ViewModel 中，旋转屏幕后从原来的位置继续。
+    // 游标是本聊天室已拿到的最大消息 id（含本地缓存），0 表示需要全量加载；
+    // 与服务器同步成功后才建立推送连接，保证推送从游标处无缝衔接
+    private ChatRoomViewModel viewModel;
+    private ChatSocket chatSocket;
+    private ChatStore chatStore;
+    private ChatRepository repository;
+    private boolean loadingOlder = false;
+    private boolean loadingNewer = false;
+    // 同步最新消息的回调还没执行时，下拉刷新不再重复订阅，避免同一页被保存和合并两次
+    private boolean loadingLatest = false;
+    private MessageOutbox outbox;
+    private int currentUserId;
+    private JankTracker jankTracker;
+    private MessageUpdateDispatcher updateDispatcher;
+    private Chip newMessagesChip;
+    private RecyclerView searchResultsRecyclerView;
+    private SearchResultAdapter searchAdapter;
+    private MenuItem searchMenuItem;
+    // 每次输入递增，较早的查询结果晚到时丢弃
+    private int searchGeneration;
+    // 从相册等选择一张图片发送
+    private final ActivityResultLauncher<String> pickImage =
+            registerForActivityResult(new ActivityResultContracts.GetContent(), this::sendImage);
+
+    private final MessageOutbox.Listener outboxListener = new MessageOutbox.Listener() {
+        @Override
+        public void onMessageSent(Message message) {
+            if (message.getChatroomId() != roomId) return;
+            updateDispatcher.post(message);
+        }
+
+        @Override
+        public void onMessageRejected(Message pending) {
+            if (pending.getChatroomId() != roomId) return;
+            adapter.removePendingMessage(pending.getClientId());
+            // 把没发出去的内容放回输入框，避免丢失
+            if (messageEditText.getText() == null || messageEditText.getText().length() == 0) {
+                messageEditText.setText(pending.getContent());
+            }
+            Toast.makeText(ChatRoomActivity.this,
+                    "发送失败",
+                    Toast.LENGTH_SHORT).show();
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -54,18 +123,149 @@ public class ChatRoomActivity extends AppCompatActivity {
         LinearLayoutManager layoutManager = new LinearLayoutManager(this);
         layoutManager.setStackFromEnd(true);
         messagesRecyclerView.setLayoutManager(layoutManager);
-        adapter = new MessageAdapter();
+        viewModel = new ViewModelProvider(this).get(ChatRoomViewModel.class);
+        adapter = new MessageAdapter(viewModel.getWindow());
         messagesRecyclerView.setAdapter(adapter);
+        // 向上滚动时加载更早的一页，浏览历史后向下滚动时再加载较新的一页
+        messagesRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                int first = layoutManager.findFirstVisibleItemPosition();
+                int last = layoutManager.findLastVisibleItemPosition();
+                if (first != RecyclerView.NO_POSITION && first <= PREFETCH_DISTANCE) {
+                    loadOlderMessages();
+                }
+                if (last != RecyclerView.NO_POSITION
+                        && last >= adapter.getItemCount() - 1 - PREFETCH_DISTANCE) {
+                    loadNewerMessages();
+                }
+            }
+        });
+        chatStore = ChatStore.getInstance(this);
+        repository = ChatRepository.getInstance(this);
+        outbox = MessageOutbox.getInstance(this);
+        outbox.addListener(outboxListener);
+
+        // 采集逐帧耗时，按滚动、刷新、整页绑定和收到新消息统计卡顿
+        jankTracker = JankTracker.attach(this);
+        jankTracker.trackScrolling(messagesRecyclerView);
+        jankTracker.trackRefreshing(swipeRefreshLayout);
+
+        // 推送、同步和发送结果按帧合并后再更新列表
+        newMessagesChip = findViewById(R.id.newMessagesChip);
+        newMessagesChip.setOnClickListener(v -> showLatestMessages());
+        updateDispatcher = new MessageUpdateDispatcher(adapter, messagesRecyclerView,
+                new MessageUpdateDispatcher.Listener() {
+                    @Override
+                    public void onBatchCommitted() {
+                        jankTracker.markUpdate(JankTracker.UPDATE_NEW_MESSAGE);
+                    }
+
+                    @Override
+                    public void onUnreadCountChanged(int count) {
+                        if (count == 0) {
+                            newMessagesChip.setVisibility(View.GONE);
+                        } else {
+                            newMessagesChip.setText(count + " 条新消息");
+                            newMessagesChip.setVisibility(View.VISIBLE);
+                        }
+                    }
+                });
+
+        // 搜索结果列表，点击后跳转到对应的消息
+        searchResultsRecyclerView = findViewById(R.id.searchResultsRecyclerView);
+        searchResultsRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        searchAdapter = new SearchResultAdapter(this::onSearchResultClick);
+        searchResultsRecyclerView.setAdapter(searchAdapter);
 
         // 设置下拉刷新
         swipeRefreshLayout.setOnRefreshListener(this::loadMessages);
 
         // 设置发送按钮
         findViewById(R.id.sendButton).setOnClickListener(v -> sendMessage());
+        findViewById(R.id.imageButton).setOnClickListener(v -> pickImage.launch("image/*"));
 
-        // 加载消息
-        loadMessages();
-        getCurrentUser();
+        // 先显示本地缓存，再从服务器增量同步。
+        // 进程被回收后直接恢复本页面时 token 可能还没读完，读完再开始，不在主线程等待
+        SessionManager.getInstance().whenLoaded(token -> {
+            if (isDestroyed()) return;
+            loadCachedMessages();
+            getCurrentUser();
+        });
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        if (viewModel.isHistoryLoaded()) {
+            connectSocket();
+        }
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        jankTracker.setEnabled(true);
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        jankTracker.setEnabled(false);
+        // 进入聊天室会显示最新的消息，离开时把同步到的最后一条记为已读。
+        // 在 onPause 中上报，返回列表页刷新之前请求已经发出
+        ReadReceipts.getInstance().markRead(roomId, viewModel.getLastSyncedMessageId());
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        if (chatSocket != null) {
+            chatSocket.close();
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        outbox.removeListener(outboxListener);
+        updateDispatcher.cancel();
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.chat_room_menu, menu);
+        searchMenuItem = menu.findItem(R.id.action_search);
+        SearchView searchView = (SearchView) searchMenuItem.getActionView();
+        searchView.setQueryHint("搜索消息");
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                searchView.clearFocus();
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                searchMessages(newText);
+                return true;
+            }
+        });
+        searchMenuItem.setOnActionExpandListener(new MenuItem.OnActionExpandListener() {
+            @Override
+            public boolean onMenuItemActionExpand(MenuItem item) {
+                searchResultsRecyclerView.setVisibility(View.VISIBLE);
+                return true;
+            }
+
+            @Override
+            public boolean onMenuItemActionCollapse(MenuItem item) {
+                searchResultsRecyclerView.setVisibility(View.GONE);
+                searchMessages("");
+                return true;
+            }
+        });
+        return true;
     }
 
     @Override
@@ -77,99 +277,298 @@ public class ChatRoomActivity extends AppCompatActivity {
         return super.onOptionsItemSelected(item);
     }
 
+    private void loadCachedMessages() {
+        chatStore.loadCurrentUser(user -> {
+            if (user != null) {
+                currentUserId = user.getId();
+                updateDispatcher.setCurrentUserId(user.getId());
+                adapter.setCurrentUserId(user.getId());
+            }
+        });
+        if (viewModel.isInitialized()) {
+            // 旋转屏幕重建：直接显示窗口中的消息，停在最新位置时滚到底部。
+            // 上一个页面的同步请求还在进行时重新发起会拿到同一个请求
+            adapter.showWindow(afterUpdate(JankTracker.UPDATE_BIND,
+                    adapter.hasNewer() ? null : this::scrollToBottom));
+            if (!viewModel.isHistoryLoaded()) {
+                loadMessages();
+            }
+        } else {
+            chatStore.loadMessages(roomId, messages -> {
+                if (!messages.isEmpty()) {
+                    adapter.setMessages(messages, afterUpdate(JankTracker.UPDATE_BIND, this::scrollToBottom));
+                    viewModel.setLastSyncedMessageId(messages.get(messages.size() - 1).getId());
+                }
+                viewModel.setInitialized(true);
+                loadMessages();
+            });
+        }
+        // 上次没发出去的消息继续显示为待发送，并立即重试
+        outbox.loadPending(roomId, adapter::setPendingMessages);
+        outbox.flush();
+    }
+
     private void loadMessages() {
-        String token = getStoredToken();
-        if (token == null || roomId == -1) return;
+        loadMessages(false);
+    }
 
-        RetrofitClient.getInstance()
-                .getApi()
-                .getMessages("Bearer " + token, roomId)
-                .enqueue(new Callback<List<Message>>() {
-                    @Override
-                    public void onResponse(Call<List<Message>> call, Response<List<Message>> response) {
-                        swipeRefreshLayout.setRefreshing(false);
-                        if (response.isSuccessful() && response.body() != null) {
-                            adapter.setMessages(response.body());
-                            messagesRecyclerView.scrollToPosition(adapter.getItemCount() - 1);
-                        } else {
-                            Toast.makeText(ChatRoomActivity.this,
-                                    "加载消息失败",
-                                    Toast.LENGTH_SHORT).show();
-                        }
+    // latest 为 true 时忽略游标，直接取最新一页并替换本地缓存
+    private void loadMessages(boolean latest) {
+        if (!SessionManager.getInstance().isLoggedIn() || roomId == -1 || loadingLatest) return;
+
+        // 已经有消息时从游标处向后取一页增量，否则只取最新的一页
+        int lastSyncedMessageId = viewModel.getLastSyncedMessageId();
+        boolean incremental = !latest && lastSyncedMessageId > 0;
+        CallLiveData<List<Message>> request = repository.loadMessagePage(roomId, null,
+                incremental ? lastSyncedMessageId : null, PAGE_SIZE);
+
+        loadingLatest = true;
+        request.observeOnce(this, result -> {
+            loadingLatest = false;
+            List<Message> body = result.isSuccessful() ? result.getData() : null;
+            if (incremental && body != null && body.size() >= PAGE_SIZE) {
+                // 离开太久，中间的消息不补了，换成最新的一页，缓存仍与最新消息连续
+                loadMessages(true);
+                return;
+            }
+            swipeRefreshLayout.setRefreshing(false);
+            if (body != null) {
+                if (incremental) {
+                    // 与推送到达的消息一起按帧合并，停在底部时提交后自动滚动
+                    updateDispatcher.post(body);
+                } else {
+                    // 列表差异在后台计算，等新列表提交后再滚动到底部
+                    Runnable scroll = body.isEmpty() ? null : ChatRoomActivity.this::scrollToBottom;
+                    adapter.setMessages(body, afterUpdate(JankTracker.UPDATE_BIND, scroll));
+                    if (body.size() < PAGE_SIZE) {
+                        adapter.markNoOlder();
+                    }
+                }
+                if (incremental) {
+                    chatStore.saveMessages(roomId, body);
+                } else {
+                    chatStore.replaceMessages(roomId, body);
+                }
+                for (Message message : body) {
+                    viewModel.updateLastSyncedMessageId(message.getId());
+                }
+                if (!viewModel.isHistoryLoaded()) {
+                    viewModel.setHistoryLoaded(true);
+                    // 页面已不可见时等到 onStart 再连接
+                    if (getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.STARTED)) {
+                        connectSocket();
                     }
+                } else if (chatSocket != null) {
+                    chatSocket.updateLastMessageId(viewModel.getLastSyncedMessageId());
+                }
+            } else if (result.isNetworkError()) {
+                Toast.makeText(ChatRoomActivity.this,
+                        "网络错误",
+                        Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(ChatRoomActivity.this,
+                        "加载消息失败",
+                        Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
 
-                    @Override
-                    public void onFailure(Call<List<Message>> call, Throwable t) {
-                        swipeRefreshLayout.setRefreshing(false);
-                        Toast.makeText(ChatRoomActivity.this,
-                                "网络错误",
-                                Toast.LENGTH_SHORT).show();
+    private void loadOlderMessages() {
+        if (!SessionManager.getInstance().isLoggedIn() || loadingOlder
+                || !adapter.hasOlder() || adapter.getItemCount() == 0) return;
+
+        // 页面销毁时请求随之取消，重建后的页面滚动到顶部时重新加载
+        loadingOlder = true;
+        repository.loadMessagePage(roomId, adapter.getOldestId(), null, PAGE_SIZE)
+                .observeOnce(this, result -> {
+                    loadingOlder = false;
+                    if (result.isSuccessful() && result.getData() != null) {
+                        List<Message> body = result.getData();
+                        adapter.prependPage(body, body.size() < PAGE_SIZE);
+                        chatStore.indexMessages(body);
                     }
                 });
     }
 
-    private void sendMessage() {
-        String content = messageEditText.getText().toString().trim();
-        if (content.isEmpty()) return;
+    private void loadNewerMessages() {
+        if (!SessionManager.getInstance().isLoggedIn() || loadingNewer || !adapter.hasNewer()) return;
 
-        String token = getStoredToken();
-        if (token == null || roomId == -1) return;
+        loadingNewer = true;
+        repository.loadMessagePage(roomId, null, adapter.getNewestId(), PAGE_SIZE)
+                .observeOnce(this, result -> {
+                    loadingNewer = false;
+                    if (result.isSuccessful() && result.getData() != null) {
+                        List<Message> body = result.getData();
+                        adapter.appendPage(body, body.size() < PAGE_SIZE);
+                        chatStore.indexMessages(body);
+                    }
+                });
+    }
 
-        // 创建消息请求对象
-        MessageCreate request = new MessageCreate(content);
+    // 在本地全文索引中搜索本聊天室的消息，每次输入都查询，不访问网络
+    private void searchMessages(String query) {
+        String trimmed = query.trim();
+        int generation = ++searchGeneration;
+        if (trimmed.isEmpty()) {
+            searchAdapter.setResults(Collections.emptyList(), "");
+            return;
+        }
+        chatStore.searchMessages(roomId, trimmed, SEARCH_LIMIT, results -> {
+            if (generation == searchGeneration) {
+                searchAdapter.setResults(results, trimmed);
+            }
+        });
+    }
 
-        RetrofitClient.getInstance()
-                .getApi()
-                .createMessage("Bearer " + token, roomId, request)
-                .enqueue(new Callback<Message>() {
-                    @Override
-                    public void onResponse(Call<Message> call, Response<Message> response) {
-                        if (response.isSuccessful() && response.body() != null) {
-                            messageEditText.setText("");
-                            adapter.addMessage(response.body());
-                            messagesRecyclerView.scrollToPosition(adapter.getItemCount() - 1);
-                        } else {
-                            Toast.makeText(ChatRoomActivity.this,
-                                    "发送失败",
-                                    Toast.LENGTH_SHORT).show();
-                        }
-                    }
+    private void onSearchResultClick(Message message) {
+        searchMenuItem.collapseActionView();
+        jumpToMessage(message.getId());
+    }
 
-                    @Override
-                    public void onFailure(Call<Message> call, Throwable t) {
+    // 消息已在列表中时直接滚动过去，否则加载以它结尾的一页历史，再向下翻页回到最新
+    private void jumpToMessage(int messageId) {
+        int position = adapter.getPosition(messageId);
+        if (position != RecyclerView.NO_POSITION) {
+            scrollToMessage(position);
+            return;
+        }
+        if (!SessionManager.getInstance().isLoggedIn()) return;
+
+        repository.loadMessagePage(roomId, messageId + 1, null, PAGE_SIZE)
+                .observeOnce(this, result -> {
+                    if (result.isNetworkError()) {
                         Toast.makeText(ChatRoomActivity.this,
                                 "网络错误",
                                 Toast.LENGTH_SHORT).show();
+                        return;
                     }
+                    List<Message> body = result.getData();
+                    if (!result.isSuccessful() || body == null || body.isEmpty()
+                            || body.get(body.size() - 1).getId() != messageId) {
+                        Toast.makeText(ChatRoomActivity.this,
+                                "消息已不存在",
+                                Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    adapter.showHistory(body, body.size() < PAGE_SIZE,
+                            afterUpdate(JankTracker.UPDATE_BIND,
+                                    () -> scrollToMessage(adapter.getPosition(messageId))));
+                    chatStore.indexMessages(body);
                 });
     }
 
-    private void getCurrentUser() {
-        String token = getStoredToken();
-        if (token == null) return;
+    // 把消息滚动到列表上部三分之一处，上下文都能看到
+    private void scrollToMessage(int position) {
+        if (position == RecyclerView.NO_POSITION) return;
+        LinearLayoutManager layoutManager =
+                (LinearLayoutManager) messagesRecyclerView.getLayoutManager();
+        layoutManager.scrollToPositionWithOffset(position, messagesRecyclerView.getHeight() / 3);
+    }
 
-        RetrofitClient.getInstance()
-                .getApi()
-                .getCurrentUser("Bearer " + token)
-                .enqueue(new Callback<User>() {
-                    @Override
-                    public void onResponse(Call<User> call, Response<User> response) {
-                        if (response.isSuccessful() && response.body() != null) {
-                            adapter.setCurrentUserId(response.body().getId());
-                        }
-                    }
+    private void connectSocket() {
+        if (!SessionManager.getInstance().isLoggedIn() || roomId == -1) return;
 
-                    @Override
-                    public void onFailure(Call<User> call, Throwable t) {
+        if (chatSocket == null) {
+            chatSocket = new ChatSocket(roomId, message -> {
+                updateDispatcher.post(message);
+                chatStore.saveMessages(roomId, Collections.singletonList(message));
+                viewModel.updateLastSyncedMessageId(message.getId());
+            });
+        }
+        chatSocket.connect(viewModel.getLastSyncedMessageId());
+    }
+
+    // 列表提交后先标记下一帧的界面状态，再执行原来的回调
+    private Runnable afterUpdate(String update, Runnable then) {
+        return () -> {
+            jankTracker.markUpdate(update);
+            if (then != null) {
+                then.run();
+            }
+        };
+    }
+
+    // 点击新消息提示：窗口在最新位置时滚到底部，正在浏览更早的历史时重新加载最新一页
+    private void showLatestMessages() {
+        updateDispatcher.clearUnread();
+        if (!adapter.hasNewer()) {
+            scrollToBottom();
+            return;
+        }
+        if (!SessionManager.getInstance().isLoggedIn()) return;
+
+        repository.loadMessagePage(roomId, null, null, PAGE_SIZE)
+                .observeOnce(this, result -> {
+                    if (result.isSuccessful() && result.getData() != null) {
+                        List<Message> body = result.getData();
+                        adapter.setMessages(body,
+                                afterUpdate(JankTracker.UPDATE_BIND, ChatRoomActivity.this::scrollToBottom));
+                        if (body.size() < PAGE_SIZE) {
+                            adapter.markNoOlder();
+                        }
+                    } else if (result.isNetworkError()) {
                         Toast.makeText(ChatRoomActivity.this,
-                                "获取用户信息失败",
+                                "网络错误",
                                 Toast.LENGTH_SHORT).show();
                     }
                 });
     }
 
-    private String getStoredToken() {
-        return getSharedPreferences("ChatApp", MODE_PRIVATE)
-                .getString("token", null);
+    private void scrollToBottom() {
+        if (adapter.getItemCount() > 0) {
+            messagesRecyclerView.scrollToPosition(adapter.getItemCount() - 1);
+        }
+    }
+
+    private void sendMessage() {
+        String content = messageEditText.getText().toString().trim();
+        if (content.isEmpty()) return;
+
+        if (!SessionManager.getInstance().isLoggedIn() || roomId == -1) return;
+
+        // 先写入发件箱并立即显示，由发件箱负责按顺序发送和重试
+        Message pending = outbox.enqueue(roomId, currentUserId, content);
+        messageEditText.setText("");
+        adapter.addPendingMessage(pending, this::scrollToBottom);
+    }
+
+    private void sendImage(Uri uri) {
+        if (uri == null) return;
+        if (!SessionManager.getInstance().isLoggedIn() || roomId == -1) return;
+
+        // 压缩在发件箱线程中完成，完成后再显示为待发送
+        outbox.enqueueImage(roomId, currentUserId, uri, pending -> {
+            if (isDestroyed()) return;
+            if (pending == null) {
+                Toast.makeText(ChatRoomActivity.this,
+                        "无法读取图片",
+                        Toast.LENGTH_SHORT).show();
+                return;
+            }
+            adapter.addPendingMessage(pending, this::scrollToBottom);
+        });
+    }
+
+    private void getCurrentUser() {
+        if (!SessionManager.getInstance().isLoggedIn()) return;
+
+        CurrentUserCache.getInstance().get(new CurrentUserCache.UserCallback() {
+            @Override
+            public void onSuccess(User user) {
+                currentUserId = user.getId();
+                updateDispatcher.setCurrentUserId(user.getId());
+                adapter.setCurrentUserId(user.getId());
+                chatStore.saveCurrentUser(user);
+            }
+
+            @Override
+            public void onError(boolean networkError) {
+                if (networkError) {
+                    Toast.makeText(ChatRoomActivity.this,
+                            "获取用户信息失败",
+                            Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
     }
 }
\ No newline at end of file
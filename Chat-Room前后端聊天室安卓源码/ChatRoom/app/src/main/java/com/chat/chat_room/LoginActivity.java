@@ -1,7 +1,6 @@
 package com.chat.chat_room;
 
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.widget.Button;
 import android.widget.EditText;
@@ -12,7 +11,7 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.chat.chat_room.api.LoginResponse;
 import com.chat.chat_room.api.RetrofitClient;
-import com.chat.chat_room.model.User;
+import com.chat.chat_room.api.SessionManager;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -27,6 +26,28 @@ public class LoginActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+
+        // 检查是否已经登录
+        autoLoginOrShowForm();
+    }
+
+    private void autoLoginOrShowForm() {
+        // token 在启动时已开始后台读取，通常此时已读完并同步回调
+        SessionManager.getInstance().whenLoaded(token -> {
+            if (isFinishing()) return;
+            if (SessionManager.getInstance().isLoggedIn()) {
+                // 本地判断 token 未过期就直接进入主界面，不等网络验证；
+                // 主界面先显示缓存的聊天室，服务器拒绝 token 时再退出登录
+                startMainActivity();
+                finish();
+                return;
+            }
+            showLoginForm();
+        });
+    }
+
+    // 只有需要登录时才加载登录界面的布局
+    private void showLoginForm() {
         setContentView(R.layout.activity_login);
 
         // 初始化视图
@@ -35,9 +56,6 @@ public class LoginActivity extends AppCompatActivity {
         loginButton = findViewById(R.id.loginButton);
         registerTextView = findViewById(R.id.registerTextView);
 
-        // 检查是否已经登录并验证token
-        validateTokenAndAutoLogin();
-
         // 设置点击事件
         loginButton.setOnClickListener(v -> attemptLogin());
         registerTextView.setOnClickListener(v -> {
@@ -45,38 +63,6 @@ public class LoginActivity extends AppCompatActivity {
         });
     }
 
-    private void validateTokenAndAutoLogin() {
-        String token = getStoredToken();
-        if (token != null) {
-            // 验证 token 有效性
-            RetrofitClient.getInstance()
-                    .getApi()
-                    .getCurrentUser("Bearer " + token)
-                    .enqueue(new Callback<User>() {
-                        @Override
-                        public void onResponse(Call<User> call, Response<User> response) {
-                            if (response.isSuccessful() && response.body() != null) {
-                                // token 有效，直接进入主界面
-                                startMainActivity();
-                                finish();
-                            } else {
-                                // token 无效，清除并要求重新登录
-                                clearStoredToken();
-                            }
-                        }
-
-                        @Override
-                        public void onFailure(Call<User> call, Throwable t) {
-                            // 网络错误，保持在登录界面
-                            Toast.makeText(LoginActivity.this,
-                                    "网络连接失败，请重试",
-                                    Toast.LENGTH_SHORT).show();
-                            clearStoredToken();
-                        }
-                    });
-        }
-    }
-
     private void attemptLogin() {
         String username = usernameEditText.getText().toString().trim();
         String password = passwordEditText.getText().toString().trim();
@@ -111,7 +97,8 @@ public class LoginActivity extends AppCompatActivity {
                         if (response.isSuccessful() && response.body() != null) {
                             String token = response.body().getAccessToken();
                             if (token != null && !token.isEmpty()) {
-                                saveToken(token);
+                                SessionManager.getInstance().saveTokens(token,
+                                        response.body().getRefreshToken());
                                 startMainActivity();
                                 finish();
                             } else {
@@ -156,35 +143,6 @@ public class LoginActivity extends AppCompatActivity {
                 });
     }
 
-    private void saveToken(String token) {
-        SharedPreferences prefs = getSharedPreferences("ChatApp", MODE_PRIVATE);
-        prefs.edit()
-                .putString("token", token)
-                .putLong("token_timestamp", System.currentTimeMillis())
-                .apply();
-    }
-
-    private String getStoredToken() {
-        SharedPreferences prefs = getSharedPreferences("ChatApp", MODE_PRIVATE);
-        String token = prefs.getString("token", null);
-        long timestamp = prefs.getLong("token_timestamp", 0);
-
-        // 检查 token 是否过期（这里假设 token 有效期为 30 天）
-        if (token != null && System.currentTimeMillis() - timestamp > 30 * 24 * 60 * 60 * 1000L) {
-            clearStoredToken();
-            return null;
-        }
-        return token;
-    }
-
-    private void clearStoredToken() {
-        SharedPreferences prefs = getSharedPreferences("ChatApp", MODE_PRIVATE);
-        prefs.edit()
-                .remove("token")
-                .remove("token_timestamp")
-                .apply();
-    }
-
     private void startMainActivity() {
         Intent intent = new Intent(LoginActivity.this, MainActivity.class);
         intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
@@ -1,23 +1,35 @@
 package com.chat.chat_room;
 
 import android.content.Intent;
-import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
 import com.chat.chat_room.adapter.ChatRoomAdapter;
+import com.chat.chat_room.api.CurrentUserCache;
+import com.chat.chat_room.api.ReadReceipts;
 import com.chat.chat_room.api.RetrofitClient;
+import com.chat.chat_room.api.SessionManager;
+import com.chat.chat_room.data.ChatRepository;
+import com.chat.chat_room.data.ChatStore;
+import com.chat.chat_room.data.MessageOutbox;
+import com.chat.chat_room.data.RoomPrefetchWorker;
 import com.chat.chat_room.model.ChatRoom;
-import com.chat.chat_room.model.ChatRoomCreate;
 import com.chat.chat_room.model.User;
+import com.chat.chat_room.perf.JankTracker;
+import com.chat.chat_room.search.RoomSearcher;
+import com.chat.chat_room.viewmodel.ChatRoomListViewModel;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.textfield.TextInputEditText;
@@ -25,14 +37,18 @@ import com.google.android.material.textfield.TextInputLayout;
 
 import java.util.List;
 
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
-
 public class MainActivity extends AppCompatActivity implements ChatRoomAdapter.OnChatRoomClickListener {
     private SwipeRefreshLayout swipeRefreshLayout;
     private RecyclerView chatRoomsRecyclerView;
     private ChatRoomAdapter adapter;
+    private ChatStore chatStore;
+    private ChatRepository repository;
+    // 列表和同步状态保存在 ViewModel 中，旋转屏幕后不重新加载
+    private ChatRoomListViewModel viewModel;
+    private JankTracker jankTracker;
+    private RoomSearcher roomSearcher;
+    // 刷新的回调还没执行时不再重复订阅，否则同一个结果会被保存和处理两次
+    private boolean loadingChatRooms = false;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -49,19 +65,80 @@ public class MainActivity extends AppCompatActivity implements ChatRoomAdapter.O
         chatRoomsRecyclerView = findViewById(R.id.chatRoomsRecyclerView);
         chatRoomsRecyclerView.setLayoutManager(new LinearLayoutManager(this));
         adapter = new ChatRoomAdapter(this);
+        adapter.setOnChatRoomDeleteListener(this::showDeleteConfirmationDialog);
         chatRoomsRecyclerView.setAdapter(adapter);
+        chatStore = ChatStore.getInstance(this);
+        repository = ChatRepository.getInstance(this);
+        viewModel = new ViewModelProvider(this).get(ChatRoomListViewModel.class);
+
+        // 列表和搜索结果都经过索引，输入框为空时显示全部聊天室
+        roomSearcher = new RoomSearcher(rooms -> adapter.setChatRooms(rooms, this::markBind));
+        TextInputEditText searchEditText = findViewById(R.id.searchEditText);
+        searchEditText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                roomSearcher.setQuery(s.toString().trim());
+            }
+        });
+
+        // 采集逐帧耗时，按滚动、刷新、列表更新等状态统计卡顿
+        jankTracker = JankTracker.attach(this);
+        jankTracker.trackScrolling(chatRoomsRecyclerView);
+        jankTracker.trackRefreshing(swipeRefreshLayout);
 
         // 设置创建聊天室按钮
         FloatingActionButton fab = findViewById(R.id.createChatRoomFab);
         fab.setOnClickListener(v -> showCreateChatRoomDialog());
 
-        // 加载聊天室列表
-        loadChatRooms();
+        // 先显示本地缓存，再从服务器加载聊天室列表；
+        // 旋转屏幕重建时直接显示已有列表，上次的请求还没结束时接着等它的结果
+        loadCachedChatRooms();
+        if (!viewModel.isSynced()) {
+            loadChatRoomsWhenSessionLoaded();
+        }
+        // 在后台定期预取常用聊天室的新消息
+        RoomPrefetchWorker.schedule(this);
+    }
+
+    @Override
+    protected void onRestart() {
+        super.onRestart();
+        // 从聊天室返回时刷新最后一条消息和未读数，列表没变时服务端只返回 304
+        loadChatRoomsWhenSessionLoaded();
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        jankTracker.setEnabled(true);
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        jankTracker.setEnabled(false);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        roomSearcher.shutdown();
     }
 
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.main_menu, menu);
+        // 性能统计页面只在可调试的构建中提供
+        boolean debuggable = (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        menu.findItem(R.id.action_performance_stats).setVisible(debuggable);
         return true;
     }
 
@@ -71,6 +148,10 @@ public class MainActivity extends AppCompatActivity implements ChatRoomAdapter.O
             logout();
             return true;
         }
+        if (item.getItemId() == R.id.action_performance_stats) {
+            startActivity(new Intent(this, PerformanceStatsActivity.class));
+            return true;
+        }
         return super.onOptionsItemSelected(item);
     }
 
@@ -93,50 +174,76 @@ public class MainActivity extends AppCompatActivity implements ChatRoomAdapter.O
                 .show();
     }
 
+    private void loadCachedChatRooms() {
+        if (viewModel.getChatRooms() != null) {
+            roomSearcher.setChatRooms(viewModel.getChatRooms());
+        } else {
+            chatStore.loadChatRooms(chatRooms -> {
+                // 网络结果先到时不再用磁盘缓存覆盖
+                if (viewModel.getChatRooms() == null && !chatRooms.isEmpty()) {
+                    ReadReceipts.getInstance().apply(chatRooms);
+                    viewModel.setChatRooms(chatRooms);
+                    roomSearcher.setChatRooms(chatRooms);
+                }
+            });
+        }
+        chatStore.loadCurrentUser(user -> {
+            if (user != null) {
+                adapter.setCurrentUserId(user.getId());
+            }
+        });
+    }
+
+    // 列表提交后，标记下一帧正在绑定新数据
+    private void markBind() {
+        jankTracker.markUpdate(JankTracker.UPDATE_BIND);
+    }
+
+    // 进程被回收后直接恢复本页面时 token 可能还没读完，读完再判断登录状态，不在主线程等待
+    private void loadChatRoomsWhenSessionLoaded() {
+        SessionManager.getInstance().whenLoaded(token -> {
+            if (!isDestroyed()) {
+                loadChatRooms();
+            }
+        });
+    }
+
     private void loadChatRooms() {
-        String token = getStoredToken();
-        if (token == null) {
+        if (!SessionManager.getInstance().isLoggedIn()) {
             logout();
             return;
         }
-
-        RetrofitClient.getInstance()
-                .getApi()
-                .getChatRooms("Bearer " + token)
-                .enqueue(new Callback<List<ChatRoom>>() {
-                    @Override
-                    public void onResponse(Call<List<ChatRoom>> call, Response<List<ChatRoom>> response) {
-                        swipeRefreshLayout.setRefreshing(false);
-                        if (response.isSuccessful() && response.body() != null) {
-                            adapter.setChatRooms(response.body());
-                            // 修改这里，使用正确的方法引用
-                            adapter.setOnChatRoomDeleteListener(MainActivity.this::showDeleteConfirmationDialog);
-                            getCurrentUser();
-                        } else {
-                            try {
-                                String errorBody = response.errorBody() != null ?
-                                        response.errorBody().string() : "Unknown error";
-                                Toast.makeText(MainActivity.this,
-                                        "加载失败: " + errorBody,
-                                        Toast.LENGTH_SHORT).show();
-                            } catch (Exception e) {
-                                e.printStackTrace();
-                                Toast.makeText(MainActivity.this,
-                                        "加载失败",
-                                        Toast.LENGTH_SHORT).show();
-                            }
-                        }
-                    }
-
-                    @Override
-                    public void onFailure(Call<List<ChatRoom>> call, Throwable t) {
-                        swipeRefreshLayout.setRefreshing(false);
-                        t.printStackTrace();
-                        Toast.makeText(MainActivity.this,
-                                "网络错误: " + t.getMessage(),
-                                Toast.LENGTH_SHORT).show();
-                    }
-                });
+        if (loadingChatRooms) return;
+
+        // 下拉刷新和返回页面时的刷新合并为同一个请求，结果只处理一次
+        loadingChatRooms = true;
+        repository.loadChatRoomSummaries().observeOnce(this, result -> {
+            loadingChatRooms = false;
+            swipeRefreshLayout.setRefreshing(false);
+            if (result.isSuccessful() && result.getData() != null) {
+                List<ChatRoom> chatRooms = result.getData();
+                viewModel.setSynced(true);
+                // 服务端已按最近活动排序，索引保持这个顺序
+                ReadReceipts.getInstance().apply(chatRooms);
+                viewModel.setChatRooms(chatRooms);
+                roomSearcher.setChatRooms(chatRooms);
+                chatStore.saveChatRooms(chatRooms);
+                getCurrentUser();
+            } else if (result.isNetworkError()) {
+                Toast.makeText(MainActivity.this,
+                        "网络错误: " + result.getError().getMessage(),
+                        Toast.LENGTH_SHORT).show();
+            } else if (result.getCode() == 401) {
+                // 启动时只在本地检查了过期时间，服务器拒绝 token 时才退出登录
+                logout();
+            } else {
+                String errorBody = result.getErrorBody() != null ?
+                        result.getErrorBody() : "Unknown error";
+                Toast.makeText(MainActivity.this,
+                        "加载失败: " + errorBody,
+                        Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     // 将 showDeleteConfirmationDialog 方法移到类级别
@@ -150,49 +257,33 @@ public class MainActivity extends AppCompatActivity implements ChatRoomAdapter.O
     }
 
     private void createChatRoom(String name) {
-        String token = getStoredToken();
-        if (token == null) {
+        if (!SessionManager.getInstance().isLoggedIn()) {
             logout();
             return;
         }
 
-        ChatRoomCreate request = new ChatRoomCreate(name);
-        RetrofitClient.getInstance()
-                .getApi()
-                .createChatRoom("Bearer " + token, request)
-                .enqueue(new Callback<ChatRoom>() {
-                    @Override
-                    public void onResponse(Call<ChatRoom> call, Response<ChatRoom> response) {
-                        if (response.isSuccessful() && response.body() != null) {
-                            Toast.makeText(MainActivity.this,
-                                    "聊天室创建成功",
-                                    Toast.LENGTH_SHORT).show();
-                            loadChatRooms();
-                        } else {
-                            try {
-                                // 打印详细错误信息
-                                String errorBody = response.errorBody() != null ?
-                                        response.errorBody().string() : "Unknown error";
-                                Toast.makeText(MainActivity.this,
-                                        "创建失败: " + errorBody,
-                                        Toast.LENGTH_SHORT).show();
-                            } catch (Exception e) {
-                                e.printStackTrace();
-                                Toast.makeText(MainActivity.this,
-                                        "创建失败",
-                                        Toast.LENGTH_SHORT).show();
-                            }
-                        }
-                    }
-
-                    @Override
-                    public void onFailure(Call<ChatRoom> call, Throwable t) {
-                        t.printStackTrace(); // 打印堆栈信息
-                        Toast.makeText(MainActivity.this,
-                                "网络错误: " + t.getMessage(),
-                                Toast.LENGTH_SHORT).show();
-                    }
-                });
+        // 页面在请求途中被关闭或旋转时，聊天室照样创建，重建后的列表会刷新出来
+        repository.createChatRoom(name).observeOnce(this, result -> {
+            if (result.isSuccessful() && result.getData() != null) {
+                Toast.makeText(MainActivity.this,
+                        "聊天室创建成功",
+                        Toast.LENGTH_SHORT).show();
+                // 先加入索引立即显示，再重新加载完整列表
+                roomSearcher.addChatRoom(result.getData());
+                loadChatRooms();
+            } else if (result.isNetworkError()) {
+                Toast.makeText(MainActivity.this,
+                        "网络错误: " + result.getError().getMessage(),
+                        Toast.LENGTH_SHORT).show();
+            } else {
+                // 打印详细错误信息
+                String errorBody = result.getErrorBody() != null ?
+                        result.getErrorBody() : "Unknown error";
+                Toast.makeText(MainActivity.this,
+                        "创建失败: " + errorBody,
+                        Toast.LENGTH_SHORT).show();
+            }
+        });
     }
     @Override
     public void onChatRoomClick(ChatRoom chatRoom) {
@@ -203,15 +294,22 @@ public class MainActivity extends AppCompatActivity implements ChatRoomAdapter.O
         startActivity(intent);
     }
 
-    private String getStoredToken() {
-        SharedPreferences prefs = getSharedPreferences("ChatApp", MODE_PRIVATE);
-        return prefs.getString("token", null);
-    }
-
     private void logout() {
+        // 吊销刷新令牌，结果不影响本地退出
+        String refreshToken = SessionManager.getInstance().getRefreshToken();
+        if (refreshToken != null) {
+            repository.revokeToken(refreshToken);
+        }
+        repository.cancelAll();
+
         // 清除存储的token
-        SharedPreferences prefs = getSharedPreferences("ChatApp", MODE_PRIVATE);
-        prefs.edit().remove("token").apply();
+        SessionManager.getInstance().clear();
+        CurrentUserCache.getInstance().clear();
+        ReadReceipts.getInstance().clear();
+        chatStore.clear();
+        MessageOutbox.getInstance(this).clear();
+        RoomPrefetchWorker.cancel(this);
+        RetrofitClient.getInstance().clearCache();
 
         // 跳转到登录页面
         Intent intent = new Intent(this, LoginActivity.class);
@@ -219,76 +317,60 @@ public class MainActivity extends AppCompatActivity implements ChatRoomAdapter.O
         startActivity(intent);
     }
     private void getCurrentUser() {
-        String token = getStoredToken();
-        if (token == null) {
+        if (!SessionManager.getInstance().isLoggedIn()) {
             logout();
             return;
         }
 
-        RetrofitClient.getInstance()
-                .getApi()
-                .getCurrentUser("Bearer " + token)
-                .enqueue(new Callback<User>() {
-                    @Override
-                    public void onResponse(Call<User> call, Response<User> response) {
-                        if (response.isSuccessful() && response.body() != null) {
-                            adapter.setCurrentUserId(response.body().getId());
-                        }
-                    }
-
-                    @Override
-                    public void onFailure(Call<User> call, Throwable t) {
-                        t.printStackTrace();
-                        Toast.makeText(MainActivity.this,
-                                "获取用户信息失败",
-                                Toast.LENGTH_SHORT).show();
-                    }
-                });
+        // 多个页面共用同一份缓存，刷新列表时不会重复请求 /users/me
+        CurrentUserCache.getInstance().get(new CurrentUserCache.UserCallback() {
+            @Override
+            public void onSuccess(User user) {
+                adapter.setCurrentUserId(user.getId());
+                chatStore.saveCurrentUser(user);
+            }
+
+            @Override
+            public void onError(boolean networkError) {
+                if (networkError) {
+                    Toast.makeText(MainActivity.this,
+                            "获取用户信息失败",
+                            Toast.LENGTH_SHORT).show();
+                } else {
+                    // 服务器拒绝了 token（如已被吊销），回到登录页面
+                    logout();
+                }
+            }
+        });
     }
 
 
 
     private void deleteChatRoom(int roomId) {
-        String token = getStoredToken();
-        if (token == null) {
+        if (!SessionManager.getInstance().isLoggedIn()) {
             logout();
             return;
         }
 
-        RetrofitClient.getInstance()
-                .getApi()
-                .deleteChatRoom("Bearer " + token, roomId)
-                .enqueue(new Callback<Void>() {
-                    @Override
-                    public void onResponse(Call<Void> call, Response<Void> response) {
-                        if (response.isSuccessful()) {
-                            Toast.makeText(MainActivity.this,
-                                    "聊天室已删除",
-                                    Toast.LENGTH_SHORT).show();
-                            loadChatRooms(); // 重新加载列表
-                        } else {
-                            try {
-                                String errorBody = response.errorBody() != null ?
-                                        response.errorBody().string() : "删除失败";
-                                Toast.makeText(MainActivity.this,
-                                        errorBody,
-                                        Toast.LENGTH_SHORT).show();
-                            } catch (Exception e) {
-                                e.printStackTrace();
-                                Toast.makeText(MainActivity.this,
-                                        "删除失败",
-                                        Toast.LENGTH_SHORT).show();
-                            }
-                        }
-                    }
-
-                    @Override
-                    public void onFailure(Call<Void> call, Throwable t) {
-                        t.printStackTrace();
-                        Toast.makeText(MainActivity.this,
-                                "网络错误: " + t.getMessage(),
-                                Toast.LENGTH_SHORT).show();
-                    }
-                });
+        // 本地缓存和发件箱由仓库在删除成功后清理，页面关闭也不影响
+        repository.deleteChatRoom(roomId).observeOnce(this, result -> {
+            if (result.isSuccessful()) {
+                roomSearcher.removeChatRoom(roomId);
+                Toast.makeText(MainActivity.this,
+                        "聊天室已删除",
+                        Toast.LENGTH_SHORT).show();
+                loadChatRooms(); // 重新加载列表
+            } else if (result.isNetworkError()) {
+                Toast.makeText(MainActivity.this,
+                        "网络错误: " + result.getError().getMessage(),
+                        Toast.LENGTH_SHORT).show();
+            } else {
+                String errorBody = result.getErrorBody() != null ?
+                        result.getErrorBody() : "删除失败";
+                Toast.makeText(MainActivity.this,
+                        errorBody,
+                        Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package com.chat.chat_room;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.chat.chat_room.api.metrics.NetworkMetrics;
+import com.chat.chat_room.perf.FrameStats;
+
+import java.io.File;
+import java.io.IOException;
+
+// 调试用：查看各接口的耗时分位数、收发字节数和失败次数，以及各页面的卡顿比例和最慢的帧
+public class PerformanceStatsActivity extends AppCompatActivity {
+    private TextView reportTextView;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_performance_stats);
+
+        setSupportActionBar(findViewById(R.id.toolbar));
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setTitle("性能统计");
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+        }
+        reportTextView = findViewById(R.id.reportTextView);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        showReport();
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.performance_stats_menu, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        int id = item.getItemId();
+        if (id == android.R.id.home) {
+            finish();
+            return true;
+        } else if (id == R.id.action_refresh) {
+            showReport();
+            return true;
+        } else if (id == R.id.action_dump) {
+            dump();
+            return true;
+        } else if (id == R.id.action_reset) {
+            NetworkMetrics.getInstance().reset();
+            FrameStats.getInstance().reset();
+            showReport();
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    private void showReport() {
+        reportTextView.setText("【网络】\n" + NetworkMetrics.getInstance().report()
+                + "\n【帧】\n" + FrameStats.getInstance().report());
+    }
+
+    private void dump() {
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        new Thread(() -> {
+            String text;
+            try {
+                File network = NetworkMetrics.getInstance().dump(getApplicationContext());
+                File frames = FrameStats.getInstance().dump(getApplicationContext());
+                text = "已导出到 " + network.getAbsolutePath() + " 和 " + frames.getName();
+            } catch (IOException e) {
+                e.printStackTrace();
+                text = "导出失败";
+            }
+            String result = text;
+            mainHandler.post(() -> Toast.makeText(getApplicationContext(),
+                    result,
+                    Toast.LENGTH_LONG).show());
+        }).start();
+    }
+}
\ No newline at end of file
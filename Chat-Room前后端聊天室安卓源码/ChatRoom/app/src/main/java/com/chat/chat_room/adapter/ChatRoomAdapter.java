@@ -7,17 +7,43 @@ import android.widget.ImageButton;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.chat.chat_room.R;
 import com.chat.chat_room.model.ChatRoom;
 
 
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 public class ChatRoomAdapter extends RecyclerView.Adapter<ChatRoomAdapter.ChatRoomViewHolder> {
-    private List<ChatRoom> chatRooms = new ArrayList<>();
+    // 服务端最多数到 100 条未读
+    private static final int MAX_UNREAD_SHOWN = 99;
+    // 只刷新删除按钮的局部更新标记
+    private static final Object PAYLOAD_OWNER = new Object();
+
+    private static final DiffUtil.ItemCallback<ChatRoom> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<ChatRoom>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull ChatRoom oldItem, @NonNull ChatRoom newItem) {
+                    return oldItem.getId() == newItem.getId();
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull ChatRoom oldItem, @NonNull ChatRoom newItem) {
+                    return oldItem.getCreatorId() == newItem.getCreatorId()
+                            && Objects.equals(oldItem.getName(), newItem.getName())
+                            && oldItem.getLastMessageId() == newItem.getLastMessageId()
+                            && oldItem.getUnreadCount() == newItem.getUnreadCount();
+                }
+            };
+
+    private final AsyncListDiffer<ChatRoom> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
     private OnChatRoomClickListener listener;
     private OnChatRoomDeleteListener deleteListener;
     private int currentUserId;
@@ -39,15 +65,21 @@ public class ChatRoomAdapter extends RecyclerView.Adapter<ChatRoomAdapter.ChatRo
     }
 
     public void setCurrentUserId(int userId) {
+        if (this.currentUserId == userId) return;
         this.currentUserId = userId;
         System.out.println("当前用户ID: " + userId); // 添加日志
-        notifyDataSetChanged();
+        // 只影响删除按钮是否可见，不需要重新绑定整行
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_OWNER);
     }
 
     public void setChatRooms(List<ChatRoom> chatRooms) {
-        this.chatRooms = chatRooms;
+        setChatRooms(chatRooms, null);
+    }
 
-        notifyDataSetChanged();
+    // commitCallback 在新列表真正显示后执行
+    public void setChatRooms(List<ChatRoom> chatRooms, Runnable commitCallback) {
+        // 提交新的列表实例，差异在后台线程计算
+        differ.submitList(new ArrayList<>(chatRooms), commitCallback);
     }
 
     @NonNull
@@ -60,40 +92,73 @@ public class ChatRoomAdapter extends RecyclerView.Adapter<ChatRoomAdapter.ChatRo
 
     @Override
     public void onBindViewHolder(@NonNull ChatRoomViewHolder holder, int position) {
-        ChatRoom chatRoom = chatRooms.get(position);
+        ChatRoom chatRoom = differ.getCurrentList().get(position);
         holder.bind(chatRoom);
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull ChatRoomViewHolder holder, int position,
+                                 @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_OWNER)) {
+            holder.bindOwner(differ.getCurrentList().get(position));
+        } else {
+            super.onBindViewHolder(holder, position, payloads);
+        }
+    }
+
     @Override
     public int getItemCount() {
-        return chatRooms.size();
+        return differ.getCurrentList().size();
     }
 
     class ChatRoomViewHolder extends RecyclerView.ViewHolder {
         private TextView roomNameTextView;
-        private TextView creatorNameTextView;
+        private TextView lastMessageTextView;
+        private TextView lastMessageTimeTextView;
+        private TextView unreadBadgeTextView;
         private ImageButton deleteButton;
 
         ChatRoomViewHolder(@NonNull View itemView) {
             super(itemView);
             roomNameTextView = itemView.findViewById(R.id.roomNameTextView);
-            creatorNameTextView = itemView.findViewById(R.id.creatorNameTextView);
+            lastMessageTextView = itemView.findViewById(R.id.lastMessageTextView);
+            lastMessageTimeTextView = itemView.findViewById(R.id.lastMessageTimeTextView);
+            unreadBadgeTextView = itemView.findViewById(R.id.unreadBadgeTextView);
             deleteButton = itemView.findViewById(R.id.deleteButton);
 
             itemView.setOnClickListener(v -> {
                 int position = getAdapterPosition();
                 if (position != RecyclerView.NO_POSITION) {
-                    listener.onChatRoomClick(chatRooms.get(position));
+                    listener.onChatRoomClick(differ.getCurrentList().get(position));
                 }
             });
         }
 
         void bind(ChatRoom chatRoom) {
             roomNameTextView.setText(chatRoom.getName());
-            creatorNameTextView.setText("聊天室 #" + chatRoom.getId());
+            String preview = chatRoom.getLastMessageContent();
+            if (chatRoom.getLastMessageId() > 0) {
+                // 只有图片消息没有文字
+                lastMessageTextView.setText(preview == null || preview.isEmpty() ? "[图片]" : preview);
+            } else {
+                lastMessageTextView.setText("暂无消息");
+            }
+            // 服务端时间是 UTC，与消息气泡中的时间一样不做时区换算
+            lastMessageTimeTextView.setText(chatRoom.getLastMessageAt() == null ? ""
+                    : MessageTimes.formatDayOrTime(chatRoom.getLastMessageAt(),
+                            LocalDate.now(ZoneOffset.UTC)));
+            int unread = chatRoom.getUnreadCount();
+            if (unread > 0) {
+                unreadBadgeTextView.setText(unread > MAX_UNREAD_SHOWN
+                        ? MAX_UNREAD_SHOWN + "+" : String.valueOf(unread));
+                unreadBadgeTextView.setVisibility(View.VISIBLE);
+            } else {
+                unreadBadgeTextView.setVisibility(View.GONE);
+            }
+            bindOwner(chatRoom);
+        }
 
-            System.out.println("聊天室创建者ID: " + chatRoom.getCreatorId()); // 添加日志
-            System.out.println("当前用户ID: " + currentUserId); // 添加日志
+        void bindOwner(ChatRoom chatRoom) {
             // 只有创建者才能看到删除按钮
             if (chatRoom.getCreatorId() == currentUserId) {
                 deleteButton.setVisibility(View.VISIBLE);
@@ -1,51 +1,327 @@
 package com.chat.chat_room.adapter;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.chat.chat_room.R;
+import com.chat.chat_room.image.ImageLoader;
 import com.chat.chat_room.model.Message;
 
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 public class MessageAdapter extends RecyclerView.Adapter<MessageAdapter.MessageViewHolder> {
-    private List<Message> messages = new ArrayList<>();
+    private static final DiffUtil.ItemCallback<MessageRow> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<MessageRow>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull MessageRow oldRow, @NonNull MessageRow newRow) {
+                    Message oldItem = oldRow.message;
+                    Message newItem = newRow.message;
+                    // 待发送消息还没有 id，靠幂等键与服务端确认后的消息对应
+                    if (oldItem.getClientId() != null && newItem.getClientId() != null) {
+                        return oldItem.getClientId().equals(newItem.getClientId());
+                    }
+                    return oldItem.getId() == newItem.getId();
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull MessageRow oldRow, @NonNull MessageRow newRow) {
+                    Message oldItem = oldRow.message;
+                    Message newItem = newRow.message;
+                    return oldRow.viewType == newRow.viewType
+                            && oldItem.getUserId() == newItem.getUserId()
+                            && oldItem.isPending() == newItem.isPending()
+                            && Objects.equals(oldItem.getContent(), newItem.getContent())
+                            && Objects.equals(oldItem.getImageUrl(), newItem.getImageUrl())
+                            && Objects.equals(oldItem.getCreatedAt(), newItem.getCreatedAt());
+                }
+            };
+
+    // 行模型的构建和列表差异计算都在这个线程中按提交顺序执行
+    private static final Executor ROW_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    // 内存中最多保留的消息条数，超出后丢弃离视口较远的一端
+    public static final int WINDOW_CAPACITY = 300;
+
+    // 差异在后台线程计算，只把最小的增删改事件派发到主线程
+    private final AsyncListDiffer<MessageRow> differ = new AsyncListDiffer<>(
+            new AdapterListUpdateCallback(this),
+            new AsyncDifferConfig.Builder<>(DIFF_CALLBACK)
+                    .setBackgroundThreadExecutor(ROW_EXECUTOR)
+                    .build());
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // 最近一次提交的窗口，differ 可能还没应用完，合并新消息时以它为准
+    private final MessageWindow window;
+    // 发件箱中尚未确认的消息，总是显示在窗口之后
+    private List<Message> pending = Collections.emptyList();
+    // 最近一次提交显示的消息（窗口加待发送），当前用户变化时据此重建行模型
+    private List<Message> displayed = Collections.emptyList();
+    // 每次提交递增，后台构建完成时已有更新的提交就丢弃本次结果
+    private int publishGeneration;
+    // 被丢弃的提交的回调合并到下一次真正显示时执行
+    private final List<Runnable> commitCallbacks = new ArrayList<>();
+    // 正文的排版参数，从消息布局中的 TextView 取得
+    private PrecomputedTextCompat.Params textParams;
+    // 图片显示的长边上限（px）
+    private int imageMaxPx;
     private int currentUserId;
-    private static final int VIEW_TYPE_ME = 1;
-    private static final int VIEW_TYPE_OTHER = 2;
+
+    public MessageAdapter() {
+        this(new MessageWindow(WINDOW_CAPACITY));
+    }
+
+    // 窗口由 ViewModel 持有时，页面因配置变化重建后已加载的消息和翻页位置都还在
+    public MessageAdapter(MessageWindow window) {
+        this.window = window;
+    }
+
+    // 显示窗口中已有的消息，用于页面重建后不经网络和缓存直接恢复列表
+    public void showWindow(Runnable commitCallback) {
+        submit(window.getMessages(), commitCallback);
+    }
 
     public void setMessages(List<Message> messages) {
-        this.messages = messages;
-        notifyDataSetChanged();
+        setMessages(messages, null);
+    }
+
+    // commitCallback 在新列表真正显示后执行，适合在其中滚动到底部
+    public void setMessages(List<Message> messages, Runnable commitCallback) {
+        removeConfirmed(messages);
+        submit(window.replace(messages), commitCallback);
     }
 
     public void addMessage(Message message) {
-        messages.add(message);
-        notifyItemInserted(messages.size() - 1);
+        addMessages(Collections.singletonList(message), null);
+    }
+
+    public void addMessage(Message message, Runnable commitCallback) {
+        addMessages(Collections.singletonList(message), commitCallback);
+    }
+
+    // 合并增量同步、推送或发送得到的最新消息。
+    // 用户正在浏览较早的历史（窗口不在最新位置）时先不合并，等向下翻页时再加载
+    public void addMessages(List<Message> newMessages, Runnable commitCallback) {
+        boolean confirmed = removeConfirmed(newMessages);
+        List<Message> merged = window.hasNewer() ? null : window.appendNewer(newMessages);
+        if (merged == null && confirmed) {
+            merged = window.getMessages();
+        }
+        submit(merged, commitCallback);
+    }
+
+    // 显示发件箱中该聊天室尚未发出的消息
+    public void setPendingMessages(List<Message> messages) {
+        List<Message> updated = new ArrayList<>(messages);
+        // 读取期间刚发送的消息还没写进发件箱，保留在末尾
+        Set<String> loaded = new HashSet<>();
+        for (Message message : messages) {
+            loaded.add(message.getClientId());
+        }
+        for (Message message : pending) {
+            if (!loaded.contains(message.getClientId())) {
+                updated.add(message);
+            }
+        }
+        pending = updated;
+        // 可能已经通过同步或推送拿到了服务端确认的版本
+        removeConfirmed(window.getMessages());
+        submit(window.getMessages(), null);
+    }
+
+    public void addPendingMessage(Message message, Runnable commitCallback) {
+        List<Message> updated = new ArrayList<>(pending);
+        updated.add(message);
+        pending = updated;
+        submit(window.getMessages(), commitCallback);
+    }
+
+    // 被服务端拒绝的消息不再显示
+    public void removePendingMessage(String clientId) {
+        List<Message> updated = new ArrayList<>(pending);
+        for (int i = 0; i < updated.size(); i++) {
+            if (updated.get(i).getClientId().equals(clientId)) {
+                updated.remove(i);
+                pending = updated;
+                submit(window.getMessages(), null);
+                return;
+            }
+        }
+    }
+
+    // 向上翻页得到的更早消息，noMore 表示服务器已没有更早的消息
+    public void prependPage(List<Message> older, boolean noMore) {
+        if (noMore) window.markNoOlder();
+        submit(window.prependOlder(older), null);
+    }
+
+    // 向下翻页得到的较新消息，reachedLatest 表示已加载到最新
+    public void appendPage(List<Message> newer, boolean reachedLatest) {
+        submit(window.appendNewer(newer), null);
+        if (reachedLatest) window.markNoNewer();
+    }
+
+    // 显示历史中以某条消息结尾的一页，用于从搜索结果跳转；noOlder 表示服务器已没有更早的消息
+    public void showHistory(List<Message> page, boolean noOlder, Runnable commitCallback) {
+        submit(window.replaceWithHistory(page), commitCallback);
+        if (noOlder) window.markNoOlder();
+    }
+
+    // 消息在当前显示的列表中的位置，不在列表中时返回 RecyclerView.NO_POSITION
+    public int getPosition(int messageId) {
+        List<MessageRow> rows = differ.getCurrentList();
+        for (int i = 0; i < rows.size(); i++) {
+            Message message = rows.get(i).message;
+            if (!message.isPending() && message.getId() == messageId) {
+                return i;
+            }
+        }
+        return RecyclerView.NO_POSITION;
+    }
+
+    // 服务器已没有比窗口更早的消息
+    public void markNoOlder() {
+        window.markNoOlder();
+    }
+
+    public boolean hasOlder() {
+        return window.hasOlder();
+    }
+
+    public boolean hasNewer() {
+        return window.hasNewer();
+    }
+
+    public int getOldestId() {
+        return window.getOldestId();
+    }
+
+    public int getNewestId() {
+        return window.getNewestId();
+    }
+
+    private void submit(List<Message> messages, Runnable commitCallback) {
+        if (messages == null) return;
+        if (pending.isEmpty()) {
+            publish(messages, commitCallback);
+            return;
+        }
+        List<Message> list = new ArrayList<>(messages.size() + pending.size());
+        list.addAll(messages);
+        list.addAll(pending);
+        publish(list, commitCallback);
+    }
+
+    // 先在后台把消息转换成行模型，回到主线程后再交给 differ 计算差异
+    private void publish(List<Message> messages, Runnable commitCallback) {
+        displayed = messages;
+        int generation = ++publishGeneration;
+        if (commitCallback != null) {
+            commitCallbacks.add(commitCallback);
+        }
+        List<MessageRow> previous = differ.getCurrentList();
+        int userId = currentUserId;
+        PrecomputedTextCompat.Params params = textParams;
+        int maxPx = imageMaxPx;
+        ROW_EXECUTOR.execute(() -> {
+            List<MessageRow> rows = MessageRow.build(messages, previous, userId, params, maxPx);
+            mainHandler.post(() -> {
+                if (generation != publishGeneration) return;
+                List<Runnable> callbacks = new ArrayList<>(commitCallbacks);
+                commitCallbacks.clear();
+                differ.submitList(rows, callbacks.isEmpty() ? null : () -> {
+                    for (Runnable callback : callbacks) {
+                        callback.run();
+                    }
+                });
+            });
+        });
+    }
+
+    // 去掉已被服务端确认的待发送消息，返回是否有变化
+    private boolean removeConfirmed(List<Message> messages) {
+        if (pending.isEmpty()) return false;
+        Set<String> clientIds = new HashSet<>();
+        for (Message message : messages) {
+            if (message.getClientId() != null) {
+                clientIds.add(message.getClientId());
+            }
+        }
+        if (clientIds.isEmpty()) return false;
+        List<Message> remaining = new ArrayList<>();
+        for (Message message : pending) {
+            if (!clientIds.contains(message.getClientId())) {
+                remaining.add(message);
+            }
+        }
+        if (remaining.size() == pending.size()) return false;
+        pending = remaining;
+        return true;
     }
 
     public void setCurrentUserId(int userId) {
+        if (this.currentUserId == userId) return;
         this.currentUserId = userId;
+        // 当前用户变化会影响每一行的左右布局，重建行模型后只有视图类型变了的行会刷新
+        publish(displayed, null);
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        if (textParams == null) {
+            // 两种消息布局的正文字号和字体相同，取其中一个的排版参数即可
+            View probe = LayoutInflater.from(recyclerView.getContext())
+                    .inflate(R.layout.item_message_me, recyclerView, false);
+            TextView contentTextView = probe.findViewById(R.id.contentTextView);
+            textParams = TextViewCompat.getTextMetricsParams(contentTextView);
+            imageMaxPx = recyclerView.getResources()
+                    .getDimensionPixelSize(R.dimen.message_image_max_size);
+        }
     }
 
     @Override
     public int getItemViewType(int position) {
-        Message message = messages.get(position);
-        return message.getUserId() == currentUserId ? VIEW_TYPE_ME : VIEW_TYPE_OTHER;
+        return differ.getCurrentList().get(position).viewType;
     }
 
     @NonNull
     @Override
     public MessageViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        int layoutRes = viewType == VIEW_TYPE_ME ?
-                R.layout.item_message_me : R.layout.item_message_other;
+        int layoutRes;
+        switch (viewType) {
+            case MessageRow.VIEW_TYPE_ME:
+                layoutRes = R.layout.item_message_me;
+                break;
+            case MessageRow.VIEW_TYPE_ME_IMAGE:
+                layoutRes = R.layout.item_message_me_image;
+                break;
+            case MessageRow.VIEW_TYPE_OTHER_IMAGE:
+                layoutRes = R.layout.item_message_other_image;
+                break;
+            default:
+                layoutRes = R.layout.item_message_other;
+                break;
+        }
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(layoutRes, parent, false);
         return new MessageViewHolder(view);
@@ -53,30 +329,64 @@ public class MessageAdapter extends RecyclerView.Adapter<MessageAdapter.MessageV
 
     @Override
     public void onBindViewHolder(@NonNull MessageViewHolder holder, int position) {
-        holder.bind(messages.get(position));
+        holder.bind(differ.getCurrentList().get(position));
+    }
+
+    // 划出屏幕的行不再需要它的图片，取消还没完成的下载和解码
+    @Override
+    public void onViewRecycled(@NonNull MessageViewHolder holder) {
+        super.onViewRecycled(holder);
+        holder.unbind();
     }
 
     @Override
     public int getItemCount() {
-        return messages.size();
+        return differ.getCurrentList().size();
     }
 
     static class MessageViewHolder extends RecyclerView.ViewHolder {
+        // 文字消息只有 contentTextView，图片消息只有 imageView
         private TextView contentTextView;
+        private ImageView imageView;
         private TextView timeTextView;
-        private static final DateTimeFormatter formatter =
-                DateTimeFormatter.ofPattern("HH:mm");
 
         MessageViewHolder(@NonNull View itemView) {
             super(itemView);
             contentTextView = itemView.findViewById(R.id.contentTextView);
+            imageView = itemView.findViewById(R.id.imageView);
             timeTextView = itemView.findViewById(R.id.timeTextView);
         }
 
-        void bind(Message message) {
-            contentTextView.setText(message.getContent());
-            if (message.getCreatedAt() != null) {
-                timeTextView.setText(message.getCreatedAt().format(formatter));
+        // 所有数据都已预先算好，这里只做赋值
+        void bind(MessageRow row) {
+            timeTextView.setText(row.timeText);
+            itemView.setAlpha(row.alpha);
+            if (imageView != null) {
+                bindImage(row);
+                return;
+            }
+            if (row.content instanceof PrecomputedTextCompat) {
+                TextViewCompat.setPrecomputedText(contentTextView, (PrecomputedTextCompat) row.content);
+            } else {
+                contentTextView.setText(row.content);
+            }
+        }
+
+        private void bindImage(MessageRow row) {
+            ViewGroup.LayoutParams params = imageView.getLayoutParams();
+            if (params.width != row.imageWidth || params.height != row.imageHeight) {
+                params.width = row.imageWidth;
+                params.height = row.imageHeight;
+                imageView.setLayoutParams(params);
+            }
+            ImageLoader.getInstance(itemView.getContext())
+                    .load(row.message.getImageUrl(), imageView, row.imageWidth, row.imageHeight);
+        }
+
+        void unbind() {
+            if (imageView != null) {
+                ImageLoader.getInstance(itemView.getContext()).cancel(imageView);
+                imageView.setImageDrawable(null);
             }
         }
     }
@@ -0,0 +1,101 @@
+package com.chat.chat_room.adapter;
+
+import androidx.core.text.PrecomputedTextCompat;
+
+import com.chat.chat_room.image.ImageSizes;
+import com.chat.chat_room.model.Message;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 消息列表中一行的展示数据。视图类型、时间文本和正文排版都在后台线程预先算好，
+ * 绑定时只需要赋值。
+ */
+final class MessageRow {
+    static final int VIEW_TYPE_ME = 1;
+    static final int VIEW_TYPE_OTHER = 2;
+    static final int VIEW_TYPE_ME_IMAGE = 3;
+    static final int VIEW_TYPE_OTHER_IMAGE = 4;
+
+    // 待发送的消息半透明显示
+    private static final float PENDING_ALPHA = 0.6f;
+
+    final Message message;
+    final int viewType;
+    // 排版参数可用时是 PrecomputedTextCompat，否则是原始文本
+    final CharSequence content;
+    final String timeText;
+    final float alpha;
+    // 图片的显示尺寸（px），按原图比例算好，加载前就能占住位置，图片到达时列表不会跳动
+    final int imageWidth;
+    final int imageHeight;
+
+    private MessageRow(Message message, int viewType, CharSequence content, String timeText,
+                       float alpha, int imageWidth, int imageHeight) {
+        this.message = message;
+        this.viewType = viewType;
+        this.content = content;
+        this.timeText = timeText;
+        this.alpha = alpha;
+        this.imageWidth = imageWidth;
+        this.imageHeight = imageHeight;
+    }
+
+    // 在后台线程中调用。上一次的行模型中同一个消息对象且视图类型不变的直接复用。
+    // imageMaxPx 是图片显示的长边上限
+    static List<MessageRow> build(List<Message> messages, List<MessageRow> previous,
+                                  int currentUserId, PrecomputedTextCompat.Params params,
+                                  int imageMaxPx) {
+        Map<Message, MessageRow> reusable = new IdentityHashMap<>(previous.size());
+        for (MessageRow row : previous) {
+            reusable.put(row.message, row);
+        }
+        List<MessageRow> rows = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            int viewType = viewTypeOf(message, currentUserId);
+            MessageRow row = reusable.get(message);
+            if (row == null || row.viewType != viewType || (params != null && !message.isImage()
+                    && !(row.content instanceof PrecomputedTextCompat))) {
+                row = create(message, viewType, params, imageMaxPx);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static MessageRow create(Message message, int viewType,
+                                     PrecomputedTextCompat.Params params, int imageMaxPx) {
+        String text = message.getContent() == null ? "" : message.getContent();
+        CharSequence content = text;
+        int[] imageSize = {0, 0};
+        if (message.isImage()) {
+            imageSize = ImageSizes.fit(message.getImageWidth(), message.getImageHeight(),
+                    imageMaxPx, imageMaxPx / 4);
+        } else if (params != null) {
+            // 测量字形是排版中最耗时的部分，放到后台完成
+            content = PrecomputedTextCompat.create(text, params);
+        }
+        String timeText;
+        if (message.isPending()) {
+            timeText = "发送中";
+        } else if (message.getCreatedAt() != null) {
+            timeText = MessageTimes.formatHourMinute(message.getCreatedAt());
+        } else {
+            timeText = "";
+        }
+        return new MessageRow(message, viewType, content, timeText,
+                message.isPending() ? PENDING_ALPHA : 1f, imageSize[0], imageSize[1]);
+    }
+
+    // 待发送的消息一定是自己发的，即使当前用户信息还没加载
+    private static int viewTypeOf(Message message, int currentUserId) {
+        boolean mine = message.isPending() || message.getUserId() == currentUserId;
+        if (message.isImage()) {
+            return mine ? VIEW_TYPE_ME_IMAGE : VIEW_TYPE_OTHER_IMAGE;
+        }
+        return mine ? VIEW_TYPE_ME : VIEW_TYPE_OTHER;
+    }
+}
\ No newline at end of file
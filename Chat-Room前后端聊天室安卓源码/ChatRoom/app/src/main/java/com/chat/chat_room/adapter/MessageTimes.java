@@ -0,0 +1,33 @@
+package com.chat.chat_room.adapter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// 消息时间的显示格式，不依赖 Android，可以直接在 JVM 上做基准测试
+public final class MessageTimes {
+    private MessageTimes() {
+    }
+
+    // 等价于 DateTimeFormatter.ofPattern("HH:mm")，但不需要解析模式和创建中间对象
+    public static String formatHourMinute(LocalDateTime time) {
+        int hour = time.getHour();
+        int minute = time.getMinute();
+        return new String(new char[] {
+                (char) ('0' + hour / 10), (char) ('0' + hour % 10), ':',
+                (char) ('0' + minute / 10), (char) ('0' + minute % 10)
+        });
+    }
+
+    // 聊天室列表中的时间：当天的显示 "HH:mm"，更早的显示 "MM-dd"
+    public static String formatDayOrTime(LocalDateTime time, LocalDate today) {
+        if (time.toLocalDate().equals(today)) {
+            return formatHourMinute(time);
+        }
+        int month = time.getMonthValue();
+        int day = time.getDayOfMonth();
+        return new String(new char[] {
+                (char) ('0' + month / 10), (char) ('0' + month % 10), '-',
+                (char) ('0' + day / 10), (char) ('0' + day % 10)
+        });
+    }
+}
\ No newline at end of file
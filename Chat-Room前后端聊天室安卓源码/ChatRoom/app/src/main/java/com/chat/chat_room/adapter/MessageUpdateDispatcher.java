@@ -0,0 +1,131 @@
+package com.chat.chat_room.adapter;
+
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.chat.chat_room.model.Message;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * 推送、增量同步和发送结果先进入缓冲区，每个显示帧最多向 MessageAdapter 提交一次，
+ * 一批消息只产生一次差异计算、一次范围插入和一次滚动。
+ * 用户停在底部时新消息到达后自动滚到底；已向上浏览时不打断阅读，只累计新消息数。
+ * 只在主线程使用。
+ */
+public class MessageUpdateDispatcher {
+    // 缓冲区上限与消息窗口容量一致：一帧内更早的消息合并后也会被挤出窗口，丢弃它们不影响显示
+    private static final int MAX_BUFFERED = MessageAdapter.WINDOW_CAPACITY;
+
+    public interface Listener {
+        // 一批消息已经显示
+        void onBatchCommitted();
+
+        // 未在底部时累计的新消息数变化，0 表示已经看完
+        void onUnreadCountChanged(int count);
+    }
+
+    private final MessageAdapter adapter;
+    private final RecyclerView recyclerView;
+    private final Listener listener;
+    private final Choreographer choreographer = Choreographer.getInstance();
+    private final Choreographer.FrameCallback flushCallback = frameTimeNanos -> flush();
+    // 按 id 排序并去重，同一条消息可能同时来自推送和增量同步
+    private final TreeMap<Integer, Message> buffer = new TreeMap<>();
+    private boolean scheduled;
+    // 缓冲区中别人发来的、窗口里还没有的消息数
+    private int bufferedUnread;
+    private int unreadCount;
+    private int currentUserId;
+
+    public MessageUpdateDispatcher(MessageAdapter adapter, RecyclerView recyclerView,
+                                   Listener listener) {
+        this.adapter = adapter;
+        this.recyclerView = recyclerView;
+        this.listener = listener;
+        // 用户自己滚到底部后新消息都已看到
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (unreadCount > 0 && !adapter.hasNewer() && isAtBottom()) {
+                    clearUnread();
+                }
+            }
+        });
+    }
+
+    // 自己发的消息不计入新消息数
+    public void setCurrentUserId(int userId) {
+        currentUserId = userId;
+    }
+
+    public void post(Message message) {
+        post(Collections.singletonList(message));
+    }
+
+    public void post(List<Message> messages) {
+        if (messages.isEmpty()) return;
+        int newestId = adapter.getNewestId();
+        for (Message message : messages) {
+            if (buffer.put(message.getId(), message) == null
+                    && message.getId() > newestId && message.getUserId() != currentUserId) {
+                bufferedUnread++;
+            }
+        }
+        while (buffer.size() > MAX_BUFFERED) {
+            buffer.pollFirstEntry();
+        }
+        if (!scheduled) {
+            scheduled = true;
+            choreographer.postFrameCallback(flushCallback);
+        }
+    }
+
+    public void clearUnread() {
+        setUnreadCount(0);
+    }
+
+    // 页面销毁时调用，丢弃还没提交的消息（它们已写入本地缓存）
+    public void cancel() {
+        choreographer.removeFrameCallback(flushCallback);
+        scheduled = false;
+        buffer.clear();
+        bufferedUnread = 0;
+    }
+
+    private void flush() {
+        scheduled = false;
+        if (buffer.isEmpty()) return;
+        List<Message> batch = new ArrayList<>(buffer.values());
+        int unread = bufferedUnread;
+        buffer.clear();
+        bufferedUnread = 0;
+
+        // 在提交前判断，提交后列表变长，用户就不在底部了
+        boolean stickToBottom = !adapter.hasNewer() && isAtBottom();
+        adapter.addMessages(batch, () -> {
+            if (stickToBottom && adapter.getItemCount() > 0) {
+                recyclerView.scrollToPosition(adapter.getItemCount() - 1);
+            }
+            listener.onBatchCommitted();
+        });
+        if (!stickToBottom && unread > 0) {
+            setUnreadCount(unreadCount + unread);
+        }
+    }
+
+    private boolean isAtBottom() {
+        return !recyclerView.canScrollVertically(1);
+    }
+
+    private void setUnreadCount(int count) {
+        if (count == unreadCount) return;
+        unreadCount = count;
+        listener.onUnreadCountChanged(count);
+    }
+}
\ No newline at end of file
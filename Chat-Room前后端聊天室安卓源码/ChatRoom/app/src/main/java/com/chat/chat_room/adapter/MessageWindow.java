@@ -0,0 +1,137 @@
+package com.chat.chat_room.adapter;
+
+import com.chat.chat_room.model.Message;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 消息列表的有界窗口：按 id 升序保存一段连续的消息，超出容量时丢弃离视口较远的一端，
+ * 使内存占用与聊天室的总消息数无关。每次修改都生成新的列表实例，便于交给 AsyncListDiffer。
+ */
+public class MessageWindow {
+    private final int capacity;
+    private List<Message> messages = Collections.emptyList();
+    private final Set<Integer> ids = new HashSet<>();
+    // 窗口之前可能还有更早的消息
+    private boolean hasOlder = true;
+    // 窗口之后有被丢弃的更新消息，此时窗口不在最新位置
+    private boolean hasNewer = false;
+
+    public MessageWindow(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public List<Message> getMessages() {
+        return messages;
+    }
+
+    public boolean hasOlder() {
+        return hasOlder;
+    }
+
+    public boolean hasNewer() {
+        return hasNewer;
+    }
+
+    // 服务器已没有更早的消息
+    public void markNoOlder() {
+        hasOlder = false;
+    }
+
+    // 已经加载到最新的消息
+    public void markNoNewer() {
+        hasNewer = false;
+    }
+
+    public int getOldestId() {
+        return messages.isEmpty() ? 0 : messages.get(0).getId();
+    }
+
+    public int getNewestId() {
+        return messages.isEmpty() ? 0 : messages.get(messages.size() - 1).getId();
+    }
+
+    // 用一段按 id 升序的消息替换窗口，超出容量时保留最新的部分
+    public List<Message> replace(List<Message> newMessages) {
+        int from = Math.max(0, newMessages.size() - capacity);
+        messages = new ArrayList<>(newMessages.subList(from, newMessages.size()));
+        ids.clear();
+        for (Message message : messages) {
+            ids.add(message.getId());
+        }
+        hasOlder = true;
+        hasNewer = false;
+        return messages;
+    }
+
+    // 跳转到历史中的某一段：替换窗口，之后可能还有更新的消息，需要向下翻页加载
+    public List<Message> replaceWithHistory(List<Message> page) {
+        replace(page);
+        hasNewer = true;
+        return messages;
+    }
+
+    // 合并更新的消息，超出容量时丢弃最早的一端；没有新消息时返回 null
+    public List<Message> appendNewer(List<Message> newer) {
+        List<Message> merged = merge(newer);
+        if (merged == null) return null;
+        int overflow = merged.size() - capacity;
+        if (overflow > 0) {
+            removeIds(merged.subList(0, overflow));
+            merged = new ArrayList<>(merged.subList(overflow, merged.size()));
+            hasOlder = true;
+        }
+        messages = merged;
+        return messages;
+    }
+
+    // 合并更早的消息，超出容量时丢弃最新的一端；没有新消息时返回 null
+    public List<Message> prependOlder(List<Message> older) {
+        List<Message> merged = merge(older);
+        if (merged == null) return null;
+        if (merged.size() > capacity) {
+            removeIds(merged.subList(capacity, merged.size()));
+            merged = new ArrayList<>(merged.subList(0, capacity));
+            hasNewer = true;
+        }
+        messages = merged;
+        return messages;
+    }
+
+    // 按 id 去重后与当前窗口做一次有序归并
+    private List<Message> merge(List<Message> incoming) {
+        List<Message> fresh = new ArrayList<>();
+        for (Message message : incoming) {
+            // 同一条消息可能既来自发送结果又来自增量同步或推送
+            if (ids.add(message.getId())) {
+                fresh.add(message);
+            }
+        }
+        if (fresh.isEmpty()) return null;
+        Collections.sort(fresh, (a, b) -> Integer.compare(a.getId(), b.getId()));
+
+        List<Message> merged = new ArrayList<>(messages.size() + fresh.size());
+        int i = 0;
+        int j = 0;
+        while (i < messages.size() && j < fresh.size()) {
+            if (messages.get(i).getId() < fresh.get(j).getId()) {
+                merged.add(messages.get(i++));
+            } else {
+                merged.add(fresh.get(j++));
+            }
+        }
+        merged.addAll(messages.subList(i, messages.size()));
+        merged.addAll(fresh.subList(j, fresh.size()));
+        return merged;
+    }
+
+    private void removeIds(List<Message> dropped) {
+        for (Message message : dropped) {
+            ids.remove(message.getId());
+        }
+    }
+}
\ No newline at end of file
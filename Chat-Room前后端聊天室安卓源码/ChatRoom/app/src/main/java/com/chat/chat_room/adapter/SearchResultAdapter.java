@@ -0,0 +1,124 @@
+package com.chat.chat_room.adapter;
+
+import android.text.SpannableString;
+import android.text.Spanned;
+import android.text.style.ForegroundColorSpan;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.chat.chat_room.R;
+import com.chat.chat_room.model.Message;
+
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+// 消息搜索结果列表，点击后跳转到消息所在位置
+public class SearchResultAdapter extends RecyclerView.Adapter<SearchResultAdapter.ResultViewHolder> {
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private static final DiffUtil.ItemCallback<Message> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<Message>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull Message oldItem, @NonNull Message newItem) {
+                    return oldItem.getId() == newItem.getId();
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull Message oldItem, @NonNull Message newItem) {
+                    return Objects.equals(oldItem.getContent(), newItem.getContent());
+                }
+            };
+
+    public interface OnResultClickListener {
+        void onResultClick(Message message);
+    }
+
+    private final AsyncListDiffer<Message> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    private final OnResultClickListener listener;
+    // 结果中高亮的查询词，已转成小写
+    private String highlight = "";
+
+    public SearchResultAdapter(OnResultClickListener listener) {
+        this.listener = listener;
+    }
+
+    public void setResults(List<Message> results, String query) {
+        String lower = query.toLowerCase(Locale.ROOT);
+        if (!lower.equals(highlight)) {
+            highlight = lower;
+            // 查询词变了，保留下来的结果也要重新高亮
+            notifyItemRangeChanged(0, getItemCount());
+        }
+        differ.submitList(results);
+    }
+
+    @NonNull
+    @Override
+    public ResultViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_search_result, parent, false);
+        return new ResultViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ResultViewHolder holder, int position) {
+        holder.bind(differ.getCurrentList().get(position));
+    }
+
+    @Override
+    public int getItemCount() {
+        return differ.getCurrentList().size();
+    }
+
+    class ResultViewHolder extends RecyclerView.ViewHolder {
+        private final TextView contentTextView;
+        private final TextView timeTextView;
+
+        ResultViewHolder(@NonNull View itemView) {
+            super(itemView);
+            contentTextView = itemView.findViewById(R.id.resultContentTextView);
+            timeTextView = itemView.findViewById(R.id.resultTimeTextView);
+
+            itemView.setOnClickListener(v -> {
+                int position = getAdapterPosition();
+                if (position != RecyclerView.NO_POSITION) {
+                    listener.onResultClick(differ.getCurrentList().get(position));
+                }
+            });
+        }
+
+        void bind(Message message) {
+            contentTextView.setText(highlight(message.getContent()));
+            timeTextView.setText(message.getCreatedAt() == null
+                    ? "" : message.getCreatedAt().format(DATE_TIME));
+        }
+
+        // 标出正文中与查询词完全相同的部分；全角半角等经过归一化才匹配上的不做标记
+        private CharSequence highlight(String content) {
+            if (content == null) return "";
+            if (highlight.isEmpty()) return content;
+            String lower = content.toLowerCase(Locale.ROOT);
+            if (lower.length() != content.length()) return content;
+            int index = lower.indexOf(highlight);
+            if (index < 0) return content;
+            int color = ContextCompat.getColor(itemView.getContext(), R.color.primary);
+            SpannableString text = new SpannableString(content);
+            while (index >= 0) {
+                text.setSpan(new ForegroundColorSpan(color), index, index + highlight.length(),
+                        Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                index = lower.indexOf(highlight, index + highlight.length());
+            }
+            return text;
+        }
+    }
+}
\ No newline at end of file
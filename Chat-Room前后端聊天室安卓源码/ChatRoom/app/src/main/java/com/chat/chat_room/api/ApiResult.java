@@ -0,0 +1,61 @@
+package com.chat.chat_room.api;
+
+import java.io.IOException;
+
+import retrofit2.Response;
+
+// 一次请求的结果。收到响应时 code 是 HTTP 状态码；网络错误时 code 为 0，error 不为空
+public final class ApiResult<T> {
+    private final T data;
+    private final int code;
+    private final String errorBody;
+    private final Throwable error;
+
+    private ApiResult(T data, int code, String errorBody, Throwable error) {
+        this.data = data;
+        this.code = code;
+        this.errorBody = errorBody;
+        this.error = error;
+    }
+
+    static <T> ApiResult<T> of(Response<T> response) {
+        String errorBody = null;
+        if (!response.isSuccessful() && response.errorBody() != null) {
+            try {
+                errorBody = response.errorBody().string();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return new ApiResult<>(response.body(), response.code(), errorBody, null);
+    }
+
+    static <T> ApiResult<T> failure(Throwable error) {
+        return new ApiResult<>(null, 0, null, error);
+    }
+
+    public boolean isSuccessful() {
+        return error == null && code >= 200 && code < 300;
+    }
+
+    public boolean isNetworkError() {
+        return error != null;
+    }
+
+    // 响应体，请求失败或接口没有响应体时为 null
+    public T getData() {
+        return data;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getErrorBody() {
+        return errorBody;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+}
\ No newline at end of file
@@ -4,10 +4,13 @@ import com.chat.chat_room.model.ChatRoom;
 import com.chat.chat_room.model.ChatRoomCreate;
 import com.chat.chat_room.model.Message;
 import com.chat.chat_room.model.MessageCreate;
+import com.chat.chat_room.model.ReadMarker;
 import com.chat.chat_room.model.User;
 
 import java.util.List;
 
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
 import retrofit2.Call;
 import retrofit2.http.Body;
 import retrofit2.http.DELETE;
@@ -15,15 +18,33 @@ import retrofit2.http.Field;
 import retrofit2.http.FormUrlEncoded;
 import retrofit2.http.GET;
 import retrofit2.http.Header;
+import retrofit2.http.Headers;
+import retrofit2.http.Multipart;
 import retrofit2.http.POST;
+import retrofit2.http.PUT;
+import retrofit2.http.Part;
 import retrofit2.http.Path;
+import retrofit2.http.Query;
 
 public interface ApiService {
+    // 优先请求紧凑的 CBOR 编码，旧版服务端会忽略并继续返回 JSON
+    String ACCEPT_CBOR = "Accept: application/cbor, application/json;q=0.9";
+
+    @Headers(ACCEPT_CBOR)
     @GET("chatrooms")
-    Call<List<ChatRoom>> getChatRooms(@Header("Authorization") String token);
+    Call<List<ChatRoom>> getChatRooms();
+
+    // 聊天室列表摘要：附带最后一条消息和未读数，按最近活动排序，一次请求取全
+    @Headers(ACCEPT_CBOR)
+    @GET("chatrooms/summaries")
+    Call<List<ChatRoom>> getChatRoomSummaries();
+
+    // 上报已读位置，服务端只会前进不会后退
+    @POST("chatrooms/{roomId}/read")
+    Call<Void> markRead(@Path("roomId") int roomId, @Body ReadMarker marker);
 
     @POST("chatrooms")
-    Call<ChatRoom> createChatRoom(@Header("Authorization") String token, @Body ChatRoomCreate chatRoom);
+    Call<ChatRoom> createChatRoom(@Body ChatRoomCreate chatRoom);
 
     @FormUrlEncoded
     @POST("token")
@@ -32,30 +53,68 @@ public interface ApiService {
             @Field("password") String password
     );
 
+    // 用刷新令牌换取新的访问令牌，由 TokenRefresher 在后台线程同步调用
+    @FormUrlEncoded
+    @POST("token/refresh")
+    Call<LoginResponse> refreshToken(@Field("refresh_token") String refreshToken);
+
+    @FormUrlEncoded
+    @POST("token/revoke")
+    Call<Void> revokeToken(@Field("refresh_token") String refreshToken);
+
     @POST("register")
     Call<RegisterResponse> register(@Body RegisterRequest request);
 
     // 添加删除聊天室的接口
     @DELETE("chatrooms/{roomId}")
-    Call<Void> deleteChatRoom(
-            @Header("Authorization") String token,
-            @Path("roomId") int roomId
-    );
+    Call<Void> deleteChatRoom(@Path("roomId") int roomId);
 
     // 获取当前用户信息的接口
     @GET("users/me")
-    Call<User> getCurrentUser(@Header("Authorization") String token);
+    Call<User> getCurrentUser();
 
+    @Headers(ACCEPT_CBOR)
     @GET("chatrooms/{roomId}/messages")
-    Call<List<Message>> getMessages(
-            @Header("Authorization") String token,
-            @Path("roomId") int roomId
+    Call<List<Message>> getMessages(@Path("roomId") int roomId);
+
+    // 分页获取消息：beforeId 为空时取最新一页，afterId 不为空时向后翻页
+    @Headers(ACCEPT_CBOR)
+    @GET("chatrooms/{roomId}/messages")
+    Call<List<Message>> getMessagePage(
+            @Path("roomId") int roomId,
+            @Query("before_id") Integer beforeId,
+            @Query("after_id") Integer afterId,
+            @Query("limit") int limit
     );
 
+    // idempotencyKey 由客户端生成，重试时保持不变，服务端据此去重
     @POST("chatrooms/{roomId}/messages")
     Call<Message> createMessage(
-            @Header("Authorization") String token,
             @Path("roomId") int roomId,
-            @Body MessageCreate message
+            @Body MessageCreate message,
+            @Header("Idempotency-Key") String idempotencyKey
+    );
+
+    // 先上传图片拿到地址，再用 createMessage 发送图片消息
+    @Multipart
+    @POST("uploads/images")
+    Call<UploadResponse> uploadImage(@Part MultipartBody.Part file);
+
+    // 可续传的分片上传，由 ChunkedUploader 在后台线程同步调用：
+    // 创建会话，查询已收到的分片，按 Content-Range 上传各个分片，全部收到后提交
+    @POST("uploads")
+    Call<UploadSession> createUpload(@Body UploadSessionCreate request);
+
+    @GET("uploads/{uploadId}")
+    Call<UploadSession> getUpload(@Path("uploadId") String uploadId);
+
+    @PUT("uploads/{uploadId}")
+    Call<Void> uploadChunk(
+            @Path("uploadId") String uploadId,
+            @Header("Content-Range") String range,
+            @Body RequestBody chunk
     );
+
+    @POST("uploads/{uploadId}/commit")
+    Call<UploadResponse> commitUpload(@Path("uploadId") String uploadId);
 }
\ No newline at end of file
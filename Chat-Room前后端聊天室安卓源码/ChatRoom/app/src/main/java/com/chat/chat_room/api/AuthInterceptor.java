@@ -0,0 +1,39 @@
+package com.chat.chat_room.api;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+// 统一为请求加上 Authorization 头，token 即将过期时先刷新再发请求
+public class AuthInterceptor implements Interceptor {
+    static final String BEARER = "Bearer ";
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        // 登录、刷新等 /token 接口不带访问令牌，也不能在这里触发刷新
+        if (request.header("Authorization") != null
+                || request.url().encodedPath().startsWith("/token")) {
+            return chain.proceed(request);
+        }
+        SessionManager session = SessionManager.getInstance();
+        // 在 OkHttp 的线程中执行，可以等待 token 读取完成
+        session.awaitLoaded();
+        String token = session.getToken();
+        if (token == null) {
+            return chain.proceed(request);
+        }
+        if (session.shouldRefresh()) {
+            // 刷新失败时仍用旧 token，过期后由 TokenAuthenticator 处理 401
+            String refreshed = TokenRefresher.getInstance().refresh(token);
+            if (refreshed != null) {
+                token = refreshed;
+            }
+        }
+        return chain.proceed(request.newBuilder()
+                .header("Authorization", BEARER + token)
+                .build());
+    }
+}
\ No newline at end of file
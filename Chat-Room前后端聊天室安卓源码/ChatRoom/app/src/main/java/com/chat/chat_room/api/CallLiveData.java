@@ -0,0 +1,105 @@
+package com.chat.chat_room.api;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * 把一次 Retrofit 请求包装成 LiveData：第一次有活跃的观察者时发出请求，结果只有一个。
+ * 页面在后台时观察者仍在，请求照常完成，回到前台时才收到结果，不会在不可见的页面上更新视图。
+ * 最后一个观察者被移除（页面销毁）后取消仍在进行的请求。
+ * 旋转屏幕等配置变化时，新页面在旧页面销毁的同一条主线程消息中重新观察，请求会继续进行。
+ * 只在主线程使用。
+ */
+public class CallLiveData<T> extends LiveData<ApiResult<T>> {
+    private final Call<T> call;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private Runnable onDone;
+    private boolean started;
+    private boolean done;
+
+    public CallLiveData(Call<T> call) {
+        this.call = call;
+    }
+
+    // 请求完成或被取消后调用一次，ChatRepository 据此把它移出进行中的请求表
+    public void setOnDone(Runnable onDone) {
+        this.onDone = onDone;
+    }
+
+    // 在 owner 可见时接收一次结果，之后自动移除观察者。
+    // 同一页面可以挂多个回调，例如翻页和跳转恰好请求同一页时，两边都会收到结果
+    public void observeOnce(@NonNull LifecycleOwner owner, @NonNull Observer<ApiResult<T>> observer) {
+        if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) return;
+        observe(owner, new Observer<ApiResult<T>>() {
+            @Override
+            public void onChanged(ApiResult<T> result) {
+                removeObserver(this);
+                observer.onChanged(result);
+            }
+        });
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public void cancel() {
+        if (done) return;
+        done = true;
+        call.cancel();
+        if (onDone != null) {
+            onDone.run();
+        }
+    }
+
+    @Override
+    protected void onActive() {
+        if (started) return;
+        started = true;
+        call.enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(Call<T> call, Response<T> response) {
+                finish(ApiResult.of(response));
+            }
+
+            @Override
+            public void onFailure(Call<T> call, Throwable t) {
+                if (call.isCanceled()) return;
+                t.printStackTrace();
+                finish(ApiResult.failure(t));
+            }
+        });
+    }
+
+    @Override
+    public void removeObserver(@NonNull Observer<? super ApiResult<T>> observer) {
+        super.removeObserver(observer);
+        if (!done && !hasObservers()) {
+            // 等这条消息处理完再判断，配置变化重建的页面此时已经重新观察
+            mainHandler.post(() -> {
+                if (!hasObservers()) {
+                    cancel();
+                }
+            });
+        }
+    }
+
+    private void finish(ApiResult<T> result) {
+        if (done) return;
+        done = true;
+        if (onDone != null) {
+            onDone.run();
+        }
+        setValue(result);
+    }
+}
\ No newline at end of file
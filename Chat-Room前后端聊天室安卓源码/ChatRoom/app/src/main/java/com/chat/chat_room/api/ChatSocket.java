@@ -0,0 +1,161 @@
+package com.chat.chat_room.api;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.chat.chat_room.api.cbor.CborDecoders;
+import com.chat.chat_room.api.cbor.CborReader;
+import com.chat.chat_room.model.Message;
+
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okio.Buffer;
+import okio.ByteString;
+
+/**
+ * 聊天室的 WebSocket 推送连接。
+ * 断线后按指数退避自动重连，并通过 after_id 从最后收到的消息继续推送。
+ * 请求服务端用二进制帧推送 CBOR 编码的消息，文本帧的 JSON 仍然可以解析。
+ */
+public class ChatSocket {
+    private static final long HEARTBEAT_INTERVAL_SECONDS = 20;
+    private static final long INITIAL_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 30000;
+
+    public interface Listener {
+        void onMessage(Message message);
+    }
+
+    private final int roomId;
+    private final Listener listener;
+    private final OkHttpClient client;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable reconnectTask = this::open;
+
+    private WebSocket webSocket;
+    private int lastMessageId;
+    private long backoffMs = INITIAL_BACKOFF_MS;
+    private boolean running;
+
+    public ChatSocket(int roomId, Listener listener) {
+        this.roomId = roomId;
+        this.listener = listener;
+        // 共用 RetrofitClient 的连接池和线程池，额外开启 ping 心跳
+        this.client = RetrofitClient.getInstance()
+                .getOkHttpClient()
+                .newBuilder()
+                .pingInterval(HEARTBEAT_INTERVAL_SECONDS, TimeUnit.SECONDS)
+                .build();
+    }
+
+    public void connect(int afterId) {
+        updateLastMessageId(afterId);
+        if (running) return;
+        running = true;
+        backoffMs = INITIAL_BACKOFF_MS;
+        open();
+    }
+
+    public void close() {
+        running = false;
+        mainHandler.removeCallbacks(reconnectTask);
+        if (webSocket != null) {
+            webSocket.close(1000, null);
+            webSocket = null;
+        }
+    }
+
+    // 通过其他途径（如下拉刷新）拿到的消息也推进游标
+    public void updateLastMessageId(int messageId) {
+        lastMessageId = Math.max(lastMessageId, messageId);
+    }
+
+    // token 不放在查询参数中：握手请求经过 AuthInterceptor，由它加上 Authorization 头，
+    // 快过期时先刷新，重连时总是带着最新的 token
+    private void open() {
+        if (!running || !SessionManager.getInstance().isLoggedIn()) return;
+        HttpUrl url = HttpUrl.get(RetrofitClient.BASE_URL)
+                .newBuilder()
+                .addPathSegments("ws/chatrooms/" + roomId)
+                .addQueryParameter("after_id", String.valueOf(lastMessageId))
+                .addQueryParameter("format", "cbor")
+                .build();
+        Request request = new Request.Builder().url(url).build();
+        webSocket = client.newWebSocket(request, new SocketListener());
+    }
+
+    private void scheduleReconnect(WebSocket socket) {
+        if (!running || socket != webSocket) return;
+        webSocket = null;
+        mainHandler.postDelayed(reconnectTask, backoffMs);
+        backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+    }
+
+    // OkHttp 在后台线程回调，统一切回主线程处理
+    private class SocketListener extends WebSocketListener {
+        @Override
+        public void onOpen(WebSocket socket, Response response) {
+            mainHandler.post(() -> backoffMs = INITIAL_BACKOFF_MS);
+        }
+
+        @Override
+        public void onMessage(WebSocket socket, String text) {
+            Message message;
+            try {
+                message = RetrofitClient.getInstance().getGson().fromJson(text, Message.class);
+            } catch (Exception e) {
+                e.printStackTrace();
+                return;
+            }
+            deliver(socket, message);
+        }
+
+        @Override
+        public void onMessage(WebSocket socket, ByteString bytes) {
+            Message message;
+            try {
+                message = CborDecoders.readMessage(new CborReader(new Buffer().write(bytes)));
+            } catch (Exception e) {
+                e.printStackTrace();
+                return;
+            }
+            deliver(socket, message);
+        }
+
+        private void deliver(WebSocket socket, Message message) {
+            if (message == null) return;
+            mainHandler.post(() -> {
+                if (!running || socket != webSocket) return;
+                updateLastMessageId(message.getId());
+                listener.onMessage(message);
+            });
+        }
+
+        @Override
+        public void onClosing(WebSocket socket, int code, String reason) {
+            socket.close(code, null);
+            mainHandler.post(() -> scheduleReconnect(socket));
+        }
+
+        @Override
+        public void onFailure(WebSocket socket, Throwable t, Response response) {
+            t.printStackTrace();
+            // 握手被拒（token 失效或聊天室不存在）时重连没有意义
+            boolean rejected = response != null && response.code() >= 400 && response.code() < 500;
+            mainHandler.post(() -> {
+                if (rejected && socket == webSocket) {
+                    running = false;
+                    webSocket = null;
+                    return;
+                }
+                scheduleReconnect(socket);
+            });
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.chat.chat_room.api;
+
+import com.chat.chat_room.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * 进程内的当前用户缓存。同一 token 下并发的请求合并为一次 /users/me 调用，
+ * 之后直接返回缓存，token 变化时自动失效。只在主线程使用。
+ */
+public class CurrentUserCache {
+    private static CurrentUserCache instance;
+
+    private User user;
+    // 缓存的用户对应的 token
+    private String userToken;
+    // 正在进行的请求对应的 token 以及等待结果的回调
+    private String pendingToken;
+    private final List<UserCallback> waiters = new ArrayList<>();
+
+    public interface UserCallback {
+        void onSuccess(User user);
+
+        // networkError 为 false 表示服务器拒绝了当前 token（401/403）；
+        // 网络错误和服务端故障（如重启中返回 5xx）都为 true，稍后重试即可
+        void onError(boolean networkError);
+    }
+
+    public static synchronized CurrentUserCache getInstance() {
+        if (instance == null) {
+            instance = new CurrentUserCache();
+        }
+        return instance;
+    }
+
+    public void get(UserCallback callback) {
+        String token = SessionManager.getInstance().getToken();
+        if (token == null) {
+            callback.onError(false);
+            return;
+        }
+        if (user != null && token.equals(userToken)) {
+            callback.onSuccess(user);
+            return;
+        }
+        waiters.add(callback);
+        if (token.equals(pendingToken)) return;
+
+        pendingToken = token;
+        RetrofitClient.getInstance()
+                .getApi()
+                .getCurrentUser()
+                .enqueue(new Callback<User>() {
+                    @Override
+                    public void onResponse(Call<User> call, Response<User> response) {
+                        // token 已经换过，这次结果作废
+                        if (!token.equals(pendingToken)) return;
+                        if (response.isSuccessful() && response.body() != null) {
+                            user = response.body();
+                            userToken = token;
+                            deliver(user, false);
+                        } else {
+                            deliver(null, !isRejected(response.code()));
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Call<User> call, Throwable t) {
+                        if (!token.equals(pendingToken)) return;
+                        t.printStackTrace();
+                        deliver(null, true);
+                    }
+                });
+    }
+
+    public void clear() {
+        user = null;
+        userToken = null;
+        pendingToken = null;
+        waiters.clear();
+    }
+
+    // 只有认证失败才说明 token 不可用，其余错误不应让用户退出登录
+    private static boolean isRejected(int code) {
+        return code == 401 || code == 403;
+    }
+
+    private void deliver(User result, boolean networkError) {
+        pendingToken = null;
+        List<UserCallback> callbacks = new ArrayList<>(waiters);
+        waiters.clear();
+        for (UserCallback callback : callbacks) {
+            if (result != null) {
+                callback.onSuccess(result);
+            } else {
+                callback.onError(networkError);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.chat.chat_room.api;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+
+// 文件中的一段，发送时直接从磁盘流式读出，不把分片读进内存。
+// 每次写出都重新打开文件，OkHttp 重试时可以再发一遍
+public class FileChunkRequestBody extends RequestBody {
+    private final File file;
+    private final long offset;
+    private final long length;
+    private final MediaType contentType;
+
+    public FileChunkRequestBody(File file, long offset, long length, MediaType contentType) {
+        this.file = file;
+        this.offset = offset;
+        this.length = length;
+        this.contentType = contentType;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        try (FileInputStream in = new FileInputStream(file)) {
+            in.getChannel().position(offset);
+            try (Source source = Okio.source(in)) {
+                // 文件在上传期间变短时抛出 EOFException
+                sink.write(source, length);
+            }
+        }
+    }
+}
\ No newline at end of file
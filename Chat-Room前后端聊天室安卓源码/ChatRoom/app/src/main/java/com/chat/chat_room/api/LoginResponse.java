@@ -3,6 +3,13 @@ package com.chat.chat_room.api;
 public class LoginResponse {
     private String access_token;
     private String token_type;
+    private String refresh_token;
+
+    public LoginResponse(String accessToken, String tokenType, String refreshToken) {
+        this.access_token = accessToken;
+        this.token_type = tokenType;
+        this.refresh_token = refreshToken;
+    }
 
     public String getAccessToken() {
         return access_token;
@@ -11,4 +18,8 @@ public class LoginResponse {
     public String getTokenType() {
         return token_type;
     }
+
+    public String getRefreshToken() {
+        return refresh_token;
+    }
 }
\ No newline at end of file
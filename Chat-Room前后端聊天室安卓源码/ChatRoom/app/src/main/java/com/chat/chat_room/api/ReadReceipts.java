@@ -0,0 +1,68 @@
+package com.chat.chat_room.api;
+
+import com.chat.chat_room.model.ChatRoom;
+import com.chat.chat_room.model.ReadMarker;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * 向服务端上报各聊天室的已读位置，并记住本进程上报过的位置。
+ * 离开聊天室后列表立即刷新，服务端可能还没处理完上报，
+ * 所以刷新列表时再用本地记录把已读完的聊天室未读数清零。只在主线程使用。
+ */
+public class ReadReceipts {
+    private static ReadReceipts instance;
+
+    private final Map<Integer, Integer> lastReadIds = new HashMap<>();
+
+    public static synchronized ReadReceipts getInstance() {
+        if (instance == null) {
+            instance = new ReadReceipts();
+        }
+        return instance;
+    }
+
+    public void markRead(int roomId, int messageId) {
+        Integer reported = lastReadIds.get(roomId);
+        if (messageId <= 0 || (reported != null && reported >= messageId)) return;
+        lastReadIds.put(roomId, messageId);
+
+        RetrofitClient.getInstance()
+                .getApi()
+                .markRead(roomId, new ReadMarker(messageId))
+                .enqueue(new Callback<Void>() {
+                    @Override
+                    public void onResponse(Call<Void> call, Response<Void> response) {
+                    }
+
+                    @Override
+                    public void onFailure(Call<Void> call, Throwable t) {
+                        t.printStackTrace();
+                        // 没有报上去，下次离开聊天室时重新上报
+                        if (Integer.valueOf(messageId).equals(lastReadIds.get(roomId))) {
+                            lastReadIds.remove(roomId);
+                        }
+                    }
+                });
+    }
+
+    // 已读位置不早于最后一条消息的聊天室没有未读消息
+    public void apply(List<ChatRoom> chatRooms) {
+        for (ChatRoom chatRoom : chatRooms) {
+            Integer lastRead = lastReadIds.get(chatRoom.getId());
+            if (lastRead != null && lastRead >= chatRoom.getLastMessageId()) {
+                chatRoom.setUnreadCount(0);
+            }
+        }
+    }
+
+    public void clear() {
+        lastReadIds.clear();
+    }
+}
\ No newline at end of file
@@ -1,27 +1,100 @@
 package com.chat.chat_room.api;
 
+import android.content.Context;
+
+import com.chat.chat_room.api.cbor.CborConverterFactory;
+import com.chat.chat_room.api.json.ChatRoomTypeAdapter;
+import com.chat.chat_room.api.metrics.MetricsEventListener;
+import com.chat.chat_room.api.json.LocalDateTimeTypeAdapter;
+import com.chat.chat_room.api.json.LoginResponseTypeAdapter;
+import com.chat.chat_room.api.json.MessageTypeAdapter;
+import com.chat.chat_room.api.json.UserTypeAdapter;
+import com.chat.chat_room.model.ChatRoom;
+import com.chat.chat_room.model.Message;
+import com.chat.chat_room.model.User;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
 public class RetrofitClient {
-    private static final String BASE_URL = "http://192.168.123.62:8000/"; // 本地测试用
+    static final String BASE_URL = "http://192.168.123.62:8000/"; // 本地测试用
+    // 空闲连接保留个数和时长，聊天场景下请求集中在同一个主机
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    // 磁盘 HTTP 缓存大小上限
+    private static final long CACHE_SIZE_BYTES = 10L * 1024 * 1024;
+    private static final long CONNECT_TIMEOUT_SECONDS = 10;
+    private static final long READ_TIMEOUT_SECONDS = 20;
+
+    private static Context appContext;
     private static RetrofitClient instance;
     private Retrofit retrofit;
+    private ApiService api;
+    private OkHttpClient okHttpClient;
+    private Gson gson;
 
     private RetrofitClient() {
         // 创建一个允许 null 值的 Gson 实例
-        Gson gson = new GsonBuilder()
+        gson = new GsonBuilder()
                 .serializeNulls()  // 序列化 null 值
                 .setLenient()      // 宽松解析
+                // 响应模型使用手写的流式适配器，不走反射；列表由 Gson 边读边解析
+                .registerTypeAdapter(Message.class, new MessageTypeAdapter())
+                .registerTypeAdapter(ChatRoom.class, new ChatRoomTypeAdapter())
+                .registerTypeAdapter(User.class, new UserTypeAdapter())
+                .registerTypeAdapter(LoginResponse.class, new LoginResponseTypeAdapter())
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
                 .create();
 
+        // Retrofit 和 WebSocket 共用同一个 OkHttpClient
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                // HTTPS 下通过 ALPN 协商 HTTP/2，明文连接仍走 HTTP/1.1
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .readTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .addInterceptor(new AuthInterceptor())
+                // 访问令牌过期收到 401 时刷新并重放请求
+                .authenticator(new TokenAuthenticator())
+                // 按接口统计各阶段耗时和收发字节数
+                .eventListenerFactory(MetricsEventListener.FACTORY);
+        if (appContext != null) {
+            // 服务端返回 ETag 后，OkHttp 会自动带上 If-None-Match，命中时只传输 304
+            builder.cache(new Cache(new File(appContext.getCacheDir(), "http"), CACHE_SIZE_BYTES));
+        }
+        okHttpClient = builder.build();
+
         retrofit = new Retrofit.Builder()
                 .baseUrl(BASE_URL)
+                .client(okHttpClient)
+                // 服务端按 Accept 协商返回 CBOR 时走二进制解码，否则回退到 JSON
+                .addConverterFactory(CborConverterFactory.create())
                 .addConverterFactory(GsonConverterFactory.create(gson))
                 .build();
+        // 动态代理只创建一次，避免每次请求重复解析接口注解
+        api = retrofit.create(ApiService.class);
+    }
+
+    // 在 Application.onCreate 中调用，必须早于第一次 getInstance
+    public static synchronized void init(Context context) {
+        appContext = context.getApplicationContext();
     }
 
     public static synchronized RetrofitClient getInstance() {
@@ -32,6 +105,51 @@ public class RetrofitClient {
     }
 
     public ApiService getApi() {
-        return retrofit.create(ApiService.class);
+        return api;
+    }
+
+    public OkHttpClient getOkHttpClient() {
+        return okHttpClient;
+    }
+
+    public Gson getGson() {
+        return gson;
+    }
+
+    // 把服务端返回的相对路径（如图片地址）解析成完整地址
+    public static HttpUrl resolve(String path) {
+        return HttpUrl.get(BASE_URL).resolve(path);
+    }
+
+    // 启动时发一个轻量请求，让 DNS 解析和 TCP 握手与界面初始化并行完成，
+    // 建好的连接留在连接池中，第一次真正的请求可以直接复用
+    public void prewarm() {
+        Request request = new Request.Builder()
+                .url(BASE_URL + "health")
+                .build();
+        okHttpClient.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                // 预热失败不影响后续请求，真正的请求会自己重新建连
+            }
+        });
+    }
+
+    // 退出登录时清掉上一个用户的响应缓存
+    public void clearCache() {
+        Cache cache = okHttpClient.cache();
+        if (cache == null) return;
+        new Thread(() -> {
+            try {
+                cache.evictAll();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }).start();
     }
 }
\ No newline at end of file
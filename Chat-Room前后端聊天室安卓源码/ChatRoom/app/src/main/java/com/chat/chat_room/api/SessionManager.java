@@ -0,0 +1,185 @@
+package com.chat.chat_room.api;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Base64;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 登录会话：启动时在后台线程读取一次 token，之后只在内存中读写，
+ * 请求路径上不再访问 SharedPreferences。
+ * 读取完成前 getToken 返回 null、isLoggedIn 返回 false，主线程从不等待磁盘；
+ * 页面在 whenLoaded 回调中再判断登录状态，后台线程可以用 awaitLoaded 等待。
+ * token 是否过期直接解码 JWT 的 exp 字段在本地判断，启动时不需要请求服务器验证。
+ * 访问令牌过期但还有刷新令牌时会话仍然有效，由 TokenRefresher 换取新的访问令牌。
+ */
+public class SessionManager {
+    private static final String PREFS_NAME = "ChatApp";
+    private static final String KEY_TOKEN = "token";
+    private static final String KEY_TOKEN_TIMESTAMP = "token_timestamp";
+    private static final String KEY_REFRESH_TOKEN = "refresh_token";
+    // 本地保存的 token 最长有效期 30 天
+    private static final long TOKEN_MAX_AGE_MS = 30 * 24 * 60 * 60 * 1000L;
+    // 提前一点视为过期，避免请求发出时恰好失效
+    private static final long EXPIRY_SKEW_MS = 30 * 1000L;
+    // 距过期不到 2 分钟时发请求前先刷新，请求不会因为中途过期而收到 401
+    private static final long REFRESH_AHEAD_MS = 2 * 60 * 1000L;
+
+    private static SessionManager instance;
+
+    private final SharedPreferences prefs;
+    private final CountDownLatch loaded = new CountDownLatch(1);
+    // 读取完成前登记的回调，读取完成后依次在主线程执行
+    private final List<OnLoadedListener> pendingListeners = new ArrayList<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile String token;
+    private volatile String refreshToken;
+    // token 的过期时间（毫秒），0 表示 token 中没有 exp
+    private volatile long expiresAtMs;
+
+    public interface OnLoadedListener {
+        void onLoaded(String token);
+    }
+
+    private SessionManager(Context context) {
+        prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        new Thread(this::load, "session-loader").start();
+    }
+
+    // 在 Application.onCreate 中调用
+    public static synchronized void init(Context context) {
+        if (instance == null) {
+            instance = new SessionManager(context.getApplicationContext());
+        }
+    }
+
+    public static synchronized SessionManager getInstance() {
+        return instance;
+    }
+
+    private void load() {
+        String stored = prefs.getString(KEY_TOKEN, null);
+        String storedRefresh = prefs.getString(KEY_REFRESH_TOKEN, null);
+        long timestamp = prefs.getLong(KEY_TOKEN_TIMESTAMP, 0);
+        long expiry = stored == null ? 0 : readExpiryMs(stored);
+        // 访问令牌过期但有刷新令牌时保留会话，第一次请求时再刷新
+        if (stored != null && (System.currentTimeMillis() - timestamp > TOKEN_MAX_AGE_MS
+                || (isExpired(expiry) && storedRefresh == null))) {
+            prefs.edit()
+                    .remove(KEY_TOKEN)
+                    .remove(KEY_TOKEN_TIMESTAMP)
+                    .remove(KEY_REFRESH_TOKEN)
+                    .apply();
+            stored = null;
+            storedRefresh = null;
+            expiry = 0;
+        }
+        List<OnLoadedListener> listeners;
+        synchronized (this) {
+            expiresAtMs = expiry;
+            refreshToken = storedRefresh;
+            token = stored;
+            loaded.countDown();
+            listeners = new ArrayList<>(pendingListeners);
+            pendingListeners.clear();
+        }
+        for (OnLoadedListener listener : listeners) {
+            mainHandler.post(() -> listener.onLoaded(token));
+        }
+    }
+
+    // 读取完成后在主线程回调；已经读完时直接同步回调。
+    // 正常情况下启动时早已读完，只有进程被回收后直接恢复页面时才需要等待
+    public void whenLoaded(OnLoadedListener listener) {
+        synchronized (this) {
+            if (loaded.getCount() > 0) {
+                pendingListeners.add(listener);
+                return;
+            }
+        }
+        listener.onLoaded(token);
+    }
+
+    // 阻塞到读取完成，只能在后台线程（请求拦截器、发件箱、后台任务）中调用
+    public void awaitLoaded() {
+        try {
+            loaded.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 不等待读取；读取完成前返回 null
+    public String getToken() {
+        return token;
+    }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    // 没有 token，或 token 已过期且无法刷新，都视为未登录
+    public boolean isLoggedIn() {
+        return getToken() != null && (!isExpired(expiresAtMs) || refreshToken != null);
+    }
+
+    // 访问令牌即将过期且可以刷新
+    public boolean shouldRefresh() {
+        return getToken() != null && refreshToken != null && expiresAtMs > 0
+                && System.currentTimeMillis() >= expiresAtMs - REFRESH_AHEAD_MS;
+    }
+
+    // 登录和刷新后调用；旧版服务端不返回刷新令牌时 newRefreshToken 为 null
+    public synchronized void saveTokens(String newToken, String newRefreshToken) {
+        expiresAtMs = readExpiryMs(newToken);
+        refreshToken = newRefreshToken;
+        token = newToken;
+        SharedPreferences.Editor editor = prefs.edit()
+                .putString(KEY_TOKEN, newToken)
+                .putLong(KEY_TOKEN_TIMESTAMP, System.currentTimeMillis());
+        if (newRefreshToken != null) {
+            editor.putString(KEY_REFRESH_TOKEN, newRefreshToken);
+        } else {
+            editor.remove(KEY_REFRESH_TOKEN);
+        }
+        editor.apply();
+    }
+
+    public synchronized void clear() {
+        token = null;
+        refreshToken = null;
+        expiresAtMs = 0;
+        prefs.edit()
+                .remove(KEY_TOKEN)
+                .remove(KEY_TOKEN_TIMESTAMP)
+                .remove(KEY_REFRESH_TOKEN)
+                .apply();
+    }
+
+    private static boolean isExpired(long expiry) {
+        return expiry > 0 && System.currentTimeMillis() >= expiry - EXPIRY_SKEW_MS;
+    }
+
+    // 只解码 payload 读取 exp（秒），不校验签名；签名仍由服务器在每次请求时校验
+    private static long readExpiryMs(String jwt) {
+        String[] parts = jwt.split("\\.");
+        if (parts.length < 2) return 0;
+        try {
+            byte[] payload = Base64.decode(parts[1],
+                    Base64.URL_SAFE | Base64.NO_PADDING | Base64.NO_WRAP);
+            JSONObject claims = new JSONObject(new String(payload, StandardCharsets.UTF_8));
+            return claims.optLong("exp", 0) * 1000L;
+        } catch (IllegalArgumentException | JSONException e) {
+            return 0;
+        }
+    }
+}
\ No newline at end of file
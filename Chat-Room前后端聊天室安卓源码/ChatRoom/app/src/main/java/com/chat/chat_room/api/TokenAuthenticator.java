@@ -0,0 +1,26 @@
+package com.chat.chat_room.api;
+
+import okhttp3.Authenticator;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.Route;
+
+// 收到 401 时刷新 token 并用新 token 重放原请求，调用方感知不到这次失败
+public class TokenAuthenticator implements Authenticator {
+    @Override
+    public Request authenticate(Route route, Response response) {
+        String authorization = response.request().header("Authorization");
+        if (authorization == null || !authorization.startsWith(AuthInterceptor.BEARER)) {
+            return null;
+        }
+        // 换了 token 重放后仍然 401，说明不是过期的问题，不再重试
+        if (response.priorResponse() != null) return null;
+
+        String staleToken = authorization.substring(AuthInterceptor.BEARER.length());
+        String token = TokenRefresher.getInstance().refresh(staleToken);
+        if (token == null) return null;
+        return response.request().newBuilder()
+                .header("Authorization", AuthInterceptor.BEARER + token)
+                .build();
+    }
+}
\ No newline at end of file
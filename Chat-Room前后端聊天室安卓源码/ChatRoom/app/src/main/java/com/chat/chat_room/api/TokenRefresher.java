@@ -0,0 +1,73 @@
+package com.chat.chat_room.api;
+
+import java.io.IOException;
+
+import retrofit2.Response;
+
+/**
+ * 用刷新令牌换取新的访问令牌，在 OkHttp 的后台线程中同步调用。
+ * 多个请求同时发现 token 即将过期或收到 401 时，只有第一个真正发起刷新，
+ * 其余的等它完成后直接使用新 token。
+ */
+public class TokenRefresher {
+    // 刷新因网络失败后，这段时间内同一个旧 token 的其他请求不再重复尝试
+    private static final long FAILURE_BACKOFF_MS = 5000;
+
+    private static TokenRefresher instance;
+
+    private final Object lock = new Object();
+    private String failedToken;
+    private long failedAtMs;
+
+    public static synchronized TokenRefresher getInstance() {
+        if (instance == null) {
+            instance = new TokenRefresher();
+        }
+        return instance;
+    }
+
+    // staleToken 是调用方手上的旧 token；返回可用的 token，无法刷新时返回 null
+    public String refresh(String staleToken) {
+        synchronized (lock) {
+            SessionManager session = SessionManager.getInstance();
+            String current = session.getToken();
+            // 等锁期间已经有别的请求刷新过
+            if (current != null && !current.equals(staleToken)) return current;
+            String refreshToken = session.getRefreshToken();
+            if (current == null || refreshToken == null) return null;
+            if (current.equals(failedToken)
+                    && System.currentTimeMillis() - failedAtMs < FAILURE_BACKOFF_MS) {
+                return null;
+            }
+
+            Response<LoginResponse> response;
+            try {
+                response = RetrofitClient.getInstance()
+                        .getApi()
+                        .refreshToken(refreshToken)
+                        .execute();
+            } catch (IOException e) {
+                // 网络问题不影响会话，下次请求再试
+                e.printStackTrace();
+                failedToken = current;
+                failedAtMs = System.currentTimeMillis();
+                return null;
+            }
+            LoginResponse body = response.body();
+            if (response.isSuccessful() && body != null && body.getAccessToken() != null) {
+                String newRefreshToken = body.getRefreshToken() != null
+                        ? body.getRefreshToken() : refreshToken;
+                session.saveTokens(body.getAccessToken(), newRefreshToken);
+                return body.getAccessToken();
+            }
+            if (response.code() == 401 && refreshToken.equals(session.getRefreshToken())) {
+                // 刷新令牌已过期或被吊销，只能重新登录；原请求的 401 会交给页面处理
+                session.clear();
+            } else {
+                failedToken = current;
+                failedAtMs = System.currentTimeMillis();
+            }
+            return null;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.chat.chat_room.api;
+
+// 上传完成后服务端返回的文件地址，发送图片消息时带上
+public class UploadResponse {
+    private String url;
+
+    public String getUrl() {
+        return url;
+    }
+}
\ No newline at end of file
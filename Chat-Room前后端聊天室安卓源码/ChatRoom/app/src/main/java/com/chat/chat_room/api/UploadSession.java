@@ -0,0 +1,38 @@
+package com.chat.chat_room.api;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.Collections;
+import java.util.List;
+
+// 分片上传会话：分片大小由服务端决定，received 是已经收到的分片序号。
+// 会话已经提交过时 url 是文件地址，否则为 null
+public class UploadSession {
+    @SerializedName("upload_id")
+    private String uploadId;
+    private long size;
+    @SerializedName("chunk_size")
+    private int chunkSize;
+    private List<Integer> received;
+    private String url;
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public List<Integer> getReceived() {
+        return received == null ? Collections.emptyList() : received;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+}
\ No newline at end of file
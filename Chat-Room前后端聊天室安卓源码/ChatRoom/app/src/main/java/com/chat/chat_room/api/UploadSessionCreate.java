@@ -0,0 +1,17 @@
+package com.chat.chat_room.api;
+
+import com.google.gson.annotations.SerializedName;
+
+public class UploadSessionCreate {
+    private long size;
+    @SerializedName("content_type")
+    private String contentType;
+    // 服务端只用它确定扩展名
+    private String filename;
+
+    public UploadSessionCreate(long size, String contentType, String filename) {
+        this.size = size;
+        this.contentType = contentType;
+        this.filename = filename;
+    }
+}
\ No newline at end of file
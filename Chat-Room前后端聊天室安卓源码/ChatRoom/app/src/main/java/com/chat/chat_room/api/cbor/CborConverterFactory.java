@@ -0,0 +1,77 @@
+package com.chat.chat_room.api.cbor;
+
+import com.chat.chat_room.model.ChatRoom;
+import com.chat.chat_room.model.Message;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * 按响应的 Content-Type 选择解码方式：application/cbor 走 CBOR，其余交给后面的 Gson 转换器。
+ * 需要放在 GsonConverterFactory 之前注册；请求体仍由 Gson 编码。
+ */
+public class CborConverterFactory extends Converter.Factory {
+    public static final String MEDIA_SUBTYPE = "cbor";
+
+    interface Decoder<T> {
+        T decode(CborReader reader) throws IOException;
+    }
+
+    public static CborConverterFactory create() {
+        return new CborConverterFactory();
+    }
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations,
+                                                            Retrofit retrofit) {
+        Decoder<?> decoder = decoderFor(type);
+        if (decoder == null) return null;
+        Converter<ResponseBody, ?> fallback = retrofit.nextResponseBodyConverter(this, type, annotations);
+        return new ResponseConverter<>(decoder, fallback);
+    }
+
+    private static Decoder<?> decoderFor(Type type) {
+        if (type == Message.class) return CborDecoders::readMessage;
+        if (type == ChatRoom.class) return CborDecoders::readChatRoom;
+        if (type instanceof ParameterizedType
+                && ((ParameterizedType) type).getRawType() == List.class) {
+            Type element = ((ParameterizedType) type).getActualTypeArguments()[0];
+            if (element == Message.class) return CborDecoders::readMessages;
+            if (element == ChatRoom.class) return CborDecoders::readChatRooms;
+        }
+        return null;
+    }
+
+    private static final class ResponseConverter<T> implements Converter<ResponseBody, T> {
+        private final Decoder<T> decoder;
+        private final Converter<ResponseBody, T> fallback;
+
+        @SuppressWarnings("unchecked")
+        ResponseConverter(Decoder<T> decoder, Converter<ResponseBody, ?> fallback) {
+            this.decoder = decoder;
+            this.fallback = (Converter<ResponseBody, T>) fallback;
+        }
+
+        @Override
+        public T convert(ResponseBody body) throws IOException {
+            MediaType contentType = body.contentType();
+            if (contentType == null || !MEDIA_SUBTYPE.equals(contentType.subtype())) {
+                return fallback.convert(body);
+            }
+            // 直接从响应流解码，长列表不会先整体缓冲成字节数组
+            try {
+                return decoder.decode(new CborReader(body.source()));
+            } finally {
+                body.close();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,156 @@
+package com.chat.chat_room.api.cbor;
+
+import com.chat.chat_room.model.ChatRoom;
+import com.chat.chat_room.model.Message;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把后端 CBOR 编码的记录还原成模型。
+ * 整数键与后端 main.py 中的 message_record、chatroom_record 一一对应，不认识的键直接跳过。
+ */
+public final class CborDecoders {
+    // 数组长度来自网络数据，截断或损坏的响应可能声明极大的长度，预分配不超过这个数，其余按需扩容
+    private static final int MAX_INITIAL_CAPACITY = 256;
+
+    private CborDecoders() {
+    }
+
+    public static Message readMessage(CborReader reader) throws IOException {
+        Message message = new Message();
+        int size = reader.readMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (reader.readInt()) {
+                case 0:
+                    message.setId(reader.readInt());
+                    break;
+                case 1:
+                    message.setChatroomId(reader.readInt());
+                    break;
+                case 2:
+                    message.setUserId(reader.readInt());
+                    break;
+                case 3:
+                    message.setContent(reader.readStringOrNull());
+                    break;
+                case 4:
+                    message.setCreatedAt(readDateTimeOrNull(reader));
+                    break;
+                case 5:
+                    message.setClientId(reader.readStringOrNull());
+                    break;
+                case 6:
+                    message.setImageUrl(reader.readStringOrNull());
+                    break;
+                case 7:
+                    message.setImageWidth(readIntOrZero(reader));
+                    break;
+                case 8:
+                    message.setImageHeight(readIntOrZero(reader));
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        return message;
+    }
+
+    public static List<Message> readMessages(CborReader reader) throws IOException {
+        int size = reader.readArrayHeader();
+        List<Message> messages = new ArrayList<>(Math.min(size, MAX_INITIAL_CAPACITY));
+        for (int i = 0; i < size; i++) {
+            messages.add(readMessage(reader));
+        }
+        return messages;
+    }
+
+    public static ChatRoom readChatRoom(CborReader reader) throws IOException {
+        int id = 0;
+        String name = null;
+        int creatorId = 0;
+        LocalDateTime createdAt = null;
+        int lastMessageId = 0;
+        int lastMessageUserId = 0;
+        String lastMessageContent = null;
+        LocalDateTime lastMessageAt = null;
+        int unreadCount = 0;
+        int size = reader.readMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (reader.readInt()) {
+                case 0:
+                    id = reader.readInt();
+                    break;
+                case 1:
+                    name = reader.readStringOrNull();
+                    break;
+                case 2:
+                    creatorId = reader.readInt();
+                    break;
+                case 3:
+                    createdAt = readDateTimeOrNull(reader);
+                    break;
+                // 4 到 8 只出现在聊天室摘要中
+                case 4:
+                    lastMessageId = readIntOrZero(reader);
+                    break;
+                case 5:
+                    lastMessageUserId = readIntOrZero(reader);
+                    break;
+                case 6:
+                    lastMessageContent = reader.readStringOrNull();
+                    break;
+                case 7:
+                    lastMessageAt = readDateTimeOrNull(reader);
+                    break;
+                case 8:
+                    unreadCount = reader.readInt();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        ChatRoom chatRoom = new ChatRoom(id, name, creatorId);
+        chatRoom.setCreatedAt(createdAt);
+        chatRoom.setLastMessageId(lastMessageId);
+        chatRoom.setLastMessageUserId(lastMessageUserId);
+        chatRoom.setLastMessageContent(lastMessageContent);
+        chatRoom.setLastMessageAt(lastMessageAt);
+        chatRoom.setUnreadCount(unreadCount);
+        return chatRoom;
+    }
+
+    public static List<ChatRoom> readChatRooms(CborReader reader) throws IOException {
+        int size = reader.readArrayHeader();
+        List<ChatRoom> chatRooms = new ArrayList<>(Math.min(size, MAX_INITIAL_CAPACITY));
+        for (int i = 0; i < size; i++) {
+            chatRooms.add(readChatRoom(reader));
+        }
+        return chatRooms;
+    }
+
+    // 没有消息的聊天室，最后一条消息的各个字段为 null
+    static int readIntOrZero(CborReader reader) throws IOException {
+        if (reader.peekNull()) {
+            reader.readNull();
+            return 0;
+        }
+        return reader.readInt();
+    }
+
+    // 时间以 UTC 微秒时间戳传输，与 JSON 中不带时区的 UTC 时间还原成同一个 LocalDateTime
+    static LocalDateTime readDateTimeOrNull(CborReader reader) throws IOException {
+        if (reader.peekNull()) {
+            reader.readNull();
+            return null;
+        }
+        long micros = reader.readLong();
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,193 @@
+package com.chat.chat_room.api.cbor;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+
+import okio.Buffer;
+import okio.BufferedSource;
+
+/**
+ * 从流中顺序读取 CBOR（RFC 8949）数据项，边收边解码，不需要先把整个响应读进内存。
+ * 只支持后端会生成的子集：整数、字符串、数组、map、布尔值和 null，且长度都是确定的。
+ */
+public final class CborReader {
+    static final int TYPE_UNSIGNED = 0;
+    static final int TYPE_NEGATIVE = 1;
+    static final int TYPE_BYTES = 2;
+    static final int TYPE_TEXT = 3;
+    static final int TYPE_ARRAY = 4;
+    static final int TYPE_MAP = 5;
+    static final int TYPE_TAG = 6;
+    static final int TYPE_SIMPLE = 7;
+
+    private static final int FALSE = 0xf4;
+    private static final int TRUE = 0xf5;
+    private static final int NULL = 0xf6;
+
+    private final BufferedSource source;
+    // 已读取的字节数，只用于错误信息
+    private long position;
+
+    public CborReader(BufferedSource source) {
+        this.source = source;
+    }
+
+    public CborReader(byte[] data) {
+        this(new Buffer().write(data));
+    }
+
+    public boolean peekNull() throws IOException {
+        return peekByte() == NULL;
+    }
+
+    public void readNull() throws IOException {
+        if (readByte() != NULL) {
+            throw new ProtocolException("Expected null at " + (position - 1));
+        }
+    }
+
+    public boolean readBoolean() throws IOException {
+        int initial = readByte();
+        if (initial == TRUE) return true;
+        if (initial == FALSE) return false;
+        throw new ProtocolException("Expected boolean at " + (position - 1));
+    }
+
+    // 返回数组的元素个数
+    public int readArrayHeader() throws IOException {
+        return toLength(readHeader(TYPE_ARRAY));
+    }
+
+    // 返回 map 的键值对个数
+    public int readMapHeader() throws IOException {
+        return toLength(readHeader(TYPE_MAP));
+    }
+
+    public long readLong() throws IOException {
+        int initial = readByte();
+        int type = initial >>> 5;
+        long argument = readArgument(initial & 0x1f);
+        if (type == TYPE_UNSIGNED) return argument;
+        if (type == TYPE_NEGATIVE) return -1 - argument;
+        throw new ProtocolException("Expected integer at " + (position - 1));
+    }
+
+    public int readInt() throws IOException {
+        long value = readLong();
+        if (value != (int) value) {
+            throw new ProtocolException("Integer out of range: " + value);
+        }
+        return (int) value;
+    }
+
+    public String readString() throws IOException {
+        int length = toLength(readHeader(TYPE_TEXT));
+        String value = source.readUtf8(length);
+        position += length;
+        return value;
+    }
+
+    public String readStringOrNull() throws IOException {
+        if (peekNull()) {
+            readByte();
+            return null;
+        }
+        return readString();
+    }
+
+    // 跳过一个完整的数据项，用于忽略不认识的键
+    public void skipValue() throws IOException {
+        int initial = readByte();
+        int type = initial >>> 5;
+        int info = initial & 0x1f;
+        if (type == TYPE_SIMPLE) {
+            // 20~23 是 false/true/null/undefined，24~27 后面跟 1~8 字节的值
+            if (info >= 24 && info <= 27) {
+                skip(1 << (info - 24));
+            } else if (info > 27) {
+                throw new ProtocolException("Unsupported simple value at " + (position - 1));
+            }
+            return;
+        }
+        long argument = readArgument(info);
+        switch (type) {
+            case TYPE_BYTES:
+            case TYPE_TEXT:
+                skip(toLength(argument));
+                break;
+            case TYPE_ARRAY:
+                for (long i = 0; i < argument; i++) {
+                    skipValue();
+                }
+                break;
+            case TYPE_MAP:
+                for (long i = 0; i < argument * 2; i++) {
+                    skipValue();
+                }
+                break;
+            case TYPE_TAG:
+                skipValue();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private long readHeader(int expectedType) throws IOException {
+        int initial = readByte();
+        if (initial >>> 5 != expectedType) {
+            throw new ProtocolException("Expected major type " + expectedType
+                    + " but was " + (initial >>> 5) + " at " + (position - 1));
+        }
+        return readArgument(initial & 0x1f);
+    }
+
+    // 初始字节的低 5 位小于 24 时就是值本身，24~27 表示后面跟 1、2、4、8 字节的大端整数
+    private long readArgument(int info) throws IOException {
+        if (info < 24) return info;
+        switch (info) {
+            case 24:
+                return readByte();
+            case 25:
+                return (long) readByte() << 8 | readByte();
+            case 26:
+                return readBigEndian(4);
+            case 27:
+                return readBigEndian(8);
+            default:
+                throw new ProtocolException("Indefinite length is not supported at " + (position - 1));
+        }
+    }
+
+    private long readBigEndian(int bytes) throws IOException {
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+            value = value << 8 | readByte();
+        }
+        return value;
+    }
+
+    private int toLength(long length) throws IOException {
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new ProtocolException("Length out of range: " + length);
+        }
+        return (int) length;
+    }
+
+    // 数据不够时 okio 抛出 EOFException
+    private int peekByte() throws IOException {
+        source.require(1);
+        return source.getBuffer().getByte(0) & 0xff;
+    }
+
+    private int readByte() throws IOException {
+        int value = source.readByte() & 0xff;
+        position++;
+        return value;
+    }
+
+    private void skip(int bytes) throws IOException {
+        source.skip(bytes);
+        position += bytes;
+    }
+}
\ No newline at end of file
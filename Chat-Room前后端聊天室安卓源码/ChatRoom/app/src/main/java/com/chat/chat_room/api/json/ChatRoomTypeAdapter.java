@@ -0,0 +1,94 @@
+package com.chat.chat_room.api.json;
+
+import com.chat.chat_room.model.ChatRoom;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+public class ChatRoomTypeAdapter extends TypeAdapter<ChatRoom> {
+    @Override
+    public void write(JsonWriter out, ChatRoom chatRoom) throws IOException {
+        if (chatRoom == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("id").value(chatRoom.getId());
+        out.name("name").value(chatRoom.getName());
+        out.name("creator_id").value(chatRoom.getCreatorId());
+        out.name("created_at").value(chatRoom.getCreatedAt() == null
+                ? null : chatRoom.getCreatedAt().toString());
+        out.name("last_message_id").value(chatRoom.getLastMessageId());
+        out.name("last_message_user_id").value(chatRoom.getLastMessageUserId());
+        out.name("last_message_content").value(chatRoom.getLastMessageContent());
+        out.name("last_message_at").value(chatRoom.getLastMessageAt() == null
+                ? null : chatRoom.getLastMessageAt().toString());
+        out.name("unread_count").value(chatRoom.getUnreadCount());
+        out.endObject();
+    }
+
+    @Override
+    public ChatRoom read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        int id = 0;
+        String name = null;
+        int creatorId = 0;
+        LocalDateTime createdAt = null;
+        int lastMessageId = 0;
+        int lastMessageUserId = 0;
+        String lastMessageContent = null;
+        LocalDateTime lastMessageAt = null;
+        int unreadCount = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    id = in.nextInt();
+                    break;
+                case "name":
+                    name = JsonReaders.nextStringOrNull(in);
+                    break;
+                case "creator_id":
+                    creatorId = in.nextInt();
+                    break;
+                case "created_at":
+                    createdAt = JsonReaders.nextDateTimeOrNull(in);
+                    break;
+                case "last_message_id":
+                    lastMessageId = JsonReaders.nextIntOrZero(in);
+                    break;
+                case "last_message_user_id":
+                    lastMessageUserId = JsonReaders.nextIntOrZero(in);
+                    break;
+                case "last_message_content":
+                    lastMessageContent = JsonReaders.nextStringOrNull(in);
+                    break;
+                case "last_message_at":
+                    lastMessageAt = JsonReaders.nextDateTimeOrNull(in);
+                    break;
+                case "unread_count":
+                    unreadCount = in.nextInt();
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        ChatRoom chatRoom = new ChatRoom(id, name, creatorId);
+        chatRoom.setCreatedAt(createdAt);
+        chatRoom.setLastMessageId(lastMessageId);
+        chatRoom.setLastMessageUserId(lastMessageUserId);
+        chatRoom.setLastMessageContent(lastMessageContent);
+        chatRoom.setLastMessageAt(lastMessageAt);
+        chatRoom.setUnreadCount(unreadCount);
+        return chatRoom;
+    }
+}
\ No newline at end of file
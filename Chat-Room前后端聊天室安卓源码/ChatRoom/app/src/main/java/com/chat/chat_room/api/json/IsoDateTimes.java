@@ -0,0 +1,80 @@
+package com.chat.chat_room.api.json;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 服务端时间格式 yyyy-MM-ddTHH:mm[:ss[.SSSSSS]] 的快速解析，直接按字符取数字，
+ * 不经过 DateTimeFormatter。带时区偏移等其他格式退回标准解析。
+ */
+public final class IsoDateTimes {
+    private IsoDateTimes() {
+    }
+
+    public static LocalDateTime parse(String text) {
+        int length = text.length();
+        if (length < 16 || text.charAt(4) != '-' || text.charAt(7) != '-'
+                || (text.charAt(10) != 'T' && text.charAt(10) != ' ') || text.charAt(13) != ':') {
+            return parseSlow(text);
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        int second = 0;
+        int nano = 0;
+        int pos = 16;
+        if (pos < length && text.charAt(pos) == ':') {
+            second = digits(text, pos + 1, 2);
+            pos += 3;
+            if (pos < length && text.charAt(pos) == '.') {
+                pos++;
+                int scale = 100_000_000;
+                while (pos < length && isDigit(text.charAt(pos))) {
+                    nano += (text.charAt(pos) - '0') * scale;
+                    scale /= 10;
+                    pos++;
+                }
+            }
+        }
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0) {
+            return parseSlow(text);
+        }
+        if (pos < length) {
+            // 带时区信息，统一换算成 UTC
+            if (pos == length - 1 && text.charAt(pos) == 'Z') {
+                return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+            }
+            return parseSlow(text);
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+
+    private static LocalDateTime parseSlow(String text) {
+        try {
+            return LocalDateTime.parse(text);
+        } catch (RuntimeException e) {
+            return OffsetDateTime.parse(text)
+                    .withOffsetSameInstant(ZoneOffset.UTC)
+                    .toLocalDateTime();
+        }
+    }
+
+    // 解析固定位数的数字，遇到非数字返回 -1
+    private static int digits(String text, int start, int count) {
+        if (start + count > text.length()) return -1;
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
\ No newline at end of file
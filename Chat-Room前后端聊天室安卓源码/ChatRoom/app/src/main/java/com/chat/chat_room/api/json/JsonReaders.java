@@ -0,0 +1,37 @@
+package com.chat.chat_room.api.json;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+// 各类型适配器共用的读取方法
+final class JsonReaders {
+    private JsonReaders() {
+    }
+
+    static String nextStringOrNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    static int nextIntOrZero(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return in.nextInt();
+    }
+
+    static LocalDateTime nextDateTimeOrNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return IsoDateTimes.parse(in.nextString());
+    }
+}
\ No newline at end of file
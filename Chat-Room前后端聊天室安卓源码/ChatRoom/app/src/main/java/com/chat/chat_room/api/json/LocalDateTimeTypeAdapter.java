@@ -0,0 +1,24 @@
+package com.chat.chat_room.api.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+public class LocalDateTimeTypeAdapter extends TypeAdapter<LocalDateTime> {
+    @Override
+    public void write(JsonWriter out, LocalDateTime value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else {
+            out.value(value.toString());
+        }
+    }
+
+    @Override
+    public LocalDateTime read(JsonReader in) throws IOException {
+        return JsonReaders.nextDateTimeOrNull(in);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.chat.chat_room.api.json;
+
+import com.chat.chat_room.api.LoginResponse;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+public class LoginResponseTypeAdapter extends TypeAdapter<LoginResponse> {
+    @Override
+    public void write(JsonWriter out, LoginResponse response) throws IOException {
+        if (response == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("access_token").value(response.getAccessToken());
+        out.name("token_type").value(response.getTokenType());
+        out.name("refresh_token").value(response.getRefreshToken());
+        out.endObject();
+    }
+
+    @Override
+    public LoginResponse read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String accessToken = null;
+        String tokenType = null;
+        String refreshToken = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "access_token":
+                    accessToken = JsonReaders.nextStringOrNull(in);
+                    break;
+                case "token_type":
+                    tokenType = JsonReaders.nextStringOrNull(in);
+                    break;
+                case "refresh_token":
+                    refreshToken = JsonReaders.nextStringOrNull(in);
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return new LoginResponse(accessToken, tokenType, refreshToken);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.chat.chat_room.api.json;
+
+import com.chat.chat_room.model.Message;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+// 手写的流式解析，避免反射填充字段
+public class MessageTypeAdapter extends TypeAdapter<Message> {
+    @Override
+    public void write(JsonWriter out, Message message) throws IOException {
+        if (message == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("id").value(message.getId());
+        out.name("chatroom_id").value(message.getChatroomId());
+        out.name("user_id").value(message.getUserId());
+        out.name("content").value(message.getContent());
+        out.name("created_at").value(message.getCreatedAt() == null
+                ? null : message.getCreatedAt().toString());
+        out.name("client_id").value(message.getClientId());
+        out.name("image_url").value(message.getImageUrl());
+        out.name("image_width").value(message.getImageWidth());
+        out.name("image_height").value(message.getImageHeight());
+        out.endObject();
+    }
+
+    @Override
+    public Message read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Message message = new Message();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    message.setId(in.nextInt());
+                    break;
+                case "chatroom_id":
+                    message.setChatroomId(in.nextInt());
+                    break;
+                case "user_id":
+                    message.setUserId(in.nextInt());
+                    break;
+                case "content":
+                    message.setContent(JsonReaders.nextStringOrNull(in));
+                    break;
+                case "created_at":
+                    message.setCreatedAt(JsonReaders.nextDateTimeOrNull(in));
+                    break;
+                case "client_id":
+                    message.setClientId(JsonReaders.nextStringOrNull(in));
+                    break;
+                case "image_url":
+                    message.setImageUrl(JsonReaders.nextStringOrNull(in));
+                    break;
+                case "image_width":
+                    message.setImageWidth(JsonReaders.nextIntOrZero(in));
+                    break;
+                case "image_height":
+                    message.setImageHeight(JsonReaders.nextIntOrZero(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return message;
+    }
+}
\ No newline at end of file
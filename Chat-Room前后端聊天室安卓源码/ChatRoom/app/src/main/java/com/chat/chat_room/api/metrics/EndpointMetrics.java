@@ -0,0 +1,141 @@
+package com.chat.chat_room.api.metrics;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Locale;
+
+// 单个接口的统计：各阶段耗时直方图，以及收发字节数、失败和重试次数
+public class EndpointMetrics {
+    private final String endpoint;
+    // 从发起调用到结束（包括读完响应体）
+    final LatencyHistogram total = new LatencyHistogram();
+    final LatencyHistogram dns = new LatencyHistogram();
+    // 建立连接，包括 TLS 握手
+    final LatencyHistogram connect = new LatencyHistogram();
+    // 开始发送请求到收到响应头
+    final LatencyHistogram firstByte = new LatencyHistogram();
+    // 读取响应体；Gson 和 CBOR 边读边解析，这部分也包含了解析时间
+    final LatencyHistogram body = new LatencyHistogram();
+
+    private long calls;
+    private long failures;
+    private long httpErrors;
+    private long retries;
+    private long cacheHits;
+    private long bytesOut;
+    private long bytesIn;
+
+    EndpointMetrics(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    synchronized void recordCall(long micros, boolean failed) {
+        total.record(micros);
+        calls++;
+        if (failed) failures++;
+    }
+
+    synchronized void recordHttpError() {
+        httpErrors++;
+    }
+
+    synchronized void recordRetry() {
+        retries++;
+    }
+
+    synchronized void recordCacheHit() {
+        cacheHits++;
+    }
+
+    synchronized void addBytesOut(long bytes) {
+        bytesOut += bytes;
+    }
+
+    synchronized void addBytesIn(long bytes) {
+        bytesIn += bytes;
+    }
+
+    synchronized void reset() {
+        total.reset();
+        dns.reset();
+        connect.reset();
+        firstByte.reset();
+        body.reset();
+        calls = 0;
+        failures = 0;
+        httpErrors = 0;
+        retries = 0;
+        cacheHits = 0;
+        bytesOut = 0;
+        bytesIn = 0;
+    }
+
+    synchronized void appendReport(StringBuilder out) {
+        out.append(endpoint).append('\n');
+        out.append(String.format(Locale.US,
+                "  请求 %d  失败 %d  HTTP错误 %d  重试 %d  缓存命中 %d%n",
+                calls, failures, httpErrors, retries, cacheHits));
+        out.append("  发送 ").append(formatBytes(bytesOut))
+                .append("  接收 ").append(formatBytes(bytesIn)).append('\n');
+        appendHistogram(out, "总耗时", total);
+        appendHistogram(out, "DNS", dns);
+        appendHistogram(out, "连接", connect);
+        appendHistogram(out, "首字节", firstByte);
+        appendHistogram(out, "响应体", body);
+    }
+
+    synchronized JSONObject toJson() throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("endpoint", endpoint);
+        json.put("calls", calls);
+        json.put("failures", failures);
+        json.put("http_errors", httpErrors);
+        json.put("retries", retries);
+        json.put("cache_hits", cacheHits);
+        json.put("bytes_out", bytesOut);
+        json.put("bytes_in", bytesIn);
+        json.put("total", histogramJson(total));
+        json.put("dns", histogramJson(dns));
+        json.put("connect", histogramJson(connect));
+        json.put("first_byte", histogramJson(firstByte));
+        json.put("body", histogramJson(body));
+        return json;
+    }
+
+    private static void appendHistogram(StringBuilder out, String label, LatencyHistogram histogram) {
+        if (histogram.getCount() == 0) return;
+        out.append(String.format(Locale.US, "  %s  p50 %s  p95 %s  p99 %s  max %s  (%d)%n",
+                label,
+                formatMicros(histogram.percentile(0.50)),
+                formatMicros(histogram.percentile(0.95)),
+                formatMicros(histogram.percentile(0.99)),
+                formatMicros(histogram.getMaxMicros()),
+                histogram.getCount()));
+    }
+
+    private static JSONObject histogramJson(LatencyHistogram histogram) throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("count", histogram.getCount());
+        json.put("mean_us", histogram.getMeanMicros());
+        json.put("p50_us", histogram.percentile(0.50));
+        json.put("p95_us", histogram.percentile(0.95));
+        json.put("p99_us", histogram.percentile(0.99));
+        json.put("max_us", histogram.getMaxMicros());
+        return json;
+    }
+
+    private static String formatMicros(long micros) {
+        return String.format(Locale.US, "%.1fms", micros / 1000.0);
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) return bytes + "B";
+        if (bytes < 1024 * 1024) return String.format(Locale.US, "%.1fKB", bytes / 1024.0);
+        return String.format(Locale.US, "%.1fMB", bytes / (1024.0 * 1024));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.chat.chat_room.api.metrics;
+
+import java.util.Arrays;
+
+/**
+ * 对数分桶的耗时直方图，单位微秒。每个桶比上一个宽 10%，分位数的相对误差不超过 10%，
+ * 内存占用固定，与记录次数无关。
+ */
+public class LatencyHistogram {
+    private static final double GROWTH = 1.1;
+    private static final double LOG_GROWTH = Math.log(GROWTH);
+    // 1.1^200 微秒约 190 秒，更长的都计入最后一个桶
+    private static final int BUCKETS = 200;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sumMicros;
+    private long maxMicros;
+
+    public synchronized void record(long micros) {
+        micros = Math.max(0, micros);
+        counts[bucketOf(micros)]++;
+        count++;
+        sumMicros += micros;
+        maxMicros = Math.max(maxMicros, micros);
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getMeanMicros() {
+        return count == 0 ? 0 : sumMicros / count;
+    }
+
+    public synchronized long getMaxMicros() {
+        return maxMicros;
+    }
+
+    // 返回分位数所在桶的上界，例如 percentile(0.95)
+    public synchronized long percentile(double quantile) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                // 最后一个桶没有上界，只能用最大值
+                return i == BUCKETS - 1 ? maxMicros : Math.min(upperBound(i), maxMicros);
+            }
+        }
+        return maxMicros;
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sumMicros = 0;
+        maxMicros = 0;
+    }
+
+    private static int bucketOf(long micros) {
+        if (micros <= 1) return 0;
+        return (int) Math.min(BUCKETS - 1, Math.ceil(Math.log(micros) / LOG_GROWTH));
+    }
+
+    private static long upperBound(int bucket) {
+        return (long) Math.ceil(Math.pow(GROWTH, bucket));
+    }
+}
\ No newline at end of file
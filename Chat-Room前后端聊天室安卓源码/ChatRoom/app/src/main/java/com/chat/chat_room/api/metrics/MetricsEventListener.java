@@ -0,0 +1,133 @@
+package com.chat.chat_room.api.metrics;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 记录每次调用各阶段的耗时和收发字节数。每个 Call 创建一个实例，
+ * 同一个 Call 的事件按顺序到达，所以字段不需要同步。
+ */
+public class MetricsEventListener extends EventListener {
+    public static final EventListener.Factory FACTORY =
+            call -> new MetricsEventListener(NetworkMetrics.getInstance());
+
+    private final NetworkMetrics metrics;
+    private EndpointMetrics endpoint;
+    private long callStartNanos;
+    private long dnsStartNanos;
+    private long connectStartNanos;
+    private long requestStartNanos;
+    private long bodyStartNanos;
+    private int connectAttempts;
+
+    MetricsEventListener(NetworkMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void callStart(Call call) {
+        callStartNanos = System.nanoTime();
+        endpoint = metrics.endpoint(call.request());
+        // 发件箱重发同一条消息时幂等键不变
+        if (metrics.isRetry(call.request().header("Idempotency-Key"))) {
+            endpoint.recordRetry();
+        }
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        endpoint.dns.record(micros(dnsStartNanos));
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectStartNanos = System.nanoTime();
+        // OkHttp 在连接失败后会自动换路由重试
+        if (++connectAttempts > 1) {
+            endpoint.recordRetry();
+        }
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy,
+                           Protocol protocol) {
+        endpoint.connect.record(micros(connectStartNanos));
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+        requestStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+        endpoint.addBytesOut(request.headers().byteCount());
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        endpoint.addBytesOut(byteCount);
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        endpoint.firstByte.record(micros(requestStartNanos));
+    }
+
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+        endpoint.addBytesIn(response.headers().byteCount());
+        if (response.code() >= 400) {
+            endpoint.recordHttpError();
+        }
+    }
+
+    @Override
+    public void responseBodyStart(Call call) {
+        bodyStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        endpoint.body.record(micros(bodyStartNanos));
+        endpoint.addBytesIn(byteCount);
+    }
+
+    @Override
+    public void cacheHit(Call call, Response response) {
+        endpoint.recordCacheHit();
+    }
+
+    @Override
+    public void cacheConditionalHit(Call call, Response cachedResponse) {
+        endpoint.recordCacheHit();
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        endpoint.recordCall(micros(callStartNanos), false);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        endpoint.recordCall(micros(callStartNanos), true);
+    }
+
+    private static long micros(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1000;
+    }
+}
\ No newline at end of file
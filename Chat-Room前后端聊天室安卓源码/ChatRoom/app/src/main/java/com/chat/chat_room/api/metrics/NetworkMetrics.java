@@ -0,0 +1,153 @@
+package com.chat.chat_room.api.metrics;
+
+import android.content.Context;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.Request;
+import retrofit2.Invocation;
+import retrofit2.http.DELETE;
+import retrofit2.http.GET;
+import retrofit2.http.HEAD;
+import retrofit2.http.HTTP;
+import retrofit2.http.OPTIONS;
+import retrofit2.http.PATCH;
+import retrofit2.http.POST;
+import retrofit2.http.PUT;
+
+/**
+ * 进程内的网络统计，按接口汇总。数据由 MetricsEventListener 写入，
+ * 可以在调试页面查看，或导出成 JSON 文件。
+ */
+public class NetworkMetrics {
+    private static final String DUMP_FILE_NAME = "network_metrics.json";
+    // 记住最近用过的幂等键，同一个键再次出现说明是重试
+    private static final int MAX_IDEMPOTENCY_KEYS = 256;
+
+    private static final NetworkMetrics INSTANCE = new NetworkMetrics();
+
+    private final Map<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private final Map<Method, String> endpointNames = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> idempotencyKeys =
+            new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > MAX_IDEMPOTENCY_KEYS;
+                }
+            };
+    private final long startedAt = System.currentTimeMillis();
+
+    public static NetworkMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    EndpointMetrics endpoint(Request request) {
+        String name = endpointName(request);
+        return endpoints.computeIfAbsent(name, EndpointMetrics::new);
+    }
+
+    boolean isRetry(String idempotencyKey) {
+        if (idempotencyKey == null) return false;
+        synchronized (idempotencyKeys) {
+            return idempotencyKeys.put(idempotencyKey, Boolean.TRUE) != null;
+        }
+    }
+
+    public void reset() {
+        for (EndpointMetrics metrics : endpoints.values()) {
+            metrics.reset();
+        }
+    }
+
+    // 调试页面显示的文本报告，按接口名排序
+    public String report() {
+        StringBuilder out = new StringBuilder();
+        for (EndpointMetrics metrics : sortedEndpoints()) {
+            metrics.appendReport(out);
+            out.append('\n');
+        }
+        return out.length() == 0 ? "暂无网络请求" : out.toString();
+    }
+
+    public File dumpFile(Context context) {
+        File dir = context.getExternalFilesDir(null);
+        return new File(dir != null ? dir : context.getFilesDir(), DUMP_FILE_NAME);
+    }
+
+    // 写入 JSON 文件，可以用 adb pull 取出。需要在后台线程调用
+    public File dump(Context context) throws IOException {
+        File file = dumpFile(context);
+        JSONObject json = new JSONObject();
+        try {
+            json.put("started_at", startedAt);
+            json.put("dumped_at", System.currentTimeMillis());
+            JSONArray array = new JSONArray();
+            for (EndpointMetrics metrics : sortedEndpoints()) {
+                array.put(metrics.toJson());
+            }
+            json.put("endpoints", array);
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(json.toString());
+        }
+        return file;
+    }
+
+    private List<EndpointMetrics> sortedEndpoints() {
+        List<EndpointMetrics> list = new ArrayList<>(endpoints.values());
+        Collections.sort(list, (a, b) -> a.getEndpoint().compareTo(b.getEndpoint()));
+        return list;
+    }
+
+    // Retrofit 请求按 ApiService 上声明的路径归类，例如 "GET chatrooms/{roomId}/messages"；
+    // 不经过 Retrofit 的请求用实际路径，数字段替换成 {id}，避免每个聊天室单独成为一项。
+    // WebSocket 握手不会出现在这里：OkHttp 建立 WebSocket 时不使用客户端的 EventListener
+    private String endpointName(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        if (invocation != null) {
+            return endpointNames.computeIfAbsent(invocation.method(), method -> {
+                for (Annotation annotation : method.getAnnotations()) {
+                    String name = httpMethodName(annotation);
+                    if (name != null) return name;
+                }
+                return request.method() + " " + method.getName();
+            });
+        }
+        return request.method() + " " + request.url().encodedPath().replaceAll("/\\d+", "/{id}");
+    }
+
+    // ApiService 方法上的 HTTP 方法注解对应的名称，不是 HTTP 方法注解时返回 null
+    private static String httpMethodName(Annotation annotation) {
+        if (annotation instanceof GET) return "GET " + ((GET) annotation).value();
+        if (annotation instanceof POST) return "POST " + ((POST) annotation).value();
+        if (annotation instanceof PUT) return "PUT " + ((PUT) annotation).value();
+        if (annotation instanceof DELETE) return "DELETE " + ((DELETE) annotation).value();
+        if (annotation instanceof PATCH) return "PATCH " + ((PATCH) annotation).value();
+        if (annotation instanceof HEAD) return "HEAD " + ((HEAD) annotation).value();
+        if (annotation instanceof OPTIONS) return "OPTIONS " + ((OPTIONS) annotation).value();
+        if (annotation instanceof HTTP) {
+            HTTP http = (HTTP) annotation;
+            return http.method() + " " + http.path();
+        }
+        return null;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,141 @@
+package com.chat.chat_room.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.room.Database;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.room.TypeConverters;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.chat.chat_room.model.ChatRoom;
+import com.chat.chat_room.model.Message;
+import com.chat.chat_room.model.User;
+import com.chat.chat_room.search.SearchTokenizer;
+
+@Database(
+        entities = {ChatRoom.class, Message.class, User.class, RoomAccess.class,
+                OutgoingMessage.class, MessageSearchEntry.class, UploadState.class},
+        version = 7,
+        exportSchema = false
+)
+@TypeConverters(Converters.class)
+public abstract class AppDatabase extends RoomDatabase {
+    private static final String DATABASE_NAME = "chat_cache.db";
+    private static volatile AppDatabase instance;
+
+    public abstract ChatRoomDao chatRoomDao();
+
+    public abstract MessageDao messageDao();
+
+    public abstract UserDao userDao();
+
+    public abstract RoomAccessDao roomAccessDao();
+
+    public abstract OutboxDao outboxDao();
+
+    public abstract MessageSearchDao messageSearchDao();
+
+    public abstract UploadStateDao uploadStateDao();
+
+    // 发件箱保存的是尚未发出的用户输入，不能随缓存一起重建，升级时需要显式迁移
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `outbox` ("
+                    + "`localId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`clientId` TEXT, `roomId` INTEGER NOT NULL, `userId` INTEGER NOT NULL, "
+                    + "`content` TEXT, `createdAt` TEXT)");
+            db.execSQL("ALTER TABLE `messages` ADD COLUMN `clientId` TEXT");
+        }
+    };
+
+    // 新增消息全文索引，并为已缓存的消息补建索引
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `message_search` USING FTS4("
+                    + "`tokens` TEXT, `roomId` INTEGER NOT NULL, `content` TEXT, `createdAt` TEXT, "
+                    + "notindexed=`roomId`, notindexed=`content`, notindexed=`createdAt`, "
+                    + "prefix=`3`)");
+            try (Cursor cursor = db.query(
+                    "SELECT id, chatroomId, content, createdAt FROM messages")) {
+                while (cursor.moveToNext()) {
+                    ContentValues values = new ContentValues();
+                    values.put("rowid", cursor.getInt(0));
+                    values.put("tokens", SearchTokenizer.tokenize(cursor.getString(2)));
+                    values.put("roomId", cursor.getInt(1));
+                    values.put("content", cursor.getString(2));
+                    values.put("createdAt", cursor.getString(3));
+                    db.insert("message_search", SQLiteDatabase.CONFLICT_REPLACE, values);
+                }
+            }
+        }
+    };
+
+    // 聊天室缓存加入列表摘要字段，旧数据在下次刷新列表时补全
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `chat_rooms` ADD COLUMN `lastMessageId` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `chat_rooms` ADD COLUMN `lastMessageUserId` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `chat_rooms` ADD COLUMN `lastMessageContent` TEXT");
+            db.execSQL("ALTER TABLE `chat_rooms` ADD COLUMN `lastMessageAt` TEXT");
+            db.execSQL("ALTER TABLE `chat_rooms` ADD COLUMN `unreadCount` INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    // 访问记录加入打开分数，后台预取据此挑选聊天室
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `room_access` ADD COLUMN `openScore` REAL NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `room_access` ADD COLUMN `lastOpenedAt` INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    // 图片消息：消息缓存和发件箱都加入图片字段
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `messages` ADD COLUMN `imageUrl` TEXT");
+            db.execSQL("ALTER TABLE `messages` ADD COLUMN `imageWidth` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `messages` ADD COLUMN `imageHeight` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `outbox` ADD COLUMN `imagePath` TEXT");
+            db.execSQL("ALTER TABLE `outbox` ADD COLUMN `imageUrl` TEXT");
+            db.execSQL("ALTER TABLE `outbox` ADD COLUMN `imageWidth` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `outbox` ADD COLUMN `imageHeight` INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    // 分片上传的续传记录
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `uploads` ("
+                    + "`path` TEXT NOT NULL, `uploadId` TEXT, `size` INTEGER NOT NULL, "
+                    + "`lastModified` INTEGER NOT NULL, PRIMARY KEY(`path`))");
+        }
+    };
+
+    public static AppDatabase getInstance(Context context) {
+        if (instance == null) {
+            synchronized (AppDatabase.class) {
+                if (instance == null) {
+                    // 缺少迁移时才退回到重建，缓存的数据可以从服务端重新拉取
+                    instance = Room.databaseBuilder(context.getApplicationContext(),
+                                    AppDatabase.class, DATABASE_NAME)
+                            .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4,
+                                    MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7)
+                            .fallbackToDestructiveMigration()
+                            .build();
+                }
+            }
+        }
+        return instance;
+    }
+}
\ No newline at end of file
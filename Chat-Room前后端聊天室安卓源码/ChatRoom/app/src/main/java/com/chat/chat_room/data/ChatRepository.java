@@ -0,0 +1,119 @@
+package com.chat.chat_room.data;
+
+import android.content.Context;
+
+import androidx.lifecycle.Observer;
+
+import com.chat.chat_room.api.ApiResult;
+import com.chat.chat_room.api.ApiService;
+import com.chat.chat_room.api.CallLiveData;
+import com.chat.chat_room.api.RetrofitClient;
+import com.chat.chat_room.model.ChatRoom;
+import com.chat.chat_room.model.ChatRoomCreate;
+import com.chat.chat_room.model.Message;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import retrofit2.Call;
+
+/**
+ * 页面通过仓库发起请求，不直接调用 Retrofit。
+ * 读取类的请求按内容去重：同一份数据（聊天室列表、某个聊天室的同一段消息）已有请求在进行时
+ * 返回同一个 CallLiveData，重复的刷新和旋转后重建的页面都只产生一次网络请求；
+ * 没有页面再观察时请求被取消。
+ * 修改类的请求由仓库自己观察到结束，页面关闭也不会中途取消，本地缓存照常更新。
+ * 只在主线程调用。
+ */
+public class ChatRepository {
+    private static volatile ChatRepository instance;
+
+    private final ChatStore chatStore;
+    private final MessageOutbox outbox;
+    // 进行中的读取请求，完成或取消后移除
+    private final Map<String, CallLiveData<?>> inFlight = new HashMap<>();
+
+    private ChatRepository(Context context) {
+        chatStore = ChatStore.getInstance(context);
+        outbox = MessageOutbox.getInstance(context);
+    }
+
+    public static ChatRepository getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ChatRepository.class) {
+                if (instance == null) {
+                    instance = new ChatRepository(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    public CallLiveData<List<ChatRoom>> loadChatRoomSummaries() {
+        return shared("chatrooms/summaries", () -> api().getChatRoomSummaries());
+    }
+
+    public CallLiveData<List<Message>> loadMessagePage(int roomId, Integer beforeId, Integer afterId,
+                                                       int limit) {
+        return shared("chatrooms/" + roomId + "/messages?before_id=" + beforeId
+                        + "&after_id=" + afterId + "&limit=" + limit,
+                () -> api().getMessagePage(roomId, beforeId, afterId, limit));
+    }
+
+    public CallLiveData<ChatRoom> createChatRoom(String name) {
+        return keepAlive(new CallLiveData<>(api().createChatRoom(new ChatRoomCreate(name))), null);
+    }
+
+    // 删除成功后清掉本地缓存和发件箱中该聊天室的消息
+    public CallLiveData<Void> deleteChatRoom(int roomId) {
+        return keepAlive(new CallLiveData<>(api().deleteChatRoom(roomId)), result -> {
+            if (result.isSuccessful()) {
+                chatStore.deleteChatRoom(roomId);
+                outbox.deleteRoom(roomId);
+            }
+        });
+    }
+
+    // 吊销刷新令牌，结果不影响本地退出
+    public void revokeToken(String refreshToken) {
+        keepAlive(new CallLiveData<>(api().revokeToken(refreshToken)), null);
+    }
+
+    // 退出登录时取消进行中的读取，上一个用户的结果不会再送到页面
+    public void cancelAll() {
+        for (CallLiveData<?> live : new ArrayList<>(inFlight.values())) {
+            live.cancel();
+        }
+    }
+
+    private static ApiService api() {
+        return RetrofitClient.getInstance().getApi();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CallLiveData<T> shared(String key, Supplier<Call<T>> request) {
+        CallLiveData<T> existing = (CallLiveData<T>) inFlight.get(key);
+        if (existing != null) return existing;
+        CallLiveData<T> live = new CallLiveData<>(request.get());
+        live.setOnDone(() -> inFlight.remove(key, live));
+        inFlight.put(key, live);
+        return live;
+    }
+
+    // 仓库一直观察到请求结束，请求立即发出且不会因为页面销毁而取消
+    private static <T> CallLiveData<T> keepAlive(CallLiveData<T> live, Observer<ApiResult<T>> onResult) {
+        live.observeForever(new Observer<ApiResult<T>>() {
+            @Override
+            public void onChanged(ApiResult<T> result) {
+                live.removeObserver(this);
+                if (onResult != null) {
+                    onResult.onChanged(result);
+                }
+            }
+        });
+        return live;
+    }
+}
\ No newline at end of file
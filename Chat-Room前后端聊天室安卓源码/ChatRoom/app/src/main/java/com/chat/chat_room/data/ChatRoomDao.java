@@ -0,0 +1,26 @@
+package com.chat.chat_room.data;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.chat.chat_room.model.ChatRoom;
+
+import java.util.List;
+
+@Dao
+public interface ChatRoomDao {
+    // 与摘要接口的顺序一致：按最后一条消息从新到旧，没有消息的排在最后
+    @Query("SELECT * FROM chat_rooms ORDER BY lastMessageId DESC, id DESC")
+    List<ChatRoom> getAll();
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAll(List<ChatRoom> chatRooms);
+
+    @Query("DELETE FROM chat_rooms")
+    void deleteAll();
+
+    @Query("DELETE FROM chat_rooms WHERE id = :roomId")
+    void delete(int roomId);
+}
\ No newline at end of file
@@ -0,0 +1,241 @@
+package com.chat.chat_room.data;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.chat.chat_room.model.ChatRoom;
+import com.chat.chat_room.model.Message;
+import com.chat.chat_room.model.User;
+import com.chat.chat_room.search.SearchTokenizer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 本地写穿缓存：页面先从磁盘渲染，网络结果回来后再写回。
+ * 所有数据库写操作都在单线程中按顺序执行，结果回调到主线程。
+ * 收到的消息同时写入全文索引；索引不随消息缓存淘汰，搜索可以覆盖更早的历史。
+ */
+public class ChatStore {
+    // 每个聊天室最多缓存的消息条数
+    private static final int MAX_MESSAGES_PER_ROOM = 500;
+    // 最多缓存消息的聊天室个数，超出后淘汰最久未打开的
+    private static final int MAX_CACHED_ROOMS = 30;
+
+    private static volatile ChatStore instance;
+
+    private final AppDatabase database;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    // 搜索只读数据库，单独排队，不必等待前面的写入
+    private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public interface Callback<T> {
+        void onLoaded(T data);
+    }
+
+    private ChatStore(Context context) {
+        database = AppDatabase.getInstance(context);
+    }
+
+    public static ChatStore getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ChatStore.class) {
+                if (instance == null) {
+                    instance = new ChatStore(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    public void loadChatRooms(Callback<List<ChatRoom>> callback) {
+        executor.execute(() -> {
+            List<ChatRoom> chatRooms = database.chatRoomDao().getAll();
+            mainHandler.post(() -> callback.onLoaded(chatRooms));
+        });
+    }
+
+    // 用服务端返回的完整列表替换本地列表，并清掉已删除聊天室的消息
+    public void saveChatRooms(List<ChatRoom> chatRooms) {
+        executor.execute(() -> database.runInTransaction(() -> {
+            database.chatRoomDao().deleteAll();
+            database.chatRoomDao().insertAll(chatRooms);
+            database.messageDao().deleteOrphans();
+            database.messageSearchDao().deleteOrphans();
+        }));
+    }
+
+    public void deleteChatRoom(int roomId) {
+        executor.execute(() -> database.runInTransaction(() -> {
+            database.chatRoomDao().delete(roomId);
+            database.messageDao().deleteRoom(roomId);
+            database.roomAccessDao().delete(roomId);
+            database.messageSearchDao().deleteRoom(roomId);
+        }));
+    }
+
+    // 读取聊天室缓存的消息，同时记录一次打开
+    public void loadMessages(int roomId, Callback<List<Message>> callback) {
+        executor.execute(() -> {
+            recordOpen(roomId, System.currentTimeMillis());
+            List<Message> messages = database.messageDao().getMessages(roomId);
+            mainHandler.post(() -> callback.onLoaded(messages));
+        });
+    }
+
+    public void saveMessages(int roomId, List<Message> messages) {
+        if (messages.isEmpty()) return;
+        executor.execute(() -> database.runInTransaction(() -> {
+            database.messageDao().insertAll(messages);
+            database.messageSearchDao().insertAll(toSearchEntries(messages));
+            database.messageDao().trimRoom(roomId, MAX_MESSAGES_PER_ROOM);
+            touch(roomId, System.currentTimeMillis());
+            evictStaleRooms();
+        }));
+    }
+
+    // 用最新一页替换聊天室的缓存，缓存与服务端最新消息之间缺口太大时使用
+    public void replaceMessages(int roomId, List<Message> messages) {
+        if (messages.isEmpty()) return;
+        executor.execute(() -> database.runInTransaction(() -> {
+            database.messageDao().deleteRoom(roomId);
+            database.messageDao().insertAll(messages);
+            database.messageSearchDao().insertAll(toSearchEntries(messages));
+            touch(roomId, System.currentTimeMillis());
+            evictStaleRooms();
+        }));
+    }
+
+    // 以下三个方法供后台预取使用，同步等待结果，只能在工作线程中调用
+
+    // 按打开分数从高到低取最多 limit 个聊天室
+    public List<Integer> getPrefetchRoomIds(int limit) {
+        return await(() -> {
+            long now = System.currentTimeMillis();
+            List<RoomAccess> accesses = database.roomAccessDao().getAll();
+            Collections.sort(accesses, (a, b) -> Double.compare(b.scoreAt(now), a.scoreAt(now)));
+            List<Integer> roomIds = new ArrayList<>();
+            for (RoomAccess access : accesses) {
+                if (roomIds.size() >= limit || access.scoreAt(now) <= 0) break;
+                roomIds.add(access.getRoomId());
+            }
+            return roomIds;
+        });
+    }
+
+    // 聊天室的同步游标：缓存中最新一条消息的 id，没有缓存时为 0。
+    // 直接从缓存计算，淘汰或清空缓存后游标自然回到 0，不会与缓存内容不一致
+    public int getSyncCursor(int roomId) {
+        Integer newestId = await(() -> database.messageDao().getNewestId(roomId));
+        return newestId == null ? 0 : newestId;
+    }
+
+    // 写入预取到的消息。replace 为 true 时先丢弃旧缓存（与新消息之间有缺口）。
+    // 不更新访问时间，预取不能让聊天室在 LRU 中显得刚被打开过
+    public void savePrefetchedMessages(int roomId, List<Message> messages, boolean replace) {
+        if (messages.isEmpty()) return;
+        await(() -> {
+            database.runInTransaction(() -> {
+                if (replace) {
+                    database.messageDao().deleteRoom(roomId);
+                }
+                database.messageDao().insertAll(messages);
+                database.messageSearchDao().insertAll(toSearchEntries(messages));
+                database.messageDao().trimRoom(roomId, MAX_MESSAGES_PER_ROOM);
+            });
+            return null;
+        });
+    }
+
+    // 翻页或跳转时加载的历史消息不进入缓存（缓存要求与最新消息连续），只写入全文索引
+    public void indexMessages(List<Message> messages) {
+        if (messages.isEmpty()) return;
+        executor.execute(() -> database.messageSearchDao().insertAll(toSearchEntries(messages)));
+    }
+
+    // 在本地全文索引中搜索某个聊天室的消息，最新的在前，不访问网络
+    public void searchMessages(int roomId, String query, int limit,
+                               Callback<List<Message>> callback) {
+        searchExecutor.execute(() -> {
+            String match = SearchTokenizer.toMatchQuery(query);
+            List<Message> results = new ArrayList<>();
+            if (match != null) {
+                for (MessageSearchEntry entry
+                        : database.messageSearchDao().search(roomId, match, limit)) {
+                    results.add(entry.toMessage());
+                }
+            }
+            mainHandler.post(() -> callback.onLoaded(results));
+        });
+    }
+
+    public void loadCurrentUser(Callback<User> callback) {
+        executor.execute(() -> {
+            User user = database.userDao().getCurrentUser();
+            mainHandler.post(() -> callback.onLoaded(user));
+        });
+    }
+
+    public void saveCurrentUser(User user) {
+        executor.execute(() -> database.runInTransaction(() -> {
+            database.userDao().deleteAll();
+            database.userDao().insert(user);
+        }));
+    }
+
+    // 退出登录时清空所有缓存
+    public void clear() {
+        executor.execute(database::clearAllTables);
+    }
+
+    private static List<MessageSearchEntry> toSearchEntries(List<Message> messages) {
+        List<MessageSearchEntry> entries = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            entries.add(MessageSearchEntry.from(message));
+        }
+        return entries;
+    }
+
+    // 在写线程中执行并等待结果，与页面发起的读写保持先后顺序
+    private <T> T await(Callable<T> task) {
+        try {
+            return executor.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // 打开分数先衰减到当前时刻再加一
+    private void recordOpen(int roomId, long now) {
+        RoomAccess previous = database.roomAccessDao().get(roomId);
+        RoomAccess access = new RoomAccess(roomId, now);
+        access.setOpenScore((previous == null ? 0 : previous.scoreAt(now)) + 1);
+        access.setLastOpenedAt(now);
+        database.roomAccessDao().upsert(access);
+    }
+
+    // 收到新消息只更新访问时间，不影响打开分数
+    private void touch(int roomId, long now) {
+        if (database.roomAccessDao().updateLastAccess(roomId, now) == 0) {
+            database.roomAccessDao().upsert(new RoomAccess(roomId, now));
+        }
+    }
+
+    // 只淘汰消息缓存，全文索引保留
+    private void evictStaleRooms() {
+        for (int roomId : database.roomAccessDao().getEvictableRoomIds(MAX_CACHED_ROOMS)) {
+            database.messageDao().deleteRoom(roomId);
+            database.roomAccessDao().delete(roomId);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,180 @@
+package com.chat.chat_room.data;
+
+import android.content.Context;
+
+import com.chat.chat_room.api.ApiService;
+import com.chat.chat_room.api.FileChunkRequestBody;
+import com.chat.chat_room.api.RetrofitClient;
+import com.chat.chat_room.api.UploadResponse;
+import com.chat.chat_room.api.UploadSession;
+import com.chat.chat_room.api.UploadSessionCreate;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import okhttp3.MediaType;
+import retrofit2.Response;
+
+/**
+ * 可续传的分片上传：先创建上传会话，文件按服务端给定的分片大小切开，
+ * 每个分片直接从磁盘流式发送，几个分片并行上传，全部完成后提交得到文件地址。
+ * 会话 id 保存在本地数据库，网络中断或进程被杀后再上传同一个文件时，
+ * 先向服务端查询已收到的分片，只补传缺少的部分。
+ * upload 会阻塞，在后台线程调用。
+ */
+public class ChunkedUploader {
+    // 超过这个大小才走分片上传，小文件一次请求比三次往返更快
+    public static final long RESUMABLE_THRESHOLD = 1024 * 1024;
+    // 同时上传的分片数，移动网络下再多也不会更快
+    private static final int PARALLEL_CHUNKS = 3;
+    private static final MediaType OCTET_STREAM = MediaType.get("application/octet-stream");
+
+    // 服务端拒绝了这次上传（如文件过大），重试也不会成功
+    public static class RejectedException extends IOException {
+        RejectedException(String message) {
+            super(message);
+        }
+    }
+
+    private static volatile ChunkedUploader instance;
+
+    private final UploadStateDao stateDao;
+    private final ExecutorService chunkExecutor = Executors.newFixedThreadPool(PARALLEL_CHUNKS);
+
+    private ChunkedUploader(Context context) {
+        stateDao = AppDatabase.getInstance(context).uploadStateDao();
+    }
+
+    public static ChunkedUploader getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ChunkedUploader.class) {
+                if (instance == null) {
+                    instance = new ChunkedUploader(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    // 上传文件并返回服务端地址。失败时已传完的分片保留在服务端，下次调用接着传
+    public String upload(File file, String contentType) throws IOException {
+        ApiService api = RetrofitClient.getInstance().getApi();
+        UploadSession session = resume(api, file);
+        if (session != null && session.getUrl() != null) {
+            // 上次已经提交成功，只是没收到响应
+            stateDao.delete(file.getPath());
+            return session.getUrl();
+        }
+        if (session == null) {
+            session = body(api.createUpload(
+                    new UploadSessionCreate(file.length(), contentType, file.getName())).execute(), file);
+            stateDao.upsert(new UploadState(file.getPath(), session.getUploadId(),
+                    file.length(), file.lastModified()));
+        }
+        uploadMissingChunks(api, file, session);
+        UploadResponse committed = body(api.commitUpload(session.getUploadId()).execute(), file);
+        stateDao.delete(file.getPath());
+        return committed.getUrl();
+    }
+
+    // 放弃文件的续传记录，例如消息被删除时；服务端的会话过期后自行清理
+    public void forget(File file) {
+        stateDao.delete(file.getPath());
+    }
+
+    public void forgetAll() {
+        stateDao.deleteAll();
+    }
+
+    // 查询上次未完成的会话，文件已经改变或会话已过期时返回 null
+    private UploadSession resume(ApiService api, File file) throws IOException {
+        UploadState state = stateDao.get(file.getPath());
+        if (state == null) return null;
+        if (state.getSize() != file.length() || state.getLastModified() != file.lastModified()) {
+            stateDao.delete(file.getPath());
+            return null;
+        }
+        Response<UploadSession> response = api.getUpload(state.getUploadId()).execute();
+        if (response.code() == 404) {
+            stateDao.delete(file.getPath());
+            return null;
+        }
+        return body(response, file);
+    }
+
+    private void uploadMissingChunks(ApiService api, File file, UploadSession session)
+            throws IOException {
+        long size = session.getSize();
+        int chunkSize = session.getChunkSize();
+        int chunkCount = UploadChunks.count(size, chunkSize);
+        Set<Integer> received = new HashSet<>(session.getReceived());
+
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < chunkCount; i++) {
+            if (received.contains(i)) continue;
+            long offset = UploadChunks.offset(i, chunkSize);
+            long length = UploadChunks.length(i, size, chunkSize);
+            String range = UploadChunks.contentRange(offset, length, size);
+            futures.add(chunkExecutor.submit(() -> {
+                check(api.uploadChunk(session.getUploadId(), range,
+                        new FileChunkRequestBody(file, offset, length, OCTET_STREAM)).execute(), file);
+                return null;
+            }));
+        }
+        try {
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            // 一个分片失败时其余的也停下，等下次续传
+            cancelAll(futures);
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            cancelAll(futures);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    private static void cancelAll(List<Future<Void>> futures) {
+        for (Future<Void> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    private <T> T body(Response<T> response, File file) throws IOException {
+        check(response, file);
+        if (response.body() == null) {
+            throw new IOException("Empty response");
+        }
+        return response.body();
+    }
+
+    // 404 说明会话已过期，丢掉续传记录，下次重新开始；
+    // 其余 4xx 是请求本身的问题，除了 401、408、409、429 都不再重试
+    private void check(Response<?> response, File file) throws IOException {
+        if (response.isSuccessful()) return;
+        int code = response.code();
+        if (code == 404) {
+            stateDao.delete(file.getPath());
+            throw new IOException("Upload session expired");
+        }
+        if (code >= 400 && code < 500 && code != 401 && code != 408 && code != 409 && code != 429) {
+            stateDao.delete(file.getPath());
+            throw new RejectedException("Upload rejected: " + code);
+        }
+        throw new IOException("Upload failed: " + code);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.chat.chat_room.data;
+
+import androidx.room.TypeConverter;
+
+import com.chat.chat_room.api.json.IsoDateTimes;
+
+import java.time.LocalDateTime;
+
+public class Converters {
+    @TypeConverter
+    public static String fromLocalDateTime(LocalDateTime value) {
+        return value == null ? null : value.toString();
+    }
+
+    @TypeConverter
+    public static LocalDateTime toLocalDateTime(String value) {
+        return value == null ? null : IsoDateTimes.parse(value);
+    }
+}
\ No newline at end of file
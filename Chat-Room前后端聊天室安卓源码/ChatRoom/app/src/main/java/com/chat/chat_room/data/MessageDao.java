@@ -0,0 +1,35 @@
+package com.chat.chat_room.data;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.chat.chat_room.model.Message;
+
+import java.util.List;
+
+@Dao
+public interface MessageDao {
+    @Query("SELECT * FROM messages WHERE chatroomId = :roomId ORDER BY id")
+    List<Message> getMessages(int roomId);
+
+    // 缓存中最新一条消息的 id，即该聊天室的同步游标；没有缓存时为 null
+    @Query("SELECT MAX(id) FROM messages WHERE chatroomId = :roomId")
+    Integer getNewestId(int roomId);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAll(List<Message> messages);
+
+    // 每个聊天室只保留最新的 keep 条消息
+    @Query("DELETE FROM messages WHERE chatroomId = :roomId AND id NOT IN "
+            + "(SELECT id FROM messages WHERE chatroomId = :roomId ORDER BY id DESC LIMIT :keep)")
+    void trimRoom(int roomId, int keep);
+
+    @Query("DELETE FROM messages WHERE chatroomId = :roomId")
+    void deleteRoom(int roomId);
+
+    // 清理已不存在的聊天室留下的消息
+    @Query("DELETE FROM messages WHERE chatroomId NOT IN (SELECT id FROM chat_rooms)")
+    void deleteOrphans();
+}
\ No newline at end of file
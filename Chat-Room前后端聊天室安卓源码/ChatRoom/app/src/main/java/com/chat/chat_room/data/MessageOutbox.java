@@ -0,0 +1,355 @@
+package com.chat.chat_room.data;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.chat.chat_room.api.RetrofitClient;
+import com.chat.chat_room.api.SessionManager;
+import com.chat.chat_room.api.UploadResponse;
+import com.chat.chat_room.image.ImageCompressor;
+import com.chat.chat_room.image.ImageLoader;
+import com.chat.chat_room.model.Message;
+import com.chat.chat_room.model.MessageCreate;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * 发件箱：消息先写入本地数据库并立即显示为待发送，再按入队顺序逐条发送。
+ * 失败时按指数退避重试；每条消息带有客户端生成的幂等键，服务端据此去重，重试不会产生重复消息。
+ * 图片消息先把压缩后的图片保存在本地目录，轮到它时先上传图片再发送消息，发送成功后删除本地文件。
+ * 较大的图片走可续传的分片上传，网络中断后重试只补传缺少的分片。
+ */
+public class MessageOutbox {
+    private static final long INITIAL_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 60000;
+    private static final MediaType JPEG = MediaType.get("image/jpeg");
+
+    public interface Listener {
+        // 服务端已确认收到消息
+        void onMessageSent(Message message);
+
+        // 服务端拒绝了消息（如聊天室已被删除），不会再重试
+        void onMessageRejected(Message pending);
+    }
+
+    private static volatile MessageOutbox instance;
+
+    private final Context appContext;
+    private final AppDatabase database;
+    private final ChatStore chatStore;
+    private final ChunkedUploader uploader;
+    // 待发送图片的本地副本，选图的 Uri 授权在页面关闭后就会失效
+    private final File imageDir;
+    // 数据库读写和发送状态都限制在这一个线程中
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    // 分片上传是阻塞调用，放在单独的线程中，不耽误发件箱线程处理新入队的消息
+    private final ExecutorService uploadExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // 只在主线程中访问
+    private final List<Listener> listeners = new ArrayList<>();
+
+    private boolean sending;
+    private long backoffMs = INITIAL_BACKOFF_MS;
+    private ScheduledFuture<?> retryTask;
+
+    private MessageOutbox(Context context) {
+        appContext = context;
+        database = AppDatabase.getInstance(context);
+        chatStore = ChatStore.getInstance(context);
+        uploader = ChunkedUploader.getInstance(context);
+        imageDir = new File(context.getFilesDir(), "outbox");
+    }
+
+    public static MessageOutbox getInstance(Context context) {
+        if (instance == null) {
+            synchronized (MessageOutbox.class) {
+                if (instance == null) {
+                    instance = new MessageOutbox(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // 读取某个聊天室尚未发送成功的消息
+    public void loadPending(int roomId, ChatStore.Callback<List<Message>> callback) {
+        executor.execute(() -> {
+            List<Message> pending = new ArrayList<>();
+            for (OutgoingMessage outgoing : database.outboxDao().getForRoom(roomId)) {
+                pending.add(outgoing.toMessage());
+            }
+            mainHandler.post(() -> callback.onLoaded(pending));
+        });
+    }
+
+    // 入队后立即返回待发送的消息，界面不必等待网络
+    public Message enqueue(int roomId, int userId, String content) {
+        OutgoingMessage outgoing = new OutgoingMessage(UUID.randomUUID().toString(),
+                roomId, userId, content, LocalDateTime.now());
+        executor.execute(() -> {
+            outgoing.setLocalId(database.outboxDao().insert(outgoing));
+            drain();
+        });
+        return outgoing.toMessage();
+    }
+
+    // 图片先在发件箱线程中压缩并保存到本地，与之后输入的文字消息保持先后顺序。
+    // 回调在主线程，参数是待发送的消息，图片读取失败时为 null
+    public void enqueueImage(int roomId, int userId, Uri source,
+                             ChatStore.Callback<Message> callback) {
+        executor.execute(() -> {
+            String clientId = UUID.randomUUID().toString();
+            File file = new File(imageDir, clientId + ".jpg");
+            int[] size;
+            try {
+                if (!imageDir.isDirectory() && !imageDir.mkdirs()) {
+                    throw new IOException("无法创建 " + imageDir);
+                }
+                size = ImageCompressor.compress(appContext.getContentResolver(), source, file);
+            } catch (IOException | RuntimeException | OutOfMemoryError e) {
+                // 超大图片解码时可能内存不足，当作读取失败，不能让发件箱线程崩溃
+                e.printStackTrace();
+                file.delete();
+                mainHandler.post(() -> callback.onLoaded(null));
+                return;
+            }
+            OutgoingMessage outgoing = new OutgoingMessage(clientId, roomId, userId, "",
+                    LocalDateTime.now());
+            outgoing.setImagePath(file.getPath());
+            outgoing.setImageWidth(size[0]);
+            outgoing.setImageHeight(size[1]);
+            outgoing.setLocalId(database.outboxDao().insert(outgoing));
+            Message pending = outgoing.toMessage();
+            mainHandler.post(() -> callback.onLoaded(pending));
+            drain();
+        });
+    }
+
+    // 跳过当前的退避等待立即重试，例如重新打开聊天室时
+    public void flush() {
+        executor.execute(() -> {
+            cancelRetry();
+            backoffMs = INITIAL_BACKOFF_MS;
+            drain();
+        });
+    }
+
+    // 退出登录时丢弃未发送的消息
+    public void clear() {
+        executor.execute(() -> {
+            cancelRetry();
+            database.outboxDao().deleteAll();
+            uploader.forgetAll();
+            File[] files = imageDir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+        });
+    }
+
+    // 聊天室已被删除，其中未发送的消息也不再需要
+    public void deleteRoom(int roomId) {
+        executor.execute(() -> {
+            for (OutgoingMessage outgoing : database.outboxDao().getForRoom(roomId)) {
+                deleteImage(outgoing);
+            }
+            database.outboxDao().deleteRoom(roomId);
+        });
+    }
+
+    // 同一时间只有一条消息在发送，保证服务端按输入顺序分配 id
+    private void drain() {
+        if (sending || retryTask != null) return;
+        // 在发件箱线程中执行，可以等待 token 读取完成
+        SessionManager.getInstance().awaitLoaded();
+        if (!SessionManager.getInstance().isLoggedIn()) return;
+        OutgoingMessage next = database.outboxDao().getFirst();
+        if (next == null) return;
+
+        sending = true;
+        if (next.needsUpload()) {
+            upload(next);
+            return;
+        }
+        MessageCreate body = next.getImageUrl() != null
+                ? MessageCreate.image(next.getImageUrl(), next.getImageWidth(), next.getImageHeight())
+                : new MessageCreate(next.getContent());
+        RetrofitClient.getInstance()
+                .getApi()
+                .createMessage(next.getRoomId(), body, next.getClientId())
+                .enqueue(new Callback<Message>() {
+                    @Override
+                    public void onResponse(Call<Message> call, Response<Message> response) {
+                        executor.execute(() -> onSendFinished(next, response));
+                    }
+
+                    @Override
+                    public void onFailure(Call<Message> call, Throwable t) {
+                        executor.execute(() -> onSendFinished(next, null));
+                    }
+                });
+    }
+
+    private void upload(OutgoingMessage next) {
+        File file = new File(next.getImagePath());
+        if (!file.isFile()) {
+            // 本地文件已经不在（例如应用数据被清理），这条消息无法再发出
+            sending = false;
+            reject(next);
+            drain();
+            return;
+        }
+        if (file.length() > ChunkedUploader.RESUMABLE_THRESHOLD) {
+            uploadExecutor.execute(() -> uploadChunked(next, file));
+            return;
+        }
+        MultipartBody.Part part = MultipartBody.Part.createFormData("file", file.getName(),
+                RequestBody.create(file, JPEG));
+        RetrofitClient.getInstance()
+                .getApi()
+                .uploadImage(part)
+                .enqueue(new Callback<UploadResponse>() {
+                    @Override
+                    public void onResponse(Call<UploadResponse> call,
+                                           Response<UploadResponse> response) {
+                        String url = response.isSuccessful() && response.body() != null
+                                ? response.body().getUrl() : null;
+                        boolean rejected = isRejected(response.code());
+                        executor.execute(() -> onUploadFinished(next, url, rejected));
+                    }
+
+                    @Override
+                    public void onFailure(Call<UploadResponse> call, Throwable t) {
+                        executor.execute(() -> onUploadFinished(next, null, false));
+                    }
+                });
+    }
+
+    // 在上传线程中执行
+    private void uploadChunked(OutgoingMessage next, File file) {
+        String url = null;
+        boolean rejected = false;
+        try {
+            url = uploader.upload(file, JPEG.toString());
+        } catch (ChunkedUploader.RejectedException e) {
+            rejected = true;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        String uploadedUrl = url;
+        boolean uploadRejected = rejected;
+        executor.execute(() -> onUploadFinished(next, uploadedUrl, uploadRejected));
+    }
+
+    // 上传成功后记下地址，之后即使发送消息失败重试，也不用再传一遍图片
+    private void onUploadFinished(OutgoingMessage outgoing, String url, boolean rejected) {
+        sending = false;
+        if (url != null) {
+            outgoing.setImageUrl(url);
+            database.outboxDao().update(outgoing);
+            backoffMs = INITIAL_BACKOFF_MS;
+            drain();
+        } else if (rejected) {
+            reject(outgoing);
+            drain();
+        } else {
+            scheduleRetry();
+        }
+    }
+
+    private void onSendFinished(OutgoingMessage outgoing, Response<Message> response) {
+        sending = false;
+        if (response != null && response.isSuccessful() && response.body() != null) {
+            Message sent = response.body();
+            database.outboxDao().delete(outgoing.getLocalId());
+            if (outgoing.getImagePath() != null && sent.getImageUrl() != null) {
+                ImageLoader.getInstance(appContext).alias(outgoing.toMessage().getImageUrl(),
+                        sent.getImageUrl());
+            }
+            deleteImage(outgoing);
+            chatStore.saveMessages(outgoing.getRoomId(), Collections.singletonList(sent));
+            backoffMs = INITIAL_BACKOFF_MS;
+            mainHandler.post(() -> {
+                for (Listener listener : new ArrayList<>(listeners)) {
+                    listener.onMessageSent(sent);
+                }
+            });
+            drain();
+        } else if (response != null && isRejected(response.code())) {
+            reject(outgoing);
+            drain();
+        } else {
+            scheduleRetry();
+        }
+    }
+
+    private void reject(OutgoingMessage outgoing) {
+        database.outboxDao().delete(outgoing.getLocalId());
+        deleteImage(outgoing);
+        Message pending = outgoing.toMessage();
+        mainHandler.post(() -> {
+            for (Listener listener : new ArrayList<>(listeners)) {
+                listener.onMessageRejected(pending);
+            }
+        });
+    }
+
+    // 网络错误、服务端错误或登录失效：留在队首，稍后重试
+    private void scheduleRetry() {
+        retryTask = executor.schedule(() -> {
+            retryTask = null;
+            drain();
+        }, backoffMs, TimeUnit.MILLISECONDS);
+        backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+    }
+
+    private void deleteImage(OutgoingMessage outgoing) {
+        if (outgoing.getImagePath() != null) {
+            File file = new File(outgoing.getImagePath());
+            uploader.forget(file);
+            file.delete();
+        }
+    }
+
+    // 请求本身有问题的 4xx 重试也不会成功；401、408、429 可能在稍后恢复
+    private static boolean isRejected(int code) {
+        return code >= 400 && code < 500 && code != 401 && code != 408 && code != 429;
+    }
+
+    private void cancelRetry() {
+        if (retryTask != null) {
+            retryTask.cancel(false);
+            retryTask = null;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.chat.chat_room.data;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+@Dao
+public interface MessageSearchDao {
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAll(List<MessageSearchEntry> entries);
+
+    // query 是 SearchTokenizer.toMatchQuery 生成的表达式，最新的消息排在前面
+    @Query("SELECT rowid, tokens, roomId, content, createdAt FROM message_search "
+            + "WHERE message_search MATCH :query AND roomId = :roomId "
+            + "ORDER BY rowid DESC LIMIT :limit")
+    List<MessageSearchEntry> search(int roomId, String query, int limit);
+
+    @Query("DELETE FROM message_search WHERE roomId = :roomId")
+    void deleteRoom(int roomId);
+
+    // 清理已不存在的聊天室的索引
+    @Query("DELETE FROM message_search WHERE roomId NOT IN (SELECT id FROM chat_rooms)")
+    void deleteOrphans();
+}
\ No newline at end of file
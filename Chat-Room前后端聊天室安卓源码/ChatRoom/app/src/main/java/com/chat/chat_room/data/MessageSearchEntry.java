@@ -0,0 +1,72 @@
+package com.chat.chat_room.data;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.PrimaryKey;
+
+import com.chat.chat_room.model.Message;
+import com.chat.chat_room.search.SearchTokenizer;
+
+import java.time.LocalDateTime;
+
+// 消息全文索引中的一行，rowid 就是消息 id。只有预先切分好的 tokens 参与检索，
+// 其余列原样保存，命中的消息即使已被缓存淘汰也能直接显示。
+// prefix 按字节建前缀索引，3 字节正好是一个汉字，单字查询不必展开所有以它开头的二元组
+@Fts4(notIndexed = {"roomId", "content", "createdAt"}, prefix = {3})
+@Entity(tableName = "message_search")
+public class MessageSearchEntry {
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    private int rowId;
+    private String tokens;
+    private int roomId;
+    private String content;
+    private LocalDateTime createdAt;
+
+    public MessageSearchEntry(int rowId, String tokens, int roomId, String content,
+                              LocalDateTime createdAt) {
+        this.rowId = rowId;
+        this.tokens = tokens;
+        this.roomId = roomId;
+        this.content = content;
+        this.createdAt = createdAt;
+    }
+
+    // 在后台线程中调用，切分文本是写入索引时主要的开销
+    public static MessageSearchEntry from(Message message) {
+        return new MessageSearchEntry(message.getId(),
+                SearchTokenizer.tokenize(message.getContent()),
+                message.getChatroomId(), message.getContent(), message.getCreatedAt());
+    }
+
+    public int getRowId() {
+        return rowId;
+    }
+
+    public String getTokens() {
+        return tokens;
+    }
+
+    public int getRoomId() {
+        return roomId;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    // 转换成搜索结果列表中显示的消息
+    public Message toMessage() {
+        Message message = new Message();
+        message.setId(rowId);
+        message.setChatroomId(roomId);
+        message.setContent(content);
+        message.setCreatedAt(createdAt);
+        return message;
+    }
+}
\ No newline at end of file
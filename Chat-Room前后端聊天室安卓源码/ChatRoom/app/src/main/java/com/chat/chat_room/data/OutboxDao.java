@@ -0,0 +1,33 @@
+package com.chat.chat_room.data;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Update;
+
+import java.util.List;
+
+@Dao
+public interface OutboxDao {
+    @Insert
+    long insert(OutgoingMessage message);
+
+    @Update
+    void update(OutgoingMessage message);
+
+    // 队首的消息，所有聊天室共用一个发送顺序
+    @Query("SELECT * FROM outbox ORDER BY localId LIMIT 1")
+    OutgoingMessage getFirst();
+
+    @Query("SELECT * FROM outbox WHERE roomId = :roomId ORDER BY localId")
+    List<OutgoingMessage> getForRoom(int roomId);
+
+    @Query("DELETE FROM outbox WHERE localId = :localId")
+    void delete(long localId);
+
+    @Query("DELETE FROM outbox WHERE roomId = :roomId")
+    void deleteRoom(int roomId);
+
+    @Query("DELETE FROM outbox")
+    void deleteAll();
+}
\ No newline at end of file
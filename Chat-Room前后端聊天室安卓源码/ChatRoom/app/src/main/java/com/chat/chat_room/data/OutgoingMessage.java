@@ -0,0 +1,115 @@
+package com.chat.chat_room.data;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+import com.chat.chat_room.model.Message;
+
+import java.time.LocalDateTime;
+
+// 发件箱中等待发送的消息，按 localId 的顺序发送
+@Entity(tableName = "outbox")
+public class OutgoingMessage {
+    @PrimaryKey(autoGenerate = true)
+    private long localId;
+    private String clientId;
+    private int roomId;
+    private int userId;
+    private String content;
+    private LocalDateTime createdAt;
+    // 图片消息：待上传的本地文件、上传后服务端返回的地址以及图片尺寸
+    private String imagePath;
+    private String imageUrl;
+    private int imageWidth;
+    private int imageHeight;
+
+    public OutgoingMessage(String clientId, int roomId, int userId, String content,
+                           LocalDateTime createdAt) {
+        this.clientId = clientId;
+        this.roomId = roomId;
+        this.userId = userId;
+        this.content = content;
+        this.createdAt = createdAt;
+    }
+
+    public long getLocalId() {
+        return localId;
+    }
+
+    public void setLocalId(long localId) {
+        this.localId = localId;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public int getRoomId() {
+        return roomId;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getImagePath() {
+        return imagePath;
+    }
+
+    public void setImagePath(String imagePath) {
+        this.imagePath = imagePath;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
+    public int getImageWidth() {
+        return imageWidth;
+    }
+
+    public void setImageWidth(int imageWidth) {
+        this.imageWidth = imageWidth;
+    }
+
+    public int getImageHeight() {
+        return imageHeight;
+    }
+
+    public void setImageHeight(int imageHeight) {
+        this.imageHeight = imageHeight;
+    }
+
+    // 图片还没上传完成
+    public boolean needsUpload() {
+        return imagePath != null && imageUrl == null;
+    }
+
+    // 转换成界面上显示的待发送消息
+    public Message toMessage() {
+        Message message = new Message();
+        message.setClientId(clientId);
+        message.setChatroomId(roomId);
+        message.setUserId(userId);
+        message.setContent(content);
+        message.setCreatedAt(createdAt);
+        // 待发送的图片直接显示本地文件
+        message.setImageUrl(imagePath == null ? null : "file://" + imagePath);
+        message.setImageWidth(imageWidth);
+        message.setImageHeight(imageHeight);
+        message.setPending(true);
+        return message;
+    }
+}
\ No newline at end of file
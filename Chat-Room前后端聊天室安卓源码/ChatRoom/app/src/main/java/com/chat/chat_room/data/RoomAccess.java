@@ -0,0 +1,54 @@
+package com.chat.chat_room.data;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+// 记录每个聊天室最近一次被打开的时间，用于按 LRU 淘汰本地缓存；
+// 打开次数按时间衰减累计成分数，后台预取优先同步常看的聊天室
+@Entity(tableName = "room_access")
+public class RoomAccess {
+    // 分数的半衰期：一天前的一次打开只算半次
+    private static final long SCORE_HALF_LIFE_MS = 24 * 60 * 60 * 1000L;
+
+    @PrimaryKey
+    private int roomId;
+    private long lastAccessAt;
+    private double openScore;
+    private long lastOpenedAt;
+
+    public RoomAccess(int roomId, long lastAccessAt) {
+        this.roomId = roomId;
+        this.lastAccessAt = lastAccessAt;
+    }
+
+    public int getRoomId() {
+        return roomId;
+    }
+
+    public long getLastAccessAt() {
+        return lastAccessAt;
+    }
+
+    public double getOpenScore() {
+        return openScore;
+    }
+
+    public void setOpenScore(double openScore) {
+        this.openScore = openScore;
+    }
+
+    public long getLastOpenedAt() {
+        return lastOpenedAt;
+    }
+
+    public void setLastOpenedAt(long lastOpenedAt) {
+        this.lastOpenedAt = lastOpenedAt;
+    }
+
+    // 衰减到 now 时刻的分数，最近打开得越多分数越高
+    public double scoreAt(long now) {
+        if (openScore == 0) return 0;
+        long elapsed = Math.max(0, now - lastOpenedAt);
+        return openScore * Math.pow(0.5, (double) elapsed / SCORE_HALF_LIFE_MS);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.chat.chat_room.data;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+@Dao
+public interface RoomAccessDao {
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsert(RoomAccess access);
+
+    @Query("SELECT * FROM room_access WHERE roomId = :roomId")
+    RoomAccess get(int roomId);
+
+    @Query("SELECT * FROM room_access")
+    List<RoomAccess> getAll();
+
+    // 只更新访问时间，保留打开分数；返回更新的行数
+    @Query("UPDATE room_access SET lastAccessAt = :lastAccessAt WHERE roomId = :roomId")
+    int updateLastAccess(int roomId, long lastAccessAt);
+
+    // 按最近访问时间排序，跳过最近的 keep 个，其余都是待淘汰的聊天室
+    @Query("SELECT roomId FROM room_access ORDER BY lastAccessAt DESC LIMIT -1 OFFSET :keep")
+    List<Integer> getEvictableRoomIds(int keep);
+
+    @Query("DELETE FROM room_access WHERE roomId = :roomId")
+    void delete(int roomId);
+}
\ No newline at end of file
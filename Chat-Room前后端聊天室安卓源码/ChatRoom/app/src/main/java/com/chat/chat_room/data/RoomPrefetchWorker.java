@@ -0,0 +1,110 @@
+package com.chat.chat_room.data;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.chat.chat_room.api.ApiService;
+import com.chat.chat_room.api.RetrofitClient;
+import com.chat.chat_room.api.SessionManager;
+import com.chat.chat_room.model.Message;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import retrofit2.Response;
+
+/**
+ * 后台预取：定期把最常打开的几个聊天室的新消息同步到本地缓存，
+ * 之后打开这些聊天室时直接从缓存显示，增量请求通常没有新内容。
+ * 只在不计流量的网络下、电量充足时运行。
+ */
+public class RoomPrefetchWorker extends Worker {
+    private static final String WORK_NAME = "room-prefetch";
+    // WorkManager 允许的最短周期
+    private static final long INTERVAL_MINUTES = 15;
+    // 每次最多预取的聊天室个数
+    private static final int MAX_ROOMS = 5;
+    // 与服务端单页上限一致；一页装不下说明缓存与最新消息之间有缺口
+    private static final int PAGE_SIZE = 200;
+
+    public RoomPrefetchWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    // 登录后调用，已经排上的任务保持原来的周期
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .setRequiresBatteryNotLow(true)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                RoomPrefetchWorker.class, INTERVAL_MINUTES, TimeUnit.MINUTES)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+                WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    // 退出登录时调用
+    public static void cancel(Context context) {
+        WorkManager.getInstance(context).cancelUniqueWork(WORK_NAME);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        // 进程刚被 WorkManager 拉起时 token 可能还在读取
+        SessionManager.getInstance().awaitLoaded();
+        if (!SessionManager.getInstance().isLoggedIn()) return Result.success();
+
+        ChatStore chatStore = ChatStore.getInstance(getApplicationContext());
+        ApiService api = RetrofitClient.getInstance().getApi();
+        for (int roomId : chatStore.getPrefetchRoomIds(MAX_ROOMS)) {
+            if (isStopped()) break;
+            try {
+                if (!prefetchRoom(chatStore, api, roomId)) break;
+            } catch (IOException e) {
+                // 网络中断，交给 WorkManager 稍后重试
+                e.printStackTrace();
+                return Result.retry();
+            }
+        }
+        return Result.success();
+    }
+
+    // 返回 false 表示登录已失效，不必继续
+    private boolean prefetchRoom(ChatStore chatStore, ApiService api, int roomId)
+            throws IOException {
+        int cursor = chatStore.getSyncCursor(roomId);
+        Response<List<Message>> response = api.getMessagePage(
+                roomId, null, cursor > 0 ? cursor : null, PAGE_SIZE).execute();
+        if (response.code() == 401) return false;
+        if (response.code() == 404) {
+            // 聊天室已被删除
+            chatStore.deleteChatRoom(roomId);
+            return true;
+        }
+        if (!response.isSuccessful() || response.body() == null) return true;
+
+        List<Message> page = response.body();
+        boolean replace = false;
+        if (cursor > 0 && page.size() >= PAGE_SIZE) {
+            // 离开太久，中间的消息不补了，换成最新的一页，缓存仍与最新消息连续
+            response = api.getMessagePage(roomId, null, null, PAGE_SIZE).execute();
+            if (!response.isSuccessful() || response.body() == null) return true;
+            page = response.body();
+            replace = true;
+        }
+        chatStore.savePrefetchedMessages(roomId, page, replace);
+        return true;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.chat.chat_room.data;
+
+// 分片上传的区间计算，与服务端 upload_chunk 对 Content-Range 的校验一致
+final class UploadChunks {
+    private UploadChunks() {
+    }
+
+    // 分片数，空文件也算一个分片
+    static int count(long size, int chunkSize) {
+        return (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+    }
+
+    static long offset(int index, int chunkSize) {
+        return (long) index * chunkSize;
+    }
+
+    // 最后一个分片可能不满
+    static long length(int index, long size, int chunkSize) {
+        return Math.min(chunkSize, size - offset(index, chunkSize));
+    }
+
+    // 例如 "bytes 0-1048575/3000000"，结束位置包含在内
+    static String contentRange(long offset, long length, long size) {
+        return "bytes " + offset + "-" + (offset + length - 1) + "/" + size;
+    }
+}
\ No newline at end of file
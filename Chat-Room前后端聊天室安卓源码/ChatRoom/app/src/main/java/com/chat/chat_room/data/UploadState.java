@@ -0,0 +1,41 @@
+package com.chat.chat_room.data;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+// 未完成的分片上传：本地文件对应的服务端会话。
+// 记下文件大小和修改时间，文件变了就不能接着传
+@Entity(tableName = "uploads")
+public class UploadState {
+    @PrimaryKey
+    @NonNull
+    private String path;
+    private String uploadId;
+    private long size;
+    private long lastModified;
+
+    public UploadState(@NonNull String path, String uploadId, long size, long lastModified) {
+        this.path = path;
+        this.uploadId = uploadId;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    @NonNull
+    public String getPath() {
+        return path;
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.chat.chat_room.data;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+@Dao
+public interface UploadStateDao {
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsert(UploadState state);
+
+    @Query("SELECT * FROM uploads WHERE path = :path")
+    UploadState get(String path);
+
+    @Query("DELETE FROM uploads WHERE path = :path")
+    void delete(String path);
+
+    @Query("DELETE FROM uploads")
+    void deleteAll();
+}
\ No newline at end of file
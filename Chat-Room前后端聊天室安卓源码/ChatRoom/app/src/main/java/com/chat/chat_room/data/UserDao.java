@@ -0,0 +1,21 @@
+package com.chat.chat_room.data;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.chat.chat_room.model.User;
+
+@Dao
+public interface UserDao {
+    // users 表只保存当前登录用户
+    @Query("SELECT * FROM users LIMIT 1")
+    User getCurrentUser();
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insert(User user);
+
+    @Query("DELETE FROM users")
+    void deleteAll();
+}
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.chat.chat_room.image;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 发送前把用户选的图片压成长边不超过 MAX_SIZE 的 JPEG：
+ * 相机原图动辄十几 MB，降采样解码后再按 EXIF 方向转正，上传和对方下载都只需几百 KB。
+ * 在后台线程调用。
+ */
+public final class ImageCompressor {
+    private static final int MAX_SIZE = 2048;
+    private static final int JPEG_QUALITY = 85;
+
+    private ImageCompressor() {
+    }
+
+    // 写入 target，返回转正后的 {宽, 高}
+    public static int[] compress(ContentResolver resolver, Uri source, File target) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream in = open(resolver, source)) {
+            BitmapFactory.decodeStream(in, null, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("不是可识别的图片");
+        }
+        options.inSampleSize = ImageSizes.sampleSizeForLongSide(options.outWidth, options.outHeight,
+                MAX_SIZE);
+        options.inJustDecodeBounds = false;
+        Bitmap bitmap;
+        try (InputStream in = open(resolver, source)) {
+            bitmap = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (bitmap == null) {
+            throw new IOException("图片解码失败");
+        }
+
+        // 降采样只能按 2 的幂缩小，剩下的部分与旋转合并成一次变换
+        Matrix matrix = new Matrix();
+        float scale = Math.min(1f, (float) MAX_SIZE / Math.max(bitmap.getWidth(), bitmap.getHeight()));
+        if (scale < 1f) {
+            matrix.postScale(scale, scale);
+        }
+        int rotation = readRotation(resolver, source);
+        if (rotation != 0) {
+            matrix.postRotate(rotation);
+        }
+        if (!matrix.isIdentity()) {
+            Bitmap transformed = Bitmap.createBitmap(bitmap, 0, 0,
+                    bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+            if (transformed != bitmap) {
+                bitmap.recycle();
+                bitmap = transformed;
+            }
+        }
+
+        int[] size = {bitmap.getWidth(), bitmap.getHeight()};
+        try (OutputStream out = new FileOutputStream(target)) {
+            if (!bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out)) {
+                throw new IOException("图片压缩失败");
+            }
+        } finally {
+            bitmap.recycle();
+        }
+        return size;
+    }
+
+    private static InputStream open(ContentResolver resolver, Uri uri) throws IOException {
+        InputStream in = resolver.openInputStream(uri);
+        if (in == null) {
+            throw new IOException("无法读取 " + uri);
+        }
+        return in;
+    }
+
+    // 相机照片的像素通常没有转正，方向记在 EXIF 里；重新编码会丢掉 EXIF，所以先转好
+    private static int readRotation(ContentResolver resolver, Uri uri) {
+        try (InputStream in = open(resolver, uri)) {
+            int orientation = new ExifInterface(in).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+            switch (orientation) {
+                case ExifInterface.ORIENTATION_ROTATE_90:
+                    return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180:
+                    return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270:
+                    return 270;
+                default:
+                    return 0;
+            }
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,223 @@
+package com.chat.chat_room.image;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import com.chat.chat_room.R;
+import com.chat.chat_room.api.RetrofitClient;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * 消息图片的两级缓存加载：
+ * 原始字节由单独的 OkHttp 磁盘缓存按 LRU 保存，服务端的图片地址不可变，命中后不再访问网络；
+ * 字节在后台线程池中按显示尺寸降采样解码，解码后的位图放进按字节计算大小的内存 LRU。
+ * 每个 ImageView 同时只有一个请求，重新绑定或被回收时取消旧请求，快速滑动时不会加载已经划走的图片。
+ * load 和 cancel 只在主线程调用。
+ */
+public class ImageLoader {
+    // 磁盘缓存上限，与接口的响应缓存分开，大图不会把列表的 ETag 缓存挤掉
+    private static final long DISK_CACHE_BYTES = 50L * 1024 * 1024;
+    // 解码很占 CPU 和内存，两个线程足够跟上滑动
+    private static final int DECODE_THREADS = 2;
+
+    private static volatile ImageLoader instance;
+
+    private final LruCache<String, Bitmap> memoryCache;
+    private final OkHttpClient client;
+    private final ExecutorService decodeExecutor = Executors.newFixedThreadPool(DECODE_THREADS);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private ImageLoader(Context context) {
+        // 内存缓存占可用堆的八分之一，以 KB 计
+        int maxKb = (int) (Runtime.getRuntime().maxMemory() / 1024 / 8);
+        memoryCache = new LruCache<String, Bitmap>(maxKb) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount() / 1024;
+            }
+        };
+        // 与接口共用连接池和鉴权，只换一个磁盘缓存。
+        // 图片地址各不相同，不计入接口耗时统计，否则每张图片都会单独占一行
+        client = RetrofitClient.getInstance().getOkHttpClient().newBuilder()
+                .cache(new Cache(new File(context.getCacheDir(), "images"), DISK_CACHE_BYTES))
+                .eventListener(EventListener.NONE)
+                .build();
+    }
+
+    public static ImageLoader getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ImageLoader.class) {
+                if (instance == null) {
+                    instance = new ImageLoader(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    // 系统内存紧张时释放位图；还没加载过图片时什么也不做
+    public static void trimMemory(int level) {
+        ImageLoader loader = instance;
+        if (loader == null) return;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            loader.memoryCache.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            loader.memoryCache.trimToSize(loader.memoryCache.maxSize() / 2);
+        }
+    }
+
+    // 把 url 的图片按 width x height 降采样后显示到 view。
+    // url 是服务端的相对路径，或待发送图片的本地 file:// 地址
+    public void load(String url, ImageView view, int width, int height) {
+        cancel(view);
+        String key = url + '@' + width + 'x' + height;
+        Bitmap cached = memoryCache.get(key);
+        if (cached != null) {
+            view.setImageBitmap(cached);
+            return;
+        }
+        // 先清掉复用视图上的旧图，占位由布局背景提供
+        view.setImageDrawable(null);
+        ImageRequest request = new ImageRequest(key, url, view, width, height);
+        view.setTag(R.id.image_request, request);
+        request.start();
+    }
+
+    public void cancel(ImageView view) {
+        Object tag = view.getTag(R.id.image_request);
+        if (tag instanceof ImageRequest) {
+            ((ImageRequest) tag).cancel();
+        }
+        view.setTag(R.id.image_request, null);
+    }
+
+    // 待发送的图片确认后地址从本地文件换成服务端地址，已解码的位图沿用过去，避免重新下载时闪烁
+    public void alias(String fromUrl, String toUrl) {
+        String prefix = fromUrl + '@';
+        for (String key : memoryCache.snapshot().keySet()) {
+            if (key.startsWith(prefix)) {
+                Bitmap bitmap = memoryCache.get(key);
+                if (bitmap != null) {
+                    memoryCache.put(toUrl + key.substring(fromUrl.length()), bitmap);
+                }
+            }
+        }
+    }
+
+    private static boolean isLocal(String url) {
+        return url.startsWith("file://");
+    }
+
+    // 先只读图片头得到原始尺寸，再按目标尺寸选取降采样倍数解码
+    private static Bitmap decodeSampled(byte[] data, String path, int width, int height) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        if (data != null) {
+            BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        } else {
+            BitmapFactory.decodeFile(path, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) return null;
+        options.inSampleSize = ImageSizes.sampleSize(options.outWidth, options.outHeight, width, height);
+        options.inJustDecodeBounds = false;
+        return data != null
+                ? BitmapFactory.decodeByteArray(data, 0, data.length, options)
+                : BitmapFactory.decodeFile(path, options);
+    }
+
+    // 一次加载：下载（或读本地文件）、解码、回到主线程显示，任一步之前被取消都会停下
+    private final class ImageRequest {
+        private final String key;
+        private final String url;
+        private final ImageView view;
+        private final int width;
+        private final int height;
+        private volatile boolean cancelled;
+        private volatile Call call;
+        private volatile Future<?> decodeTask;
+
+        ImageRequest(String key, String url, ImageView view, int width, int height) {
+            this.key = key;
+            this.url = url;
+            this.view = view;
+            this.width = width;
+            this.height = height;
+        }
+
+        void start() {
+            if (isLocal(url)) {
+                decode(null, Uri.parse(url).getPath());
+                return;
+            }
+            Request request = new Request.Builder()
+                    .url(RetrofitClient.resolve(url))
+                    .build();
+            call = client.newCall(request);
+            call.enqueue(new Callback() {
+                @Override
+                public void onResponse(Call call, Response response) {
+                    try (ResponseBody body = response.body()) {
+                        if (cancelled || !response.isSuccessful() || body == null) return;
+                        decode(body.bytes(), null);
+                    } catch (IOException e) {
+                        // 下载中断，下次绑定时重新加载
+                    }
+                }
+
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    // 取消或网络错误，占位保持不变
+                }
+            });
+        }
+
+        private void decode(byte[] data, String path) {
+            if (cancelled) return;
+            decodeTask = decodeExecutor.submit(() -> {
+                if (cancelled) return;
+                Bitmap bitmap = decodeSampled(data, path, width, height);
+                if (bitmap == null) return;
+                // 即使已被取消也放进缓存，滑回来时可以直接显示
+                memoryCache.put(key, bitmap);
+                mainHandler.post(() -> {
+                    if (cancelled || view.getTag(R.id.image_request) != this) return;
+                    view.setTag(R.id.image_request, null);
+                    view.setImageBitmap(bitmap);
+                });
+            });
+        }
+
+        void cancel() {
+            cancelled = true;
+            Call current = call;
+            if (current != null) {
+                current.cancel();
+            }
+            Future<?> task = decodeTask;
+            if (task != null) {
+                task.cancel(false);
+            }
+        }
+    }
+}
\ No newline at end of file
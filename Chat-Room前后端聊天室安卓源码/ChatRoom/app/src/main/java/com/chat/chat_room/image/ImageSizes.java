@@ -0,0 +1,43 @@
+package com.chat.chat_room.image;
+
+// 图片解码和显示用到的尺寸计算
+public final class ImageSizes {
+    private ImageSizes() {
+    }
+
+    // 解码时的降采样倍数：取 2 的幂，使解码结果的两边都不小于目标尺寸。
+    // 解码器按 2 的幂整块丢弃像素，比解码原图再缩放省内存也省时间
+    public static int sampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int sampleSize = 1;
+        if (reqWidth <= 0 || reqHeight <= 0) return sampleSize;
+        while (width / (sampleSize * 2) >= reqWidth && height / (sampleSize * 2) >= reqHeight) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    // 压缩发送时的降采样倍数：取 2 的幂，使解码结果的长边不小于 maxLongSide，
+    // 剩下不到一半的缩小交给 Matrix
+    public static int sampleSizeForLongSide(int width, int height, int maxLongSide) {
+        int sampleSize = 1;
+        if (maxLongSide <= 0) return sampleSize;
+        int longSide = Math.max(width, height);
+        while (longSide / (sampleSize * 2) >= maxLongSide) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    // 按原图比例缩放到长边不超过 maxPx，小图保持原尺寸，但短边不小于 minPx。
+    // 尺寸未知时按 4:3 占位。返回 {宽, 高}
+    public static int[] fit(int width, int height, int maxPx, int minPx) {
+        if (width <= 0 || height <= 0) {
+            return new int[]{maxPx, maxPx * 3 / 4};
+        }
+        float scale = Math.min(1f, (float) maxPx / Math.max(width, height));
+        int w = Math.round(width * scale);
+        int h = Math.round(height * scale);
+        // 细长的图片按短边补足后仍不超过长边上限
+        return new int[]{Math.min(Math.max(w, minPx), maxPx), Math.min(Math.max(h, minPx), maxPx)};
+    }
+}
\ No newline at end of file
@@ -1,10 +1,15 @@
 package com.chat.chat_room.model;
 
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
 import com.google.gson.annotations.SerializedName;
 
 import java.time.LocalDateTime;
 
+@Entity(tableName = "chat_rooms")
 public class ChatRoom {
+    @PrimaryKey
     private int id;
     private String name;
     @SerializedName("creator_id")
@@ -12,6 +17,19 @@ public class ChatRoom {
 
     @SerializedName("created_at")
     private LocalDateTime createdAt;
+
+    // 以下来自聊天室摘要接口：最后一条消息和当前用户的未读数，没有消息时 id 为 0
+    @SerializedName("last_message_id")
+    private int lastMessageId;
+    @SerializedName("last_message_user_id")
+    private int lastMessageUserId;
+    @SerializedName("last_message_content")
+    private String lastMessageContent;
+    @SerializedName("last_message_at")
+    private LocalDateTime lastMessageAt;
+    @SerializedName("unread_count")
+    private int unreadCount;
+
     public ChatRoom(int id, String name, int creatorId) {
         this.id = id;
         this.name = name;
@@ -49,4 +67,44 @@ public class ChatRoom {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public int getLastMessageId() {
+        return lastMessageId;
+    }
+
+    public void setLastMessageId(int lastMessageId) {
+        this.lastMessageId = lastMessageId;
+    }
+
+    public int getLastMessageUserId() {
+        return lastMessageUserId;
+    }
+
+    public void setLastMessageUserId(int lastMessageUserId) {
+        this.lastMessageUserId = lastMessageUserId;
+    }
+
+    public String getLastMessageContent() {
+        return lastMessageContent;
+    }
+
+    public void setLastMessageContent(String lastMessageContent) {
+        this.lastMessageContent = lastMessageContent;
+    }
+
+    public LocalDateTime getLastMessageAt() {
+        return lastMessageAt;
+    }
+
+    public void setLastMessageAt(LocalDateTime lastMessageAt) {
+        this.lastMessageAt = lastMessageAt;
+    }
+
+    public int getUnreadCount() {
+        return unreadCount;
+    }
+
+    public void setUnreadCount(int unreadCount) {
+        this.unreadCount = unreadCount;
+    }
 }
\ No newline at end of file
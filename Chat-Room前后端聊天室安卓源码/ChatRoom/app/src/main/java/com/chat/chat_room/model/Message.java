@@ -1,9 +1,16 @@
 package com.chat.chat_room.model;
 
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
 import com.google.gson.annotations.SerializedName;
 import java.time.LocalDateTime;
 
+@Entity(tableName = "messages", indices = {@Index("chatroomId")})
 public class Message {
+    @PrimaryKey
     private int id;
     private String content;
 
@@ -16,6 +23,24 @@ public class Message {
     @SerializedName("created_at")
     private LocalDateTime createdAt;
 
+    // 发送时生成的幂等键，用来把服务端返回或推送的消息与本地待发送消息对应起来
+    @SerializedName("client_id")
+    private String clientId;
+
+    // 图片消息的地址（服务端相对路径，待发送时是本地 file:// 地址）和原图尺寸，尺寸未知时为 0
+    @SerializedName("image_url")
+    private String imageUrl;
+
+    @SerializedName("image_width")
+    private int imageWidth;
+
+    @SerializedName("image_height")
+    private int imageHeight;
+
+    // 仍在发件箱中、尚未被服务端确认
+    @Ignore
+    private boolean pending;
+
     // Getters and Setters
     public int getId() { return id; }
     public void setId(int id) { this.id = id; }
@@ -31,4 +56,21 @@ public class Message {
 
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public String getClientId() { return clientId; }
+    public void setClientId(String clientId) { this.clientId = clientId; }
+
+    public String getImageUrl() { return imageUrl; }
+    public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
+
+    public int getImageWidth() { return imageWidth; }
+    public void setImageWidth(int imageWidth) { this.imageWidth = imageWidth; }
+
+    public int getImageHeight() { return imageHeight; }
+    public void setImageHeight(int imageHeight) { this.imageHeight = imageHeight; }
+
+    public boolean isImage() { return imageUrl != null; }
+
+    public boolean isPending() { return pending; }
+    public void setPending(boolean pending) { this.pending = pending; }
 }
\ No newline at end of file
@@ -1,12 +1,32 @@
 package com.chat.chat_room.model;
 
+import com.google.gson.annotations.SerializedName;
+
 public class MessageCreate {
     private String content;
 
+    @SerializedName("image_url")
+    private String imageUrl;
+
+    @SerializedName("image_width")
+    private Integer imageWidth;
+
+    @SerializedName("image_height")
+    private Integer imageHeight;
+
     public MessageCreate(String content) {
         this.content = content;
     }
 
+    // 图片消息，正文为空
+    public static MessageCreate image(String imageUrl, int width, int height) {
+        MessageCreate message = new MessageCreate("");
+        message.imageUrl = imageUrl;
+        message.imageWidth = width > 0 ? width : null;
+        message.imageHeight = height > 0 ? height : null;
+        return message;
+    }
+
     public String getContent() {
         return content;
     }
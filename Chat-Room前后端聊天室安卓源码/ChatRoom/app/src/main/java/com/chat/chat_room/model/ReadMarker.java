@@ -0,0 +1,12 @@
+package com.chat.chat_room.model;
+
+import com.google.gson.annotations.SerializedName;
+
+public class ReadMarker {
+    @SerializedName("last_read_id")
+    private int lastReadId;
+
+    public ReadMarker(int lastReadId) {
+        this.lastReadId = lastReadId;
+    }
+}
\ No newline at end of file
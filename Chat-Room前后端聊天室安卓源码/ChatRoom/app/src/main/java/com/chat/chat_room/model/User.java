@@ -1,6 +1,11 @@
 package com.chat.chat_room.model;
 
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+@Entity(tableName = "users")
 public class User {
+    @PrimaryKey
     private int id;
     private String username;
 
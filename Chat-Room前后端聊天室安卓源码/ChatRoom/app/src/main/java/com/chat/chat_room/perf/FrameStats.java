@@ -0,0 +1,174 @@
+package com.chat.chat_room.perf;
+
+import android.content.Context;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 本次进程内的帧统计，按页面和界面状态汇总卡顿比例，并保留每个页面最慢的几帧。
+ * 数据由 JankTracker 写入，可以在性能统计页面查看或导出成 JSON 文件。
+ */
+public class FrameStats {
+    private static final String DUMP_FILE_NAME = "frame_metrics.json";
+    // 每个页面保留的最慢帧个数
+    private static final int WORST_FRAMES = 5;
+    // 没有任何状态标记的帧
+    static final String STATE_IDLE = "idle";
+
+    private static final FrameStats INSTANCE = new FrameStats();
+
+    private final Map<String, ScreenStats> screens = new TreeMap<>();
+    private final long startedAt = System.currentTimeMillis();
+
+    public static FrameStats getInstance() {
+        return INSTANCE;
+    }
+
+    synchronized void record(String screen, long durationNanos, boolean jank, String state) {
+        ScreenStats stats = screens.get(screen);
+        if (stats == null) {
+            stats = new ScreenStats();
+            screens.put(screen, stats);
+        }
+        stats.record(durationNanos, jank, state);
+    }
+
+    public synchronized void reset() {
+        screens.clear();
+    }
+
+    public synchronized String report() {
+        if (screens.isEmpty()) return "暂无帧数据";
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<String, ScreenStats> entry : screens.entrySet()) {
+            ScreenStats stats = entry.getValue();
+            out.append(entry.getKey()).append('\n');
+            out.append(String.format(Locale.US, "  帧 %d  卡顿 %d (%s)%n",
+                    stats.frames, stats.jankFrames, percent(stats.jankFrames, stats.frames)));
+            for (Map.Entry<String, long[]> state : stats.states.entrySet()) {
+                long[] counts = state.getValue();
+                out.append(String.format(Locale.US, "  %s  帧 %d  卡顿 %d (%s)%n",
+                        state.getKey(), counts[0], counts[1], percent(counts[1], counts[0])));
+            }
+            out.append("  最慢的帧\n");
+            for (SlowFrame frame : stats.worstFrames) {
+                out.append(String.format(Locale.US, "    %.1fms  %s%n",
+                        frame.durationNanos / 1_000_000.0, frame.state));
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    // 写入 JSON 文件，可以用 adb pull 取出。需要在后台线程调用
+    public File dump(Context context) throws IOException {
+        File dir = context.getExternalFilesDir(null);
+        File file = new File(dir != null ? dir : context.getFilesDir(), DUMP_FILE_NAME);
+        String content;
+        try {
+            content = toJson().toString();
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+        return file;
+    }
+
+    private synchronized JSONObject toJson() throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("started_at", startedAt);
+        json.put("dumped_at", System.currentTimeMillis());
+        JSONArray array = new JSONArray();
+        for (Map.Entry<String, ScreenStats> entry : screens.entrySet()) {
+            ScreenStats stats = entry.getValue();
+            JSONObject screen = new JSONObject();
+            screen.put("screen", entry.getKey());
+            screen.put("frames", stats.frames);
+            screen.put("jank_frames", stats.jankFrames);
+            JSONObject states = new JSONObject();
+            for (Map.Entry<String, long[]> state : stats.states.entrySet()) {
+                JSONObject counts = new JSONObject();
+                counts.put("frames", state.getValue()[0]);
+                counts.put("jank_frames", state.getValue()[1]);
+                states.put(state.getKey(), counts);
+            }
+            screen.put("states", states);
+            JSONArray worst = new JSONArray();
+            for (SlowFrame frame : stats.worstFrames) {
+                JSONObject item = new JSONObject();
+                item.put("duration_us", frame.durationNanos / 1000);
+                item.put("state", frame.state);
+                item.put("at", frame.timestamp);
+                worst.put(item);
+            }
+            screen.put("worst_frames", worst);
+            array.put(screen);
+        }
+        json.put("screens", array);
+        return json;
+    }
+
+    private static String percent(long part, long total) {
+        return total == 0 ? "0%" : String.format(Locale.US, "%.2f%%", part * 100.0 / total);
+    }
+
+    private static class ScreenStats {
+        long frames;
+        long jankFrames;
+        // 状态 -> {帧数, 卡顿帧数}
+        final Map<String, long[]> states = new LinkedHashMap<>();
+        // 按耗时从大到小
+        final List<SlowFrame> worstFrames = new ArrayList<>();
+
+        void record(long durationNanos, boolean jank, String state) {
+            frames++;
+            if (jank) jankFrames++;
+            long[] counts = states.get(state);
+            if (counts == null) {
+                counts = new long[2];
+                states.put(state, counts);
+            }
+            counts[0]++;
+            if (jank) counts[1]++;
+
+            int size = worstFrames.size();
+            if (size < WORST_FRAMES || durationNanos > worstFrames.get(size - 1).durationNanos) {
+                worstFrames.add(new SlowFrame(durationNanos, state, System.currentTimeMillis()));
+                Collections.sort(worstFrames, (a, b) -> Long.compare(b.durationNanos, a.durationNanos));
+                if (worstFrames.size() > WORST_FRAMES) {
+                    worstFrames.remove(worstFrames.size() - 1);
+                }
+            }
+        }
+    }
+
+    private static class SlowFrame {
+        final long durationNanos;
+        final String state;
+        final long timestamp;
+
+        SlowFrame(long durationNanos, String state, long timestamp) {
+            this.durationNanos = durationNanos;
+            this.state = state;
+            this.timestamp = timestamp;
+        }
+    }
+}
\ No newline at end of file
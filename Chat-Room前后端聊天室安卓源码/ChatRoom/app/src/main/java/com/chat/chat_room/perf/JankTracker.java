@@ -0,0 +1,147 @@
+package com.chat.chat_room.perf;
+
+import android.app.Activity;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import androidx.annotation.NonNull;
+import androidx.metrics.performance.FrameData;
+import androidx.metrics.performance.JankStats;
+import androidx.metrics.performance.PerformanceMetricsState;
+import androidx.metrics.performance.StateInfo;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 用 JankStats 采集一个页面的逐帧耗时，并给每一帧标记当时的界面状态
+ * （滚动、下拉刷新、整页绑定、收到新消息），结果汇总到 FrameStats。
+ */
+public class JankTracker {
+    private static final String STATE_SCROLL = "scroll";
+    private static final String STATE_REFRESH = "refresh";
+    // 只对下一帧生效的状态，标记列表数据提交后的那次布局
+    private static final String STATE_UPDATE = "update";
+    public static final String UPDATE_BIND = "bind";
+    public static final String UPDATE_NEW_MESSAGE = "new_message";
+
+    private final String screen;
+    private final JankStats jankStats;
+    private final PerformanceMetricsState.Holder metricsStateHolder;
+    // 上一次生成描述时的状态，状态不变（绝大多数帧）时直接复用描述，逐帧回调中不分配对象。
+    // 只在主线程访问
+    private String[] lastKeys = new String[0];
+    private String[] lastValues = new String[0];
+    private String lastDescription;
+
+    private JankTracker(Activity activity) {
+        screen = activity.getClass().getSimpleName();
+        View decorView = activity.getWindow().getDecorView();
+        metricsStateHolder = PerformanceMetricsState.getHolderForHierarchy(decorView);
+        jankStats = JankStats.createAndTrack(activity.getWindow(), this::onFrame);
+    }
+
+    // 在 setContentView 之后调用
+    public static JankTracker attach(Activity activity) {
+        return new JankTracker(activity);
+    }
+
+    // 页面不可见时停止采集，在 onResume / onPause 中调用
+    public void setEnabled(boolean enabled) {
+        jankStats.setTrackingEnabled(enabled);
+    }
+
+    public void trackScrolling(RecyclerView recyclerView) {
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                PerformanceMetricsState state = metricsStateHolder.getState();
+                if (state == null) return;
+                if (newState == RecyclerView.SCROLL_STATE_DRAGGING) {
+                    state.putState(STATE_SCROLL, "dragging");
+                } else if (newState == RecyclerView.SCROLL_STATE_SETTLING) {
+                    state.putState(STATE_SCROLL, "flinging");
+                } else {
+                    state.removeState(STATE_SCROLL);
+                }
+            }
+        });
+    }
+
+    // 每帧绘制前检查一次刷新状态，不需要改动各处 setRefreshing 的调用
+    public void trackRefreshing(SwipeRefreshLayout swipeRefreshLayout) {
+        swipeRefreshLayout.getViewTreeObserver().addOnPreDrawListener(
+                new ViewTreeObserver.OnPreDrawListener() {
+                    private boolean refreshing;
+
+                    @Override
+                    public boolean onPreDraw() {
+                        if (swipeRefreshLayout.isRefreshing() != refreshing) {
+                            refreshing = swipeRefreshLayout.isRefreshing();
+                            PerformanceMetricsState state = metricsStateHolder.getState();
+                            if (state != null) {
+                                if (refreshing) {
+                                    state.putState(STATE_REFRESH, "true");
+                                } else {
+                                    state.removeState(STATE_REFRESH);
+                                }
+                            }
+                        }
+                        return true;
+                    }
+                });
+    }
+
+    // 列表数据提交后调用，标记接下来绑定新数据的那一帧
+    public void markUpdate(String update) {
+        PerformanceMetricsState state = metricsStateHolder.getState();
+        if (state != null) {
+            state.putSingleFrameState(STATE_UPDATE, update);
+        }
+    }
+
+    // FrameData 会被复用，需要的字段在回调内取出
+    private void onFrame(FrameData frameData) {
+        FrameStats.getInstance().record(screen, frameData.getFrameDurationUiNanos(),
+                frameData.isJank(), describe(frameData.getStates()));
+    }
+
+    private String describe(List<StateInfo> states) {
+        if (states.isEmpty()) return FrameStats.STATE_IDLE;
+        if (sameAsLast(states)) return lastDescription;
+
+        int size = states.size();
+        lastKeys = new String[size];
+        lastValues = new String[size];
+        for (int i = 0; i < size; i++) {
+            lastKeys[i] = states.get(i).getKey();
+            lastValues[i] = states.get(i).getValue();
+        }
+        // 按键排序，同一组状态总是汇总到同一项
+        List<StateInfo> sorted = new ArrayList<>(states);
+        Collections.sort(sorted, (a, b) -> a.getKey().compareTo(b.getKey()));
+        StringBuilder out = new StringBuilder();
+        for (StateInfo info : sorted) {
+            if (out.length() > 0) out.append(',');
+            out.append(info.getKey()).append('=').append(info.getValue());
+        }
+        lastDescription = out.toString();
+        return lastDescription;
+    }
+
+    // 按下标比较，不创建迭代器
+    private boolean sameAsLast(List<StateInfo> states) {
+        int size = states.size();
+        if (lastDescription == null || size != lastKeys.length) return false;
+        for (int i = 0; i < size; i++) {
+            StateInfo info = states.get(i);
+            if (!info.getKey().equals(lastKeys[i]) || !info.getValue().equals(lastValues[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
\ No newline at end of file
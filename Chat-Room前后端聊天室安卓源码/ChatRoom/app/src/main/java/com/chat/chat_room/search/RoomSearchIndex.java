@@ -0,0 +1,186 @@
+package com.chat.chat_room.search;
+
+import com.chat.chat_room.model.ChatRoom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 聊天室名称的内存 n-gram 索引，按子串匹配。
+ * 名称按码点切分成单字和相邻两字，中文名称不需要分词；查询时取各个二元组倒排表的交集，
+ * 再用子串比较排除误命中。增删聊天室时只更新涉及的倒排表。
+ * 不是线程安全的，由 RoomSearcher 限制在它的后台线程中使用。
+ */
+public class RoomSearchIndex {
+    // 二元组的标记位，与单字的码点区分开
+    private static final long BIGRAM_FLAG = 1L << 42;
+
+    private static final class Entry {
+        final ChatRoom room;
+        final String normalized;
+        // 在列表中的位置，搜索结果按它排序
+        int order;
+
+        Entry(ChatRoom room, String normalized) {
+            this.room = room;
+            this.normalized = normalized;
+        }
+    }
+
+    // 按列表顺序保存，空查询时直接返回全部
+    private Map<Integer, Entry> entries = new LinkedHashMap<>();
+    private final Map<Long, Set<Integer>> postings = new HashMap<>();
+    private int nextOrder;
+
+    // 用完整列表替换索引内容，名称没变的聊天室不会重新建索引
+    public void setAll(List<ChatRoom> rooms) {
+        Map<Integer, Entry> updated = new LinkedHashMap<>(rooms.size() * 2);
+        nextOrder = 0;
+        for (ChatRoom room : rooms) {
+            Entry entry = entries.remove(room.getId());
+            if (entry == null || !Objects.equals(entry.room.getName(), room.getName())) {
+                if (entry != null) {
+                    unindex(entry);
+                }
+                entry = new Entry(room, SearchTokenizer.normalize(room.getName()));
+                index(entry);
+            } else if (entry.room != room) {
+                // 名称相同但对象换了，沿用倒排表，只替换聊天室对象
+                entry = new Entry(room, entry.normalized);
+            }
+            entry.order = nextOrder++;
+            updated.put(room.getId(), entry);
+        }
+        // 剩下的是已经不存在的聊天室
+        for (Entry stale : entries.values()) {
+            unindex(stale);
+        }
+        entries = updated;
+    }
+
+    // 新建聊天室后立即加入，不必等列表重新加载
+    public void add(ChatRoom room) {
+        remove(room.getId());
+        Entry entry = new Entry(room, SearchTokenizer.normalize(room.getName()));
+        entry.order = nextOrder++;
+        index(entry);
+        entries.put(room.getId(), entry);
+    }
+
+    public void remove(int roomId) {
+        Entry entry = entries.remove(roomId);
+        if (entry != null) {
+            unindex(entry);
+        }
+    }
+
+    public List<ChatRoom> getAll() {
+        List<ChatRoom> rooms = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            rooms.add(entry.room);
+        }
+        return rooms;
+    }
+
+    // 返回名称包含查询串的聊天室，以查询串开头的排在前面，其余保持列表顺序
+    public List<ChatRoom> search(String query) {
+        String q = SearchTokenizer.normalize(query).trim();
+        if (q.isEmpty()) return getAll();
+
+        List<Set<Integer>> lists = new ArrayList<>();
+        int length = q.codePointCount(0, q.length());
+        if (length == 1) {
+            lists.add(postings.get((long) q.codePointAt(0)));
+        } else {
+            int previous = q.codePointAt(0);
+            for (int i = Character.charCount(previous); i < q.length(); ) {
+                int cp = q.codePointAt(i);
+                lists.add(postings.get(bigram(previous, cp)));
+                previous = cp;
+                i += Character.charCount(cp);
+            }
+        }
+
+        // 从最短的倒排表出发，逐个检查是否出现在其余表中
+        Set<Integer> smallest = null;
+        for (Set<Integer> list : lists) {
+            if (list == null) return Collections.emptyList();
+            if (smallest == null || list.size() < smallest.size()) {
+                smallest = list;
+            }
+        }
+        List<Entry> matches = new ArrayList<>();
+        candidates:
+        for (int id : smallest) {
+            for (Set<Integer> list : lists) {
+                if (list != smallest && !list.contains(id)) continue candidates;
+            }
+            Entry entry = entries.get(id);
+            // 二元组都出现不代表它们相邻，最后用子串确认
+            if (entry != null && entry.normalized.contains(q)) {
+                matches.add(entry);
+            }
+        }
+
+        Collections.sort(matches, (a, b) -> {
+            boolean aPrefix = a.normalized.startsWith(q);
+            boolean bPrefix = b.normalized.startsWith(q);
+            if (aPrefix != bPrefix) return aPrefix ? -1 : 1;
+            return Integer.compare(a.order, b.order);
+        });
+        List<ChatRoom> result = new ArrayList<>(matches.size());
+        for (Entry entry : matches) {
+            result.add(entry.room);
+        }
+        return result;
+    }
+
+    private void index(Entry entry) {
+        for (long key : grams(entry.normalized)) {
+            Set<Integer> list = postings.get(key);
+            if (list == null) {
+                list = new HashSet<>();
+                postings.put(key, list);
+            }
+            list.add(entry.room.getId());
+        }
+    }
+
+    private void unindex(Entry entry) {
+        for (long key : grams(entry.normalized)) {
+            Set<Integer> list = postings.get(key);
+            if (list == null) continue;
+            list.remove(entry.room.getId());
+            if (list.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    // 名称中出现的所有单字和相邻两字，去重
+    private static Set<Long> grams(String text) {
+        Set<Long> keys = new HashSet<>();
+        int previous = -1;
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            keys.add((long) cp);
+            if (previous >= 0) {
+                keys.add(bigram(previous, cp));
+            }
+            previous = cp;
+            i += Character.charCount(cp);
+        }
+        return keys;
+    }
+
+    private static long bigram(int first, int second) {
+        return BIGRAM_FLAG | ((long) first << 21) | second;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,77 @@
+package com.chat.chat_room.search;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.chat.chat_room.model.ChatRoom;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 聊天室搜索：索引的维护和查询都在一个后台线程中按顺序执行，结果回调到主线程。
+ * 上千个聊天室首次建索引时不会卡住界面；列表或查询变化后只回调最新一次的结果。
+ */
+public class RoomSearcher {
+    public interface Callback {
+        void onResults(List<ChatRoom> rooms);
+    }
+
+    private final RoomSearchIndex index = new RoomSearchIndex();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Callback callback;
+
+    // 以下字段只在主线程访问
+    private String query = "";
+    private int generation;
+
+    public RoomSearcher(Callback callback) {
+        this.callback = callback;
+    }
+
+    // 服务端或缓存返回的完整列表
+    public void setChatRooms(List<ChatRoom> rooms) {
+        List<ChatRoom> copy = new ArrayList<>(rooms);
+        update(() -> index.setAll(copy));
+    }
+
+    public void addChatRoom(ChatRoom room) {
+        update(() -> index.add(room));
+    }
+
+    public void removeChatRoom(int roomId) {
+        update(() -> index.remove(roomId));
+    }
+
+    public void setQuery(String newQuery) {
+        if (newQuery.equals(query)) return;
+        query = newQuery;
+        update(null);
+    }
+
+    // 页面销毁时调用，之后不再回调
+    public void shutdown() {
+        generation++;
+        executor.shutdown();
+    }
+
+    private void update(Runnable change) {
+        int current = ++generation;
+        String currentQuery = query;
+        executor.execute(() -> {
+            if (change != null) {
+                change.run();
+            }
+            List<ChatRoom> results = index.search(currentQuery);
+            mainHandler.post(() -> {
+                // 期间又有新的修改或输入，这次结果已经过时
+                if (current == generation) {
+                    callback.onResults(results);
+                }
+            });
+        });
+    }
+}
\ No newline at end of file
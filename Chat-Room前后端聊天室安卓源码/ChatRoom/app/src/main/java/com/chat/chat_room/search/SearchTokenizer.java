@@ -0,0 +1,94 @@
+package com.chat.chat_room.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 为 SQLite FTS 预先切分文本。FTS 自带的 simple 分词器会把一整句中文当成一个词，
+ * 所以在写入前自己切好，用空格连接后交给 simple 分词器：
+ * 英文和数字按整词切分，中文等其他文字切成相邻两字（二元组），每段末尾再补一个单字，
+ * 这样任意一个字或任意一段连续的字都能查到。
+ */
+public final class SearchTokenizer {
+    private SearchTokenizer() {
+    }
+
+    // 全角转半角、统一小写，使 "Ａｂｃ" 和 "abc" 互相匹配
+    public static String normalize(String text) {
+        if (text == null) return "";
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    // 写入索引的文本：例如 "你好世界 ok" 切成 "你好 好世 世界 界 ok"
+    public static String tokenize(String text) {
+        StringBuilder out = new StringBuilder();
+        for (String run : runs(normalize(text))) {
+            if (isAscii(run.codePointAt(0))) {
+                append(out, run);
+                continue;
+            }
+            int[] cps = run.codePoints().toArray();
+            for (int i = 0; i + 1 < cps.length; i++) {
+                append(out, new String(cps, i, 2));
+            }
+            append(out, new String(cps, cps.length - 1, 1));
+        }
+        return out.toString();
+    }
+
+    // 把用户输入转换成 FTS 的 MATCH 表达式，没有可查的内容时返回 null。
+    // 英文按词前缀匹配；单个汉字按前缀匹配以它开头的二元组；多个连续汉字按二元组短语匹配，
+    // 要求在原文中相邻。各段之间是“与”的关系
+    public static String toMatchQuery(String query) {
+        List<String> terms = new ArrayList<>();
+        for (String run : runs(normalize(query))) {
+            int[] cps = run.codePoints().toArray();
+            if (isAscii(cps[0]) || cps.length == 1) {
+                terms.add(run + "*");
+                continue;
+            }
+            StringBuilder phrase = new StringBuilder("\"");
+            for (int i = 0; i + 1 < cps.length; i++) {
+                if (i > 0) phrase.append(' ');
+                phrase.append(new String(cps, i, 2));
+            }
+            terms.add(phrase.append('"').toString());
+        }
+        return terms.isEmpty() ? null : String.join(" ", terms);
+    }
+
+    // 按字母数字切成连续的段，同一段内只有 ASCII 或只有非 ASCII 字符；标点和空白都是分隔符
+    private static List<String> runs(String text) {
+        List<String> runs = new ArrayList<>();
+        int start = -1;
+        boolean startAscii = false;
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            boolean word = Character.isLetterOrDigit(cp);
+            if (start >= 0 && (!word || isAscii(cp) != startAscii)) {
+                runs.add(text.substring(start, i));
+                start = -1;
+            }
+            if (word && start < 0) {
+                start = i;
+                startAscii = isAscii(cp);
+            }
+            i += Character.charCount(cp);
+        }
+        if (start >= 0) {
+            runs.add(text.substring(start));
+        }
+        return runs;
+    }
+
+    private static boolean isAscii(int cp) {
+        return cp < 0x80;
+    }
+
+    private static void append(StringBuilder out, String token) {
+        if (out.length() > 0) out.append(' ');
+        out.append(token);
+    }
+}
\ No newline at end of file
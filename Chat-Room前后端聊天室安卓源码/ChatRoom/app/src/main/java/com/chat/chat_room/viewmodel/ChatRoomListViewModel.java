@@ -0,0 +1,32 @@
+package com.chat.chat_room.viewmodel;
+
+import androidx.lifecycle.ViewModel;
+
+import com.chat.chat_room.model.ChatRoom;
+
+import java.util.List;
+
+/**
+ * 聊天室列表页的状态，旋转屏幕后不必重新读取缓存和请求服务端。
+ */
+public class ChatRoomListViewModel extends ViewModel {
+    private List<ChatRoom> chatRooms;
+    // 本次打开页面后是否已从服务端刷新过
+    private boolean synced;
+
+    public List<ChatRoom> getChatRooms() {
+        return chatRooms;
+    }
+
+    public void setChatRooms(List<ChatRoom> chatRooms) {
+        this.chatRooms = chatRooms;
+    }
+
+    public boolean isSynced() {
+        return synced;
+    }
+
+    public void setSynced(boolean synced) {
+        this.synced = synced;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.chat.chat_room.viewmodel;
+
+import androidx.lifecycle.ViewModel;
+
+import com.chat.chat_room.adapter.MessageAdapter;
+import com.chat.chat_room.adapter.MessageWindow;
+
+/**
+ * 聊天室页面的状态：已加载的消息窗口和同步进度。
+ * 旋转屏幕后新页面直接显示窗口中的消息，从记下的位置继续同步。
+ */
+public class ChatRoomViewModel extends ViewModel {
+    private final MessageWindow window = new MessageWindow(MessageAdapter.WINDOW_CAPACITY);
+    // 已同步到本地的最新消息 id，增量拉取从这里开始
+    private int lastSyncedMessageId;
+    // 本次打开页面后是否已从服务端拉取过消息
+    private boolean historyLoaded;
+    // 窗口是否已经装入本地缓存
+    private boolean initialized;
+
+    public MessageWindow getWindow() {
+        return window;
+    }
+
+    public int getLastSyncedMessageId() {
+        return lastSyncedMessageId;
+    }
+
+    public void setLastSyncedMessageId(int lastSyncedMessageId) {
+        this.lastSyncedMessageId = lastSyncedMessageId;
+    }
+
+    // 只前进不后退，乱序到达的旧消息不会把同步位置拉回去
+    public void updateLastSyncedMessageId(int messageId) {
+        lastSyncedMessageId = Math.max(lastSyncedMessageId, messageId);
+    }
+
+    public boolean isHistoryLoaded() {
+        return historyLoaded;
+    }
+
+    public void setHistoryLoaded(boolean historyLoaded) {
+        this.historyLoaded = historyLoaded;
+    }
+
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    public void setInitialized(boolean initialized) {
+        this.initialized = initialized;
+    }
+}
\ No newline at end of file
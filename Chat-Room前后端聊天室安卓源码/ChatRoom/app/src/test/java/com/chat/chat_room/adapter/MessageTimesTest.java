@@ -0,0 +1,47 @@
+package com.chat.chat_room.adapter;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.Assert.assertEquals;
+
+// 手写格式化必须与 DateTimeFormatter 的结果一致
+public class MessageTimesTest {
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 15);
+
+    @Test
+    public void formatHourMinute_padsSingleDigits() {
+        assertEquals("00:00", MessageTimes.formatHourMinute(LocalDateTime.of(2024, 1, 1, 0, 0)));
+        assertEquals("09:05", MessageTimes.formatHourMinute(LocalDateTime.of(2024, 1, 1, 9, 5)));
+        assertEquals("23:59", MessageTimes.formatHourMinute(LocalDateTime.of(2024, 1, 1, 23, 59, 59)));
+    }
+
+    @Test
+    public void formatHourMinute_matchesFormatterForEveryMinute() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm");
+        LocalDateTime time = TODAY.atStartOfDay();
+        for (int i = 0; i < 24 * 60; i++) {
+            assertEquals(formatter.format(time), MessageTimes.formatHourMinute(time));
+            time = time.plusMinutes(1);
+        }
+    }
+
+    @Test
+    public void formatDayOrTime_today_showsTime() {
+        assertEquals("08:30", MessageTimes.formatDayOrTime(TODAY.atTime(8, 30), TODAY));
+    }
+
+    @Test
+    public void formatDayOrTime_earlierDay_showsMonthDay() {
+        assertEquals("03-14", MessageTimes.formatDayOrTime(TODAY.minusDays(1).atTime(23, 59), TODAY));
+        assertEquals("12-31", MessageTimes.formatDayOrTime(LocalDateTime.of(2023, 12, 31, 12, 0), TODAY));
+    }
+
+    @Test
+    public void formatDayOrTime_sameDayOtherYear_showsMonthDay() {
+        assertEquals("03-15", MessageTimes.formatDayOrTime(LocalDateTime.of(2023, 3, 15, 10, 0), TODAY));
+    }
+}
\ No newline at end of file
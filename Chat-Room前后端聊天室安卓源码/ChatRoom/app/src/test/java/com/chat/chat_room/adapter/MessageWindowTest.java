@@ -0,0 +1,121 @@
+package com.chat.chat_room.adapter;
+
+import com.chat.chat_room.model.Message;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+// 窗口的合并、去重和超出容量时的裁剪
+public class MessageWindowTest {
+    private static Message message(int id) {
+        Message message = new Message();
+        message.setId(id);
+        return message;
+    }
+
+    private static List<Message> messages(int... ids) {
+        List<Message> list = new ArrayList<>();
+        for (int id : ids) {
+            list.add(message(id));
+        }
+        return list;
+    }
+
+    private static List<Integer> ids(List<Message> messages) {
+        List<Integer> ids = new ArrayList<>();
+        for (Message message : messages) {
+            ids.add(message.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void replace_overCapacity_keepsNewest() {
+        MessageWindow window = new MessageWindow(3);
+        window.replace(messages(1, 2, 3, 4, 5));
+        assertEquals(Arrays.asList(3, 4, 5), ids(window.getMessages()));
+        assertTrue(window.hasOlder());
+        assertFalse(window.hasNewer());
+        assertEquals(3, window.getOldestId());
+        assertEquals(5, window.getNewestId());
+    }
+
+    @Test
+    public void appendNewer_mergesInIdOrderAndDropsDuplicates() {
+        MessageWindow window = new MessageWindow(10);
+        window.replace(messages(1, 3));
+        List<Message> merged = window.appendNewer(messages(4, 2, 3));
+        assertEquals(Arrays.asList(1, 2, 3, 4), ids(merged));
+    }
+
+    @Test
+    public void appendNewer_onlyDuplicates_returnsNull() {
+        MessageWindow window = new MessageWindow(10);
+        window.replace(messages(1, 2));
+        assertNull(window.appendNewer(messages(1, 2)));
+    }
+
+    @Test
+    public void appendNewer_overCapacity_dropsOldest() {
+        MessageWindow window = new MessageWindow(3);
+        window.replace(messages(1, 2, 3));
+        window.markNoOlder();
+        window.appendNewer(messages(4, 5));
+        assertEquals(Arrays.asList(3, 4, 5), ids(window.getMessages()));
+        assertTrue(window.hasOlder());
+        assertFalse(window.hasNewer());
+    }
+
+    @Test
+    public void appendNewer_droppedMessageCanComeBack() {
+        // 被裁掉的消息不再算作已有，向上翻页时可以重新加入
+        MessageWindow window = new MessageWindow(2);
+        window.replace(messages(1, 2));
+        window.appendNewer(messages(3));
+        assertEquals(Arrays.asList(1, 2), ids(window.prependOlder(messages(1))));
+    }
+
+    @Test
+    public void prependOlder_overCapacity_dropsNewestAndMarksHasNewer() {
+        MessageWindow window = new MessageWindow(3);
+        window.replace(messages(4, 5, 6));
+        window.prependOlder(messages(2, 3));
+        assertEquals(Arrays.asList(2, 3, 4), ids(window.getMessages()));
+        assertTrue(window.hasNewer());
+    }
+
+    @Test
+    public void replaceWithHistory_marksHasNewer() {
+        MessageWindow window = new MessageWindow(10);
+        window.replaceWithHistory(messages(10, 11));
+        assertTrue(window.hasNewer());
+        window.markNoNewer();
+        assertFalse(window.hasNewer());
+    }
+
+    @Test
+    public void everyChange_returnsNewListInstance() {
+        // AsyncListDiffer 靠列表实例是否变化判断要不要重新计算差异
+        MessageWindow window = new MessageWindow(10);
+        List<Message> first = window.replace(messages(1));
+        List<Message> second = window.appendNewer(messages(2));
+        assertNotSame(first, second);
+        assertEquals(Arrays.asList(1), ids(first));
+    }
+
+    @Test
+    public void emptyWindow_idsAreZero() {
+        MessageWindow window = new MessageWindow(10);
+        assertEquals(0, window.getOldestId());
+        assertEquals(0, window.getNewestId());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.chat.chat_room.api.cbor;
+
+import com.chat.chat_room.model.ChatRoom;
+import com.chat.chat_room.model.Message;
+
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+// 整数键与后端 message_record、chatroom_record 对应
+public class CborDecodersTest {
+    @Test
+    public void readMessages_allFieldsAndUnknownKeys() throws IOException {
+        byte[] bytes = new CborTestData()
+                .array(2)
+                .map(10)
+                .integer(0).integer(11)
+                .integer(1).integer(3)
+                .integer(2).integer(7)
+                .integer(3).text("你好")
+                // 2024-01-02T03:04:05.123456 UTC
+                .integer(4).integer(1704164645123456L)
+                .integer(5).text("client-1")
+                .integer(6).text("/uploads/images/a.jpg")
+                .integer(7).integer(640)
+                .integer(8).integer(480)
+                // 新版后端可能增加的键
+                .integer(99).map(1).text("x").array(0)
+                .map(3)
+                .integer(0).integer(12)
+                .integer(3).nil()
+                .integer(7).nil()
+                .bytes();
+
+        List<Message> messages = CborDecoders.readMessages(new CborReader(bytes));
+        assertEquals(2, messages.size());
+        Message first = messages.get(0);
+        assertEquals(11, first.getId());
+        assertEquals(3, first.getChatroomId());
+        assertEquals(7, first.getUserId());
+        assertEquals("你好", first.getContent());
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5, 123456000), first.getCreatedAt());
+        assertEquals("client-1", first.getClientId());
+        assertEquals("/uploads/images/a.jpg", first.getImageUrl());
+        assertEquals(640, first.getImageWidth());
+        assertEquals(480, first.getImageHeight());
+
+        Message second = messages.get(1);
+        assertEquals(12, second.getId());
+        assertNull(second.getContent());
+        assertEquals(0, second.getImageWidth());
+    }
+
+    @Test
+    public void readMessages_hugeDeclaredLength_failsWithoutPreallocating() throws IOException {
+        // 截断的响应声明了约 2^31 条消息，应在读到数据末尾时失败，而不是先分配巨大的数组
+        byte[] bytes = new CborTestData().array(Integer.MAX_VALUE).map(1).integer(0).integer(1).bytes();
+        try {
+            CborDecoders.readMessages(new CborReader(bytes));
+            fail();
+        } catch (EOFException expected) {
+        }
+    }
+
+    @Test
+    public void readDateTime_beforeEpoch() throws IOException {
+        // -1 微秒应还原为 1969-12-31T23:59:59.999999
+        CborReader reader = new CborReader(new CborTestData().integer(-1).bytes());
+        assertEquals(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999999000),
+                CborDecoders.readDateTimeOrNull(reader));
+    }
+
+    @Test
+    public void readChatRooms_summaryWithoutMessages() throws IOException {
+        byte[] bytes = new CborTestData()
+                .array(1)
+                .map(9)
+                .integer(0).integer(4)
+                .integer(1).text("大厅")
+                .integer(2).integer(1)
+                .integer(3).integer(0)
+                .integer(4).nil()
+                .integer(5).nil()
+                .integer(6).nil()
+                .integer(7).nil()
+                .integer(8).integer(0)
+                .bytes();
+
+        List<ChatRoom> chatRooms = CborDecoders.readChatRooms(new CborReader(bytes));
+        assertEquals(1, chatRooms.size());
+        ChatRoom room = chatRooms.get(0);
+        assertEquals(4, room.getId());
+        assertEquals("大厅", room.getName());
+        assertEquals(LocalDateTime.of(1970, 1, 1, 0, 0), room.getCreatedAt());
+        assertEquals(0, room.getLastMessageId());
+        assertNull(room.getLastMessageContent());
+        assertNull(room.getLastMessageAt());
+    }
+}
\ No newline at end of file
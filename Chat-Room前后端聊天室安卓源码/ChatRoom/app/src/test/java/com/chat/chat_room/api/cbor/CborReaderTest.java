@@ -0,0 +1,143 @@
+package com.chat.chat_room.api.cbor;
+
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+
+import okio.Buffer;
+import okio.Okio;
+import okio.Source;
+import okio.Timeout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CborReaderTest {
+    @Test
+    public void readLong_allArgumentWidths() throws IOException {
+        long[] values = {0, 23, 24, 255, 256, 65535, 65536, 4294967295L, 4294967296L, -1, -24, -25, -1000};
+        CborTestData data = new CborTestData();
+        for (long value : values) {
+            data.integer(value);
+        }
+        CborReader reader = new CborReader(data.bytes());
+        for (long value : values) {
+            assertEquals(value, reader.readLong());
+        }
+    }
+
+    @Test
+    public void readInt_outOfRange_throws() throws IOException {
+        CborReader reader = new CborReader(new CborTestData().integer(1L << 31).bytes());
+        try {
+            reader.readInt();
+            fail();
+        } catch (ProtocolException expected) {
+        }
+    }
+
+    @Test
+    public void readString_utf8() throws IOException {
+        CborReader reader = new CborReader(new CborTestData().text("你好, cbor").text("").bytes());
+        assertEquals("你好, cbor", reader.readString());
+        assertEquals("", reader.readString());
+    }
+
+    @Test
+    public void nullsAndBooleans() throws IOException {
+        CborReader reader = new CborReader(new CborTestData()
+                .nil().text("x").bool(true).bool(false).nil().bytes());
+        assertTrue(reader.peekNull());
+        assertNull(reader.readStringOrNull());
+        assertEquals("x", reader.readStringOrNull());
+        assertTrue(reader.readBoolean());
+        assertFalse(reader.readBoolean());
+        reader.readNull();
+    }
+
+    @Test
+    public void skipValue_nestedContainers() throws IOException {
+        CborReader reader = new CborReader(new CborTestData()
+                .map(2)
+                .text("a").array(3).integer(1).nil().map(1).integer(-5).text("deep")
+                .integer(1000).bool(true)
+                .integer(42)
+                .bytes());
+        reader.skipValue();
+        assertEquals(42, reader.readInt());
+    }
+
+    @Test
+    public void wrongType_throws() throws IOException {
+        CborReader reader = new CborReader(new CborTestData().text("x").bytes());
+        try {
+            reader.readArrayHeader();
+            fail();
+        } catch (ProtocolException expected) {
+        }
+    }
+
+    @Test
+    public void indefiniteLength_isRejected() throws IOException {
+        // 0x9f 是不定长数组
+        CborReader reader = new CborReader(new CborTestData().raw(0x9f).bytes());
+        try {
+            reader.readArrayHeader();
+            fail();
+        } catch (ProtocolException expected) {
+        }
+    }
+
+    @Test
+    public void truncatedData_throwsEof() throws IOException {
+        byte[] full = new CborTestData().text("hello").bytes();
+        byte[] truncated = new byte[full.length - 2];
+        System.arraycopy(full, 0, truncated, 0, truncated.length);
+        CborReader reader = new CborReader(truncated);
+        try {
+            reader.readString();
+            fail();
+        } catch (EOFException expected) {
+        }
+    }
+
+    @Test
+    public void readsFromSourceDeliveringOneByteAtATime() throws IOException {
+        // 模拟网络分段到达，解码不能假设数据已经全部在内存中
+        byte[] bytes = new CborTestData().array(2).text("第一条").integer(70000).bytes();
+        CborReader reader = new CborReader(Okio.buffer(new TrickleSource(bytes)));
+        assertEquals(2, reader.readArrayHeader());
+        assertEquals("第一条", reader.readString());
+        assertEquals(70000, reader.readInt());
+    }
+
+    // 每次只交出一个字节的 Source
+    private static final class TrickleSource implements Source {
+        private final Buffer data;
+
+        TrickleSource(byte[] bytes) {
+            data = new Buffer().write(bytes);
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) {
+            if (data.size() == 0) return -1;
+            sink.write(data, 1);
+            return 1;
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.chat.chat_room.api.cbor;
+
+import java.nio.charset.StandardCharsets;
+
+import okio.Buffer;
+
+// 测试用的最小 CBOR 编码器，只写定长的数据项
+final class CborTestData {
+    private final Buffer buffer = new Buffer();
+
+    CborTestData header(int majorType, long argument) {
+        int type = majorType << 5;
+        if (argument < 24) {
+            buffer.writeByte(type | (int) argument);
+        } else if (argument < 0x100) {
+            buffer.writeByte(type | 24).writeByte((int) argument);
+        } else if (argument < 0x10000) {
+            buffer.writeByte(type | 25).writeShort((int) argument);
+        } else if (argument < 0x100000000L) {
+            buffer.writeByte(type | 26).writeInt((int) argument);
+        } else {
+            buffer.writeByte(type | 27).writeLong(argument);
+        }
+        return this;
+    }
+
+    CborTestData integer(long value) {
+        return value >= 0
+                ? header(CborReader.TYPE_UNSIGNED, value)
+                : header(CborReader.TYPE_NEGATIVE, -1 - value);
+    }
+
+    CborTestData text(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        header(CborReader.TYPE_TEXT, bytes.length);
+        buffer.write(bytes);
+        return this;
+    }
+
+    CborTestData array(int size) {
+        return header(CborReader.TYPE_ARRAY, size);
+    }
+
+    CborTestData map(int size) {
+        return header(CborReader.TYPE_MAP, size);
+    }
+
+    CborTestData nil() {
+        buffer.writeByte(0xf6);
+        return this;
+    }
+
+    CborTestData bool(boolean value) {
+        buffer.writeByte(value ? 0xf5 : 0xf4);
+        return this;
+    }
+
+    CborTestData raw(int... bytes) {
+        for (int b : bytes) {
+            buffer.writeByte(b);
+        }
+        return this;
+    }
+
+    byte[] bytes() {
+        return buffer.snapshot().toByteArray();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.chat.chat_room.api.json;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.assertEquals;
+
+// 快速路径的结果必须与标准解析一致
+public class IsoDateTimesTest {
+    @Test
+    public void parse_minutesOnly() {
+        assertEquals(LocalDateTime.of(2024, 3, 5, 7, 9), IsoDateTimes.parse("2024-03-05T07:09"));
+    }
+
+    @Test
+    public void parse_seconds() {
+        assertEquals(LocalDateTime.of(2024, 3, 5, 7, 9, 59), IsoDateTimes.parse("2024-03-05T07:09:59"));
+    }
+
+    @Test
+    public void parse_microseconds() {
+        assertEquals(LocalDateTime.of(2024, 12, 31, 23, 59, 58, 123456000),
+                IsoDateTimes.parse("2024-12-31T23:59:58.123456"));
+    }
+
+    @Test
+    public void parse_shortFraction() {
+        assertEquals(LocalDateTime.of(2024, 1, 1, 0, 0, 0, 500_000_000),
+                IsoDateTimes.parse("2024-01-01T00:00:00.5"));
+    }
+
+    @Test
+    public void parse_spaceSeparator() {
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5), IsoDateTimes.parse("2024-01-02 03:04:05"));
+    }
+
+    @Test
+    public void parse_utcSuffix() {
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5), IsoDateTimes.parse("2024-01-02T03:04:05Z"));
+    }
+
+    @Test
+    public void parse_offset_convertedToUtc() {
+        assertEquals(LocalDateTime.of(2024, 1, 1, 16, 30),
+                IsoDateTimes.parse("2024-01-02T00:30:00+08:00"));
+    }
+
+    @Test
+    public void parse_matchesStandardParser() {
+        String[] samples = {"1999-12-31T23:59", "2000-02-29T12:00:01", "2030-06-15T08:07:06.000001"};
+        for (String sample : samples) {
+            assertEquals(sample, LocalDateTime.parse(sample), IsoDateTimes.parse(sample));
+        }
+    }
+}
\ No newline at end of file
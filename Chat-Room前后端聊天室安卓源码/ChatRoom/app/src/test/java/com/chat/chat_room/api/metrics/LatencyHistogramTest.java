@@ -0,0 +1,80 @@
+package com.chat.chat_room.api.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// 分位数取桶的上界，相对误差不超过 10%
+public class LatencyHistogramTest {
+    @Test
+    public void empty_returnsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMeanMicros());
+        assertEquals(0, histogram.percentile(0.5));
+    }
+
+    @Test
+    public void singleValue_allQuantilesCappedAtMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1234);
+        assertEquals(1234, histogram.percentile(0.5));
+        assertEquals(1234, histogram.percentile(0.99));
+        assertEquals(1234, histogram.getMaxMicros());
+    }
+
+    @Test
+    public void percentile_withinTenPercent() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10000; i++) {
+            histogram.record(i * 100L);
+        }
+        assertEquals(10000, histogram.getCount());
+        assertEquals(500050, histogram.getMeanMicros());
+        assertWithinTenPercent(500000, histogram.percentile(0.5));
+        assertWithinTenPercent(950000, histogram.percentile(0.95));
+        assertWithinTenPercent(990000, histogram.percentile(0.99));
+        assertEquals(1000000, histogram.percentile(1.0));
+    }
+
+    @Test
+    public void percentile_zeroQuantile_returnsSmallestBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1);
+        histogram.record(1000);
+        assertEquals(1, histogram.percentile(0));
+    }
+
+    @Test
+    public void record_negativeCountsAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMaxMicros());
+        assertEquals(0, histogram.percentile(0.5));
+    }
+
+    @Test
+    public void record_beyondLastBucket_reportsMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long tenMinutes = 600_000_000L;
+        histogram.record(tenMinutes);
+        assertEquals(tenMinutes, histogram.percentile(0.5));
+    }
+
+    @Test
+    public void reset_clearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(500);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxMicros());
+        assertEquals(0, histogram.percentile(0.9));
+    }
+
+    private static void assertWithinTenPercent(long expected, long actual) {
+        assertTrue("expected ~" + expected + " but was " + actual,
+                actual >= expected && actual <= expected * 1.1);
+    }
+}
\ No newline at end of file
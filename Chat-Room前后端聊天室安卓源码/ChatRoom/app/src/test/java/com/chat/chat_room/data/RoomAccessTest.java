@@ -0,0 +1,41 @@
+package com.chat.chat_room.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+// 打开分数按一天的半衰期衰减
+public class RoomAccessTest {
+    private static final long DAY_MS = 24 * 60 * 60 * 1000L;
+    private static final double DELTA = 1e-9;
+
+    private static RoomAccess opened(double score, long at) {
+        RoomAccess access = new RoomAccess(1, at);
+        access.setOpenScore(score);
+        access.setLastOpenedAt(at);
+        return access;
+    }
+
+    @Test
+    public void scoreAt_neverOpened_isZero() {
+        assertEquals(0, new RoomAccess(1, 1000).scoreAt(5000), DELTA);
+    }
+
+    @Test
+    public void scoreAt_openTime_isFullScore() {
+        assertEquals(3, opened(3, 1000).scoreAt(1000), DELTA);
+    }
+
+    @Test
+    public void scoreAt_halvesEveryDay() {
+        RoomAccess access = opened(4, 1000);
+        assertEquals(2, access.scoreAt(1000 + DAY_MS), DELTA);
+        assertEquals(1, access.scoreAt(1000 + 2 * DAY_MS), DELTA);
+    }
+
+    @Test
+    public void scoreAt_beforeLastOpen_doesNotGrow() {
+        // 系统时间被调回时不能让分数超过打开时的值
+        assertEquals(4, opened(4, DAY_MS).scoreAt(0), DELTA);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.chat.chat_room.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+// 分片边界必须与服务端 upload_chunk 的校验对齐
+public class UploadChunksTest {
+    private static final int MB = 1024 * 1024;
+
+    @Test
+    public void count_roundsUp() {
+        assertEquals(1, UploadChunks.count(MB, MB));
+        assertEquals(2, UploadChunks.count(MB + 1, MB));
+        assertEquals(3, UploadChunks.count(3L * MB, MB));
+    }
+
+    @Test
+    public void count_emptyFile_isOneChunk() {
+        assertEquals(1, UploadChunks.count(0, MB));
+    }
+
+    @Test
+    public void count_largerThanIntBytes() {
+        assertEquals(5 * 1024 + 1, UploadChunks.count(5L * 1024 * MB + 1, MB));
+    }
+
+    @Test
+    public void lastChunk_isPartial() {
+        long size = 2L * MB + 100;
+        assertEquals(2L * MB, UploadChunks.offset(2, MB));
+        assertEquals(MB, UploadChunks.length(1, size, MB));
+        assertEquals(100, UploadChunks.length(2, size, MB));
+    }
+
+    @Test
+    public void offset_doesNotOverflowInt() {
+        assertEquals(3000L * MB, UploadChunks.offset(3000, MB));
+    }
+
+    @Test
+    public void contentRange_endIsInclusive() {
+        assertEquals("bytes 0-1048575/3000000", UploadChunks.contentRange(0, MB, 3000000));
+        assertEquals("bytes 2097152-2999999/3000000",
+                UploadChunks.contentRange(2L * MB, 3000000 - 2L * MB, 3000000));
+    }
+
+    @Test
+    public void chunksCoverFileExactly() {
+        long size = 5L * MB + 12345;
+        long covered = 0;
+        for (int i = 0; i < UploadChunks.count(size, MB); i++) {
+            assertEquals(covered, UploadChunks.offset(i, MB));
+            covered += UploadChunks.length(i, size, MB);
+        }
+        assertEquals(size, covered);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.chat.chat_room.image;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+// 降采样倍数和气泡尺寸
+public class ImageSizesTest {
+    @Test
+    public void sampleSize_smallerThanTarget_isOne() {
+        assertEquals(1, ImageSizes.sampleSize(400, 300, 480, 480));
+    }
+
+    @Test
+    public void sampleSize_keepsBothSidesAtLeastTarget() {
+        // 4000x3000 -> 2000x1500 -> 1000x750 -> 500x375，再减半短边就小于 480
+        assertEquals(4, ImageSizes.sampleSize(4000, 3000, 480, 480));
+        assertEquals(8, ImageSizes.sampleSize(4000, 4000, 480, 480));
+    }
+
+    @Test
+    public void sampleSize_exactPowerOfTwo() {
+        assertEquals(2, ImageSizes.sampleSize(960, 960, 480, 480));
+        assertEquals(1, ImageSizes.sampleSize(959, 960, 480, 480));
+    }
+
+    @Test
+    public void sampleSize_unknownTarget_isOne() {
+        assertEquals(1, ImageSizes.sampleSize(4000, 3000, 0, 480));
+    }
+
+    @Test
+    public void sampleSizeForLongSide_cameraPhoto() {
+        // 4000 / 2 = 2000 已小于 2048，只能整幅解码，再由 Matrix 缩到 2048
+        assertEquals(1, ImageSizes.sampleSizeForLongSide(4000, 3000, 2048));
+        assertEquals(1, ImageSizes.sampleSizeForLongSide(3000, 4000, 2048));
+    }
+
+    @Test
+    public void sampleSizeForLongSide_usesLongSideOnly() {
+        // 按两边都不小于 2048 计算时 3000 的短边会让倍数停在 1
+        assertEquals(2, ImageSizes.sampleSizeForLongSide(4096, 3000, 2048));
+        assertEquals(4, ImageSizes.sampleSizeForLongSide(9000, 1000, 2048));
+        assertEquals(2, ImageSizes.sampleSizeForLongSide(8000, 6000, 2048));
+    }
+
+    @Test
+    public void sampleSizeForLongSide_smallImage_isOne() {
+        assertEquals(1, ImageSizes.sampleSizeForLongSide(1000, 800, 2048));
+        assertEquals(1, ImageSizes.sampleSizeForLongSide(1000, 800, 0));
+    }
+
+    @Test
+    public void fit_largeImage_scalesLongSide() {
+        assertArrayEquals(new int[]{600, 450}, ImageSizes.fit(4000, 3000, 600, 120));
+        assertArrayEquals(new int[]{450, 600}, ImageSizes.fit(3000, 4000, 600, 120));
+    }
+
+    @Test
+    public void fit_smallImage_keepsSizeButNotBelowMin() {
+        assertArrayEquals(new int[]{300, 200}, ImageSizes.fit(300, 200, 600, 120));
+        assertArrayEquals(new int[]{120, 120}, ImageSizes.fit(50, 40, 600, 120));
+    }
+
+    @Test
+    public void fit_panorama_shortSidePaddedToMin() {
+        assertArrayEquals(new int[]{600, 120}, ImageSizes.fit(6000, 300, 600, 120));
+    }
+
+    @Test
+    public void fit_unknownSize_placeholder() {
+        assertArrayEquals(new int[]{600, 450}, ImageSizes.fit(0, 0, 600, 120));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.chat.chat_room.search;
+
+import com.chat.chat_room.model.ChatRoom;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+// 子串匹配、排序和增量更新
+public class RoomSearchIndexTest {
+    @Test
+    public void search_emptyQuery_returnsAllInOrder() {
+        RoomSearchIndex index = indexOf(room(1, "大厅"), room(2, "技术交流"));
+        assertEquals(Arrays.asList(1, 2), ids(index.search("  ")));
+    }
+
+    @Test
+    public void search_substringAndPrefixFirst() {
+        RoomSearchIndex index = indexOf(
+                room(1, "安卓技术交流"), room(2, "技术分享"), room(3, "闲聊"));
+        assertEquals(Arrays.asList(2, 1), ids(index.search("技术")));
+        assertEquals(Arrays.asList(3), ids(index.search("聊")));
+    }
+
+    @Test
+    public void search_bigramsPresentButNotAdjacent_noMatch() {
+        // "ab" 和 "bc" 都出现在 "abxbc" 中，但没有 "abc"
+        RoomSearchIndex index = indexOf(room(1, "abxbc"));
+        assertTrue(index.search("abc").isEmpty());
+        assertEquals(Arrays.asList(1), ids(index.search("xbc")));
+    }
+
+    @Test
+    public void search_normalizesCaseAndFullWidth() {
+        RoomSearchIndex index = indexOf(room(1, "Android Dev"));
+        assertEquals(Arrays.asList(1), ids(index.search("ＡＮＤＲＯＩＤ")));
+        assertEquals(Arrays.asList(1), ids(index.search("d d")));
+    }
+
+    @Test
+    public void setAll_renameAndRemoveUpdatePostings() {
+        RoomSearchIndex index = indexOf(room(1, "大厅"), room(2, "技术"));
+        index.setAll(Arrays.asList(room(1, "闲聊"), room(3, "新房间")));
+        assertTrue(index.search("大厅").isEmpty());
+        assertTrue(index.search("技术").isEmpty());
+        assertEquals(Arrays.asList(1), ids(index.search("闲聊")));
+        assertEquals(Arrays.asList(3), ids(index.search("房间")));
+    }
+
+    @Test
+    public void setAll_sameName_keepsNewRoomObject() {
+        RoomSearchIndex index = indexOf(room(1, "大厅"));
+        ChatRoom updated = room(1, "大厅");
+        updated.setUnreadCount(5);
+        index.setAll(Arrays.asList(updated));
+        assertSame(updated, index.search("大厅").get(0));
+    }
+
+    @Test
+    public void setAll_reorder_followsNewOrder() {
+        RoomSearchIndex index = indexOf(room(1, "一群"), room(2, "二群"));
+        index.setAll(Arrays.asList(room(2, "二群"), room(1, "一群")));
+        assertEquals(Arrays.asList(2, 1), ids(index.search("群")));
+    }
+
+    @Test
+    public void addAndRemove() {
+        RoomSearchIndex index = indexOf(room(1, "大厅"));
+        index.add(room(2, "大家好"));
+        assertEquals(Arrays.asList(1, 2), ids(index.search("大")));
+        index.remove(1);
+        assertEquals(Arrays.asList(2), ids(index.search("大")));
+        assertTrue(index.search("厅").isEmpty());
+    }
+
+    private static RoomSearchIndex indexOf(ChatRoom... rooms) {
+        RoomSearchIndex index = new RoomSearchIndex();
+        index.setAll(Arrays.asList(rooms));
+        return index;
+    }
+
+    private static ChatRoom room(int id, String name) {
+        return new ChatRoom(id, name, 1);
+    }
+
+    private static List<Integer> ids(List<ChatRoom> rooms) {
+        List<Integer> ids = new ArrayList<>();
+        for (ChatRoom room : rooms) {
+            ids.add(room.getId());
+        }
+        return ids;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.chat.chat_room.search;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+// 索引切分与 MATCH 表达式必须对得上，否则搜索会漏掉消息
+public class SearchTokenizerTest {
+    @Test
+    public void normalize_fullWidthAndCase() {
+        assertEquals("abc 123", SearchTokenizer.normalize("ＡＢＣ　１２３"));
+        assertEquals("", SearchTokenizer.normalize(null));
+    }
+
+    @Test
+    public void tokenize_mixedText() {
+        assertEquals("你好 好世 世界 界 ok", SearchTokenizer.tokenize("你好世界 OK"));
+    }
+
+    @Test
+    public void tokenize_splitsAsciiAndCjkRuns() {
+        assertEquals("android 开发 发 2024", SearchTokenizer.tokenize("Android开发，2024!"));
+    }
+
+    @Test
+    public void tokenize_singleCharacter() {
+        assertEquals("好", SearchTokenizer.tokenize("好"));
+    }
+
+    @Test
+    public void toMatchQuery_asciiWordsArePrefixes() {
+        assertEquals("hel* wor*", SearchTokenizer.toMatchQuery("Hel, wor"));
+    }
+
+    @Test
+    public void toMatchQuery_singleCjkIsPrefix() {
+        assertEquals("好*", SearchTokenizer.toMatchQuery("好"));
+    }
+
+    @Test
+    public void toMatchQuery_cjkRunIsBigramPhrase() {
+        assertEquals("\"你好 好世 世界\"", SearchTokenizer.toMatchQuery("你好世界"));
+        assertEquals("\"开发\" android*", SearchTokenizer.toMatchQuery("开发 Android"));
+    }
+
+    @Test
+    public void toMatchQuery_punctuationOnly_returnsNull() {
+        assertNull(SearchTokenizer.toMatchQuery(" \"*()- "));
+        assertNull(SearchTokenizer.toMatchQuery(""));
+    }
+
+    @Test
+    public void toMatchQuery_stripsFtsSyntax() {
+        // 引号、星号和 OR 之类的语法字符不会进入表达式
+        assertEquals("a* or* b*", SearchTokenizer.toMatchQuery("a\" OR b*"));
+    }
+
+    @Test
+    public void toMatchQuery_supplementaryCharacters() {
+        assertEquals("\"𠀀𠀁\"", SearchTokenizer.toMatchQuery("𠀀𠀁"));
+        assertEquals("𠀀𠀁 𠀁", SearchTokenizer.tokenize("𠀀𠀁"));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.chat.chat_room.benchmark;
+
+import com.chat.chat_room.api.cbor.CborDecoders;
+import com.chat.chat_room.api.cbor.CborReader;
+import com.chat.chat_room.model.Message;
+import com.google.gson.Gson;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 解码一次消息列表响应的开销：反射 Gson、手写流式适配器和 CBOR。
+ * JSON 从字节流读取，与 Retrofit 的 GsonResponseBodyConverter 一致。
+ */
+@State(Scope.Benchmark)
+public class MessageDecodeBenchmark {
+    @Param({"100", "1000", "10000", "100000"})
+    public int size;
+
+    private byte[] json;
+    private byte[] cbor;
+    private Gson reflectiveGson;
+    private Gson streamingGson;
+
+    @Setup
+    public void setUp() {
+        List<Message> messages = MessageFixtures.messages(1, size);
+        json = MessageFixtures.toJson(messages);
+        cbor = MessageFixtures.toCbor(messages);
+        reflectiveGson = MessageFixtures.reflectiveGson();
+        streamingGson = MessageFixtures.streamingGson();
+    }
+
+    @Benchmark
+    public List<Message> gsonReflective() throws IOException {
+        try (Reader reader = jsonReader()) {
+            return reflectiveGson.fromJson(reader, MessageFixtures.MESSAGE_LIST_TYPE);
+        }
+    }
+
+    @Benchmark
+    public List<Message> gsonStreaming() throws IOException {
+        try (Reader reader = jsonReader()) {
+            return streamingGson.fromJson(reader, MessageFixtures.MESSAGE_LIST_TYPE);
+        }
+    }
+
+    @Benchmark
+    public List<Message> cbor() throws IOException {
+        return CborDecoders.readMessages(new CborReader(cbor));
+    }
+
+    private Reader jsonReader() {
+        return new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,133 @@
+package com.chat.chat_room.benchmark;
+
+import com.chat.chat_room.api.json.LocalDateTimeTypeAdapter;
+import com.chat.chat_room.api.json.MessageTypeAdapter;
+import com.chat.chat_room.model.Message;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 生成基准测试用的消息，以及与后端一致的 JSON 和 CBOR 编码。
+ * 使用固定的随机种子，每次运行的数据完全相同。
+ */
+final class MessageFixtures {
+    static final Type MESSAGE_LIST_TYPE = new TypeToken<List<Message>>() {
+    }.getType();
+
+    private static final String[] WORDS = {
+            "你好", "收到", "今天", "开会", "晚上", "吃饭", "好的", "明天见", "哈哈",
+            "hello", "ok", "meeting", "at", "the", "office", "see", "you", "soon"
+    };
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 13, 8, 0);
+
+    private MessageFixtures() {
+    }
+
+    // 与线上相同配置的 Gson：手写的流式适配器
+    static Gson streamingGson() {
+        return new GsonBuilder()
+                .serializeNulls()
+                .setLenient()
+                .registerTypeAdapter(Message.class, new MessageTypeAdapter())
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
+                .create();
+    }
+
+    // 手写适配器之前的配置：Message 由反射填充
+    static Gson reflectiveGson() {
+        return new GsonBuilder()
+                .serializeNulls()
+                .setLenient()
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
+                .create();
+    }
+
+    // id 从 firstId 开始连续递增，正文长度 2~60 个词不等
+    static List<Message> messages(int firstId, int count) {
+        Random random = new Random(firstId * 31L + count);
+        List<Message> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int id = firstId + i;
+            Message message = new Message();
+            message.setId(id);
+            message.setChatroomId(1);
+            message.setUserId(1 + random.nextInt(20));
+            StringBuilder content = new StringBuilder();
+            int words = 2 + random.nextInt(59);
+            for (int w = 0; w < words; w++) {
+                if (w > 0) content.append(' ');
+                content.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            message.setContent(content.toString());
+            // 带微秒，与 Python isoformat 的输出一致
+            message.setCreatedAt(START.plusSeconds(id * 7L).plusNanos(random.nextInt(1_000_000) * 1000L));
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    static byte[] toJson(List<Message> messages) {
+        return streamingGson().toJson(messages, MESSAGE_LIST_TYPE).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // 与后端 message_record 相同的整数键
+    static byte[] toCbor(List<Message> messages) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeHeader(out, 4, messages.size());
+        for (Message message : messages) {
+            writeHeader(out, 5, 6);
+            writeHeader(out, 0, 0);
+            writeHeader(out, 0, message.getId());
+            writeHeader(out, 0, 1);
+            writeHeader(out, 0, message.getChatroomId());
+            writeHeader(out, 0, 2);
+            writeHeader(out, 0, message.getUserId());
+            writeHeader(out, 0, 3);
+            byte[] content = message.getContent().getBytes(StandardCharsets.UTF_8);
+            writeHeader(out, 3, content.length);
+            out.write(content, 0, content.length);
+            writeHeader(out, 0, 4);
+            LocalDateTime createdAt = message.getCreatedAt();
+            writeHeader(out, 0, createdAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000L
+                    + createdAt.getNano() / 1000);
+            writeHeader(out, 0, 5);
+            out.write(0xf6);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeHeader(ByteArrayOutputStream out, int type, long value) {
+        int major = type << 5;
+        if (value < 24) {
+            out.write(major | (int) value);
+        } else if (value < 0x100) {
+            out.write(major | 24);
+            out.write((int) value);
+        } else if (value < 0x10000) {
+            out.write(major | 25);
+            writeBigEndian(out, value, 2);
+        } else if (value < 0x100000000L) {
+            out.write(major | 26);
+            writeBigEndian(out, value, 4);
+        } else {
+            out.write(major | 27);
+            writeBigEndian(out, value, 8);
+        }
+    }
+
+    private static void writeBigEndian(ByteArrayOutputStream out, long value, int bytes) {
+        for (int i = bytes - 1; i >= 0; i--) {
+            out.write((int) (value >>> (i * 8)) & 0xff);
+        }
+    }
+}
\ No newline at end of file
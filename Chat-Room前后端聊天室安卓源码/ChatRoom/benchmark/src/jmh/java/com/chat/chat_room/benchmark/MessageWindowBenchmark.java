@@ -0,0 +1,64 @@
+package com.chat.chat_room.benchmark;
+
+import com.chat.chat_room.adapter.MessageWindow;
+import com.chat.chat_room.model.Message;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * MessageAdapter 每次刷新时的列表合并：整页替换、追加新消息和向上翻页。
+ * 窗口容量取 size，让合并的开销随消息条数变化，而不是被 300 条的线上容量截断。
+ */
+@State(Scope.Benchmark)
+public class MessageWindowBenchmark {
+    // 一次增量同步或翻页的条数
+    private static final int BATCH = 50;
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int size;
+
+    private List<Message> older;
+    private List<Message> current;
+    private List<Message> newer;
+
+    @Setup
+    public void setUp() {
+        older = MessageFixtures.messages(1, BATCH);
+        current = MessageFixtures.messages(1 + BATCH, size);
+        newer = MessageFixtures.messages(1 + BATCH + size, BATCH);
+    }
+
+    @Benchmark
+    public List<Message> replace() {
+        return new MessageWindow(size).replace(current);
+    }
+
+    // 窗口已满时追加新消息，需要丢弃最早的一端
+    @Benchmark
+    public List<Message> appendNewer() {
+        MessageWindow window = new MessageWindow(size);
+        window.replace(current);
+        return window.appendNewer(newer);
+    }
+
+    // 推送和增量同步经常重复送达已有的消息，合并结果为空
+    @Benchmark
+    public List<Message> appendDuplicates() {
+        MessageWindow window = new MessageWindow(size);
+        window.replace(current);
+        return window.appendNewer(current.subList(size - Math.min(size, BATCH), size));
+    }
+
+    @Benchmark
+    public List<Message> prependOlder() {
+        MessageWindow window = new MessageWindow(size);
+        window.replace(current);
+        return window.prependOlder(older);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.chat.chat_room.benchmark;
+
+import com.chat.chat_room.api.ApiService;
+import com.chat.chat_room.api.cbor.CborConverterFactory;
+import com.chat.chat_room.model.MessageCreate;
+import com.google.gson.Gson;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+/**
+ * 通过 ApiService 构建请求的开销，不发起网络请求。
+ * 对比复用同一个代理，和每次重新创建 Retrofit（需要重新解析接口注解）。
+ */
+@State(Scope.Benchmark)
+public class RequestBuildingBenchmark {
+    private static final String BASE_URL = "http://localhost:8000/";
+
+    private OkHttpClient client;
+    private Gson gson;
+    private ApiService api;
+    private MessageCreate body;
+
+    @Setup
+    public void setUp() {
+        client = new OkHttpClient();
+        gson = MessageFixtures.streamingGson();
+        api = newRetrofit().create(ApiService.class);
+        body = new MessageCreate("benchmark message content");
+    }
+
+    @Benchmark
+    public Request messagePage() {
+        return api.getMessagePage(1, 1000, null, 50).request();
+    }
+
+    // 带 JSON 请求体和幂等键请求头
+    @Benchmark
+    public Request createMessage() {
+        return api.createMessage(1, body, "7d444840-9dc0-11d1-b245-5ffdce74fad2").request();
+    }
+
+    @Benchmark
+    public Request messagePageNewRetrofit() {
+        return newRetrofit().create(ApiService.class).getMessagePage(1, 1000, null, 50).request();
+    }
+
+    private Retrofit newRetrofit() {
+        return new Retrofit.Builder()
+                .baseUrl(BASE_URL)
+                .client(client)
+                .addConverterFactory(CborConverterFactory.create())
+                .addConverterFactory(GsonConverterFactory.create(gson))
+                .build();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.chat.chat_room.benchmark;
+
+import com.chat.chat_room.model.ChatRoom;
+import com.chat.chat_room.search.RoomSearchIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 聊天室搜索框每次按键的耗时：在 ROOMS 个中文名称的聊天室中查询，与逐个 contains 的线性扫描对比。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RoomSearchBenchmark {
+    private static final int ROOMS = 10_000;
+    private static final String[] WORDS = {
+            "技术", "交流", "产品", "设计", "前端", "后端", "运维", "测试", "周末", "读书",
+            "跑步", "摄影", "美食", "旅行", "游戏", "音乐", "电影", "Android", "Java", "Python"
+    };
+
+    // 单字、常见词、较长的词组和不存在的词
+    @Param({"技", "交流", "前端交流", "不存在的名字"})
+    public String query;
+
+    private RoomSearchIndex index;
+    private List<ChatRoom> rooms;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        rooms = new ArrayList<>(ROOMS);
+        for (int i = 1; i <= ROOMS; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)]
+                    + WORDS[random.nextInt(WORDS.length)]
+                    + "群" + i;
+            rooms.add(new ChatRoom(i, name, 1));
+        }
+        index = new RoomSearchIndex();
+        index.setAll(rooms);
+    }
+
+    @Benchmark
+    public List<ChatRoom> index() {
+        return index.search(query);
+    }
+
+    @Benchmark
+    public List<ChatRoom> linearScan() {
+        String q = query.toLowerCase(Locale.ROOT);
+        List<ChatRoom> result = new ArrayList<>();
+        for (ChatRoom room : rooms) {
+            if (room.getName().toLowerCase(Locale.ROOT).contains(q)) {
+                result.add(room);
+            }
+        }
+        return result;
+    }
+
+    // 重新加载列表时的增量更新，名称都没变
+    @Benchmark
+    public RoomSearchIndex setAllUnchanged() {
+        index.setAll(rooms);
+        return index;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,72 @@
+package com.chat.chat_room.benchmark;
+
+import com.chat.chat_room.adapter.MessageTimes;
+import com.chat.chat_room.api.json.IsoDateTimes;
+import com.chat.chat_room.model.Message;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 每条消息都要做的时间处理：显示用的 HH:mm 格式化，以及响应中 created_at 的解析。
+ * 每次调用处理 COUNT 个时间，结果按单个时间计。
+ */
+@State(Scope.Benchmark)
+public class TimeFormatBenchmark {
+    private static final int COUNT = 1024;
+    private static final DateTimeFormatter HOUR_MINUTE = DateTimeFormatter.ofPattern("HH:mm");
+
+    private LocalDateTime[] times;
+    private String[] isoStrings;
+
+    @Setup
+    public void setUp() {
+        times = new LocalDateTime[COUNT];
+        isoStrings = new String[COUNT];
+        int i = 0;
+        for (Message message : MessageFixtures.messages(1, COUNT)) {
+            times[i] = message.getCreatedAt();
+            isoStrings[i] = message.getCreatedAt().toString();
+            i++;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void formatDateTimeFormatter(Blackhole blackhole) {
+        for (LocalDateTime time : times) {
+            blackhole.consume(time.format(HOUR_MINUTE));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void formatMessageTimes(Blackhole blackhole) {
+        for (LocalDateTime time : times) {
+            blackhole.consume(MessageTimes.formatHourMinute(time));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void parseLocalDateTime(Blackhole blackhole) {
+        for (String iso : isoStrings) {
+            blackhole.consume(LocalDateTime.parse(iso));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void parseIsoDateTimes(Blackhole blackhole) {
+        for (String iso : isoStrings) {
+            blackhole.consume(IsoDateTimes.parse(iso));
+        }
+    }
+}
\ No newline at end of file
@@ -1,13 +1,22 @@
 # main.py
-from fastapi import FastAPI, HTTPException, Depends
+from fastapi import FastAPI, HTTPException, Depends, File, Form, Header, Request, Response, UploadFile, WebSocket, WebSocketDisconnect
+from fastapi.encoders import jsonable_encoder
+from fastapi.responses import FileResponse
 from fastapi.security import OAuth2PasswordBearer, OAuth2PasswordRequestForm
 from pydantic import BaseModel
-from typing import List, Optional
-from datetime import datetime, timedelta
+from typing import Dict, List, Optional
+from datetime import datetime, timedelta, timezone
+import cbor2
+import hashlib
+import json
+import os
+import secrets
+import sqlite3
 import jwt
 import databases
 import sqlalchemy
-from sqlalchemy import Table, Column, Integer, String, MetaData, ForeignKey, DateTime, create_engine
+from sqlalchemy import Table, Column, Integer, String, MetaData, ForeignKey, DateTime, Index, create_engine, inspect, text
+from sqlalchemy.dialects.sqlite import insert as sqlite_insert
 #uvicorn main:app --host 0.0.0.0 --port 8000
 # 数据库配置
 DATABASE_URL = "sqlite:///./chat.db"
@@ -40,12 +49,110 @@ messages = Table(
     Column("user_id", Integer, ForeignKey("users.id")),
     Column("content", String),
     Column("created_at", DateTime, default=datetime.utcnow),
+    # 客户端生成的幂等键，同一用户重试发送时据此去重
+    Column("client_id", String, nullable=True),
+    # 图片消息：上传接口返回的地址和原图尺寸，客户端据此提前留出位置
+    Column("image_url", String, nullable=True),
+    Column("image_width", Integer, nullable=True),
+    Column("image_height", Integer, nullable=True),
+)
+
+# 每个用户在每个聊天室中读到的最后一条消息，用于计算未读数
+chatroom_reads = Table(
+    "chatroom_reads",
+    metadata,
+    Column("user_id", Integer, ForeignKey("users.id"), primary_key=True),
+    Column("chatroom_id", Integer, ForeignKey("chatrooms.id"), primary_key=True),
+    Column("last_read_id", Integer, nullable=False, default=0),
+)
+
+# 刷新令牌：访问令牌过期后凭它换取新的访问令牌，不必重新输入密码。
+# 只保存令牌的 SHA-256，数据库泄露也拿不到可用的令牌
+refresh_tokens = Table(
+    "refresh_tokens",
+    metadata,
+    Column("id", Integer, primary_key=True),
+    Column("user_id", Integer, ForeignKey("users.id")),
+    Column("token_hash", String, unique=True, index=True),
+    Column("expires_at", DateTime),
+)
+
+# 分片上传会话：大文件按固定大小的分片上传，网络中断后客户端查询已收到的分片，只补传缺少的部分
+upload_sessions = Table(
+    "upload_sessions",
+    metadata,
+    Column("id", String, primary_key=True),
+    Column("user_id", Integer, ForeignKey("users.id")),
+    Column("size", Integer),
+    Column("chunk_size", Integer),
+    Column("content_type", String),
+    # 提交后文件名的扩展名，由内容类型或原始文件名决定
+    Column("extension", String),
+    # 提交后的下载地址。会话保留到过期，重复提交（如响应丢失后重试）返回同一个地址
+    Column("url", String, nullable=True),
+    Column("created_at", DateTime, default=datetime.utcnow),
+)
+
+# 每个上传会话已经完整写入的分片序号
+upload_chunks = Table(
+    "upload_chunks",
+    metadata,
+    Column("upload_id", String, ForeignKey("upload_sessions.id"), primary_key=True),
+    Column("chunk_index", Integer, primary_key=True),
+)
+
+# 分页按 (chatroom_id, id) 查询，需要联合索引
+messages_room_index = Index("ix_messages_chatroom_id_id", messages.c.chatroom_id, messages.c.id)
+# 同一用户的幂等键唯一，并发的重复请求由数据库拦截
+messages_client_index = Index(
+    "ux_messages_user_id_client_id", messages.c.user_id, messages.c.client_id, unique=True
 )
 
 # 创建数据库引擎
 engine = create_engine(DATABASE_URL)
 metadata.create_all(engine)
 
+# 已存在的表不会被 create_all 补加新列，需要手动 ALTER
+def ensure_column(table: Table, column_name: str, column_type: str):
+    existing = [column["name"] for column in inspect(engine).get_columns(table.name)]
+    if column_name not in existing:
+        with engine.begin() as connection:
+            connection.execute(text(f"ALTER TABLE {table.name} ADD COLUMN {column_name} {column_type}"))
+
+ensure_column(messages, "client_id", "VARCHAR")
+ensure_column(messages, "image_url", "VARCHAR")
+ensure_column(messages, "image_width", "INTEGER")
+ensure_column(messages, "image_height", "INTEGER")
+ensure_column(upload_sessions, "url", "VARCHAR")
+# 已存在的表不会被 create_all 补建索引
+messages_room_index.create(engine, checkfirst=True)
+messages_client_index.create(engine, checkfirst=True)
+
+# 单页消息条数上限
+MAX_PAGE_SIZE = 200
+# 上传的图片保存在本地目录，文件名随机生成
+UPLOAD_DIR = "./uploads"
+IMAGE_URL_PREFIX = "/uploads/images/"
+MAX_IMAGE_BYTES = 10 * 1024 * 1024
+UPLOAD_READ_SIZE = 64 * 1024
+IMAGE_EXTENSIONS = {
+    "image/jpeg": ".jpg",
+    "image/png": ".png",
+    "image/gif": ".gif",
+    "image/webp": ".webp",
+}
+# 分片上传：未提交的文件放在子目录中，下载接口按文件名取不到它们
+PARTIAL_UPLOAD_DIR = os.path.join(UPLOAD_DIR, "partial")
+FILE_URL_PREFIX = "/uploads/files/"
+UPLOAD_CHUNK_SIZE = 1024 * 1024
+MAX_ATTACHMENT_BYTES = 100 * 1024 * 1024
+# 超过这个时间仍未提交的会话视为放弃，清掉已收到的分片
+UPLOAD_SESSION_EXPIRE_HOURS = 24
+os.makedirs(PARTIAL_UPLOAD_DIR, exist_ok=True)
+
+# 未读数最多数到这里，客户端显示为 "99+"，从未读过的大聊天室也不必数完全部消息
+MAX_UNREAD_COUNT = 100
+
 # FastAPI 应用实例
 app = FastAPI()
 
@@ -75,20 +182,46 @@ class Message(BaseModel):
     user_id: int
     content: str
     created_at: Optional[datetime] = None
+    client_id: Optional[str] = None
+    image_url: Optional[str] = None
+    image_width: Optional[int] = None
+    image_height: Optional[int] = None
 
     class Config:
         from_attributes = True
 
+# 聊天室列表摘要：最后一条消息和当前用户的未读数
+class ChatRoomSummary(ChatRoom):
+    last_message_id: Optional[int] = None
+    last_message_user_id: Optional[int] = None
+    last_message_content: Optional[str] = None
+    last_message_at: Optional[datetime] = None
+    unread_count: int = 0
+
+class ReadMarker(BaseModel):
+    last_read_id: int
+
 class ChatRoomCreate(BaseModel):
     name: str
 
+class UploadSessionCreate(BaseModel):
+    size: int
+    content_type: str
+    # 原始文件名，只用来确定扩展名
+    filename: Optional[str] = None
+
 class MessageCreate(BaseModel):
-    content: str
+    # 图片消息的正文可以为空
+    content: str = ""
+    image_url: Optional[str] = None
+    image_width: Optional[int] = None
+    image_height: Optional[int] = None
 
 # JWT 配置
 SECRET_KEY = "your-secret-key"  # 在实际应用中应该使用环境变量
 ALGORITHM = "HS256"
 ACCESS_TOKEN_EXPIRE_MINUTES = 30
+REFRESH_TOKEN_EXPIRE_DAYS = 30
 
 oauth2_scheme = OAuth2PasswordBearer(tokenUrl="token")
 
@@ -108,6 +241,196 @@ async def get_current_user(token: str = Depends(oauth2_scheme)):
         raise HTTPException(status_code=401, detail="User not found")
     return user
 
+def create_access_token(user_id: int) -> str:
+    access_token_expires = timedelta(minutes=ACCESS_TOKEN_EXPIRE_MINUTES)
+    return jwt.encode(
+        {"sub": str(user_id), "exp": datetime.utcnow() + access_token_expires},
+        SECRET_KEY,
+        algorithm=ALGORITHM,
+    )
+
+def hash_refresh_token(refresh_token: str) -> str:
+    return hashlib.sha256(refresh_token.encode("utf-8")).hexdigest()
+
+async def create_refresh_token(user_id: int) -> str:
+    refresh_token = secrets.token_urlsafe(32)
+    now = datetime.utcnow()
+    # 顺便清掉该用户已过期的刷新令牌
+    await database.execute(refresh_tokens.delete().where(
+        (refresh_tokens.c.user_id == user_id) & (refresh_tokens.c.expires_at < now)
+    ))
+    await database.execute(refresh_tokens.insert().values(
+        user_id=user_id,
+        token_hash=hash_refresh_token(refresh_token),
+        expires_at=now + timedelta(days=REFRESH_TOKEN_EXPIRE_DAYS),
+    ))
+    return refresh_token
+
+def token_response(access_token: str, refresh_token: str) -> dict:
+    return {
+        "access_token": access_token,
+        "token_type": "bearer",
+        "refresh_token": refresh_token,
+        "expires_in": ACCESS_TOKEN_EXPIRE_MINUTES * 60,
+    }
+
+def message_payload(row) -> dict:
+    return jsonable_encoder(Message.model_validate(row))
+
+# 紧凑的二进制编码：CBOR，字段名换成整数键，时间换成 UTC 微秒时间戳。
+# 键的编号与客户端 CborDecoders 保持一致，只能追加不能复用
+CBOR_MEDIA_TYPE = "application/cbor"
+EPOCH = datetime(1970, 1, 1)
+
+def epoch_micros(value: Optional[datetime]) -> Optional[int]:
+    if value is None:
+        return None
+    if value.tzinfo is not None:
+        value = value.astimezone(timezone.utc).replace(tzinfo=None)
+    return (value - EPOCH) // timedelta(microseconds=1)
+
+def message_record(row) -> dict:
+    return {
+        0: row.id,
+        1: row.chatroom_id,
+        2: row.user_id,
+        3: row.content,
+        4: epoch_micros(row.created_at),
+        5: row.client_id,
+        6: row.image_url,
+        7: row.image_width,
+        8: row.image_height,
+    }
+
+def chatroom_record(row) -> dict:
+    return {
+        0: row.id,
+        1: row.name,
+        2: row.creator_id,
+        3: epoch_micros(row.created_at),
+    }
+
+def chatroom_summary_record(row) -> dict:
+    record = chatroom_record(row)
+    record.update({
+        4: row.last_message_id,
+        5: row.last_message_user_id,
+        6: row.last_message_content,
+        7: epoch_micros(row.last_message_at),
+        8: row.unread_count,
+    })
+    return record
+
+# Accept 中与 media_type 匹配的最具体的媒体范围，返回 (q 值, 具体程度)。
+# 具体程度 2 是完全匹配，1 是 type/*，0 是 */*；没有匹配的范围时为 (0.0, -1)
+def accept_quality(accept: str, media_type: str):
+    main_type = media_type.split("/")[0]
+    quality, specificity = 0.0, -1
+    for media_range in accept.split(","):
+        params = [part.strip() for part in media_range.split(";")]
+        range_type = params[0].lower()
+        if range_type == media_type:
+            rank = 2
+        elif range_type == main_type + "/*":
+            rank = 1
+        elif range_type == "*/*":
+            rank = 0
+        else:
+            continue
+        q = 1.0
+        for param in params[1:]:
+            name, _, value = param.partition("=")
+            if name.strip().lower() == "q":
+                try:
+                    q = float(value.strip())
+                except ValueError:
+                    q = 0.0
+        if rank > specificity:
+            quality, specificity = q, rank
+    return quality, specificity
+
+# 客户端在 Accept 中明确列出 CBOR（q > 0）且不比 JSON 更不想要时才使用二进制编码，
+# 其余情况仍返回 JSON；只写 */* 的客户端（浏览器、curl）拿到的仍是 JSON
+def wants_cbor(request: Request) -> bool:
+    accept = request.headers.get("accept", "")
+    cbor_quality, cbor_specificity = accept_quality(accept, CBOR_MEDIA_TYPE)
+    if cbor_specificity != 2 or cbor_quality <= 0:
+        return False
+    json_quality, _ = accept_quality(accept, "application/json")
+    return cbor_quality >= json_quality
+
+# WebSocket 连接管理：按聊天室维护在线连接，新消息逐条推送。
+# 每个连接记录是否使用二进制帧
+class ConnectionManager:
+    def __init__(self):
+        self.rooms: Dict[int, Dict[WebSocket, bool]] = {}
+
+    def connect(self, chatroom_id: int, websocket: WebSocket, binary: bool):
+        self.rooms.setdefault(chatroom_id, {})[websocket] = binary
+
+    def disconnect(self, chatroom_id: int, websocket: WebSocket):
+        connections = self.rooms.get(chatroom_id)
+        if connections is None:
+            return
+        connections.pop(websocket, None)
+        if not connections:
+            del self.rooms[chatroom_id]
+
+    async def broadcast(self, chatroom_id: int, row):
+        # 两种编码各只生成一次
+        frames = {}
+        for websocket, binary in list(self.rooms.get(chatroom_id, {}).items()):
+            if binary not in frames:
+                frames[binary] = encode_frame(row, binary)
+            try:
+                await send_frame(websocket, frames[binary])
+            except Exception:
+                self.disconnect(chatroom_id, websocket)
+
+manager = ConnectionManager()
+
+def encode_frame(row, binary: bool):
+    if binary:
+        return cbor2.dumps(message_record(row))
+    return json.dumps(message_payload(row), ensure_ascii=False)
+
+async def send_frame(websocket: WebSocket, frame):
+    if isinstance(frame, bytes):
+        await websocket.send_bytes(frame)
+    else:
+        await websocket.send_text(frame)
+
+# 带 ETag 的响应：客户端携带相同的 If-None-Match 时只返回 304。
+# 传入 cbor_payload 时按 Accept 协商编码，两种编码的 ETag 不同
+def etag_response(request: Request, payload, cbor_payload=None) -> Response:
+    if cbor_payload is not None and wants_cbor(request):
+        body = cbor2.dumps(cbor_payload)
+        media_type = CBOR_MEDIA_TYPE
+    else:
+        body = json.dumps(
+            jsonable_encoder(payload), ensure_ascii=False, separators=(",", ":")
+        ).encode("utf-8")
+        media_type = "application/json"
+    etag = '"' + hashlib.sha1(body).hexdigest() + '"'
+    # private: 只允许客户端缓存；no-cache: 每次使用前都要重新验证
+    headers = {"ETag": etag, "Cache-Control": "private, no-cache"}
+    if cbor_payload is not None:
+        headers["Vary"] = "Accept"
+    if_none_match = request.headers.get("if-none-match", "")
+    if etag in [tag.strip() for tag in if_none_match.split(",")]:
+        return Response(status_code=304, headers=headers)
+    return Response(content=body, media_type=media_type, headers=headers)
+
+# 消息列表按 Accept 协商编码，JSON 仍交给 response_model 序列化
+def message_list_response(request: Request, rows):
+    if wants_cbor(request):
+        return Response(
+            content=cbor2.dumps([message_record(row) for row in rows]),
+            media_type=CBOR_MEDIA_TYPE,
+            headers={"Vary": "Accept"},
+        )
+    return rows
+
 # 启动事件
 @app.on_event("startup")
 async def startup():
@@ -118,6 +441,11 @@ async def startup():
 async def shutdown():
     await database.disconnect()
 
+# 健康检查：不访问数据库，客户端启动时用它提前建立连接
+@app.get("/health")
+async def health():
+    return {"status": "ok"}
+
 # API 路由
 @app.post("/register", response_model=User)
 async def register(user: UserCreate):
@@ -147,14 +475,33 @@ async def login(form_data: OAuth2PasswordRequestForm = Depends()):
     if user.hashed_password != form_data.password:  # 实际应用中应该比较哈希值
         raise HTTPException(status_code=400, detail="Incorrect username or password")
     
-    # 创建访问令牌
-    access_token_expires = timedelta(minutes=ACCESS_TOKEN_EXPIRE_MINUTES)
-    access_token = jwt.encode(
-        {"sub": str(user.id), "exp": datetime.utcnow() + access_token_expires},
-        SECRET_KEY,
-        algorithm=ALGORITHM,
+    # 创建访问令牌和刷新令牌
+    access_token = create_access_token(user.id)
+    refresh_token = await create_refresh_token(user.id)
+    return token_response(access_token, refresh_token)
+
+# 用刷新令牌换取新的访问令牌。刷新令牌原样返回，有效期从登录时算起
+@app.post("/token/refresh")
+async def refresh_access_token(refresh_token: str = Form(...)):
+    query = refresh_tokens.select().where(
+        refresh_tokens.c.token_hash == hash_refresh_token(refresh_token)
     )
-    return {"access_token": access_token, "token_type": "bearer"}
+    row = await database.fetch_one(query)
+    if row is None or row.expires_at < datetime.utcnow():
+        raise HTTPException(status_code=401, detail="Invalid refresh token")
+
+    user = await database.fetch_one(users.select().where(users.c.id == row.user_id))
+    if user is None:
+        raise HTTPException(status_code=401, detail="User not found")
+    return token_response(create_access_token(user.id), refresh_token)
+
+# 退出登录时吊销刷新令牌
+@app.post("/token/revoke")
+async def revoke_refresh_token(refresh_token: str = Form(...)):
+    await database.execute(refresh_tokens.delete().where(
+        refresh_tokens.c.token_hash == hash_refresh_token(refresh_token)
+    ))
+    return {"message": "Token revoked"}
 
 @app.post("/chatrooms", response_model=ChatRoom)
 async def create_chatroom(
@@ -173,38 +520,348 @@ async def create_chatroom(
     return created_chatroom
 
 @app.get("/chatrooms", response_model=List[ChatRoom])
-async def get_chatrooms(current_user: User = Depends(get_current_user)):
+async def get_chatrooms(request: Request, current_user: User = Depends(get_current_user)):
     query = chatrooms.select()
-    return await database.fetch_all(query)
+    rows = await database.fetch_all(query)
+    return etag_response(
+        request,
+        [ChatRoom.model_validate(row) for row in rows],
+        [chatroom_record(row) for row in rows],
+    )
+
+# 一次查询取出所有聊天室的摘要，按最后一条消息从新到旧排列，没有消息的排在最后。
+# 最后一条消息和未读数都是沿 (chatroom_id, id) 索引的相关子查询，
+# 未读数用 LIMIT 截断，每个聊天室最多扫描 MAX_UNREAD_COUNT 条索引记录
+CHATROOM_SUMMARY_QUERY = text("""
+    SELECT c.id, c.name, c.creator_id, c.created_at,
+           m.id AS last_message_id, m.user_id AS last_message_user_id,
+           m.content AS last_message_content, m.created_at AS last_message_at,
+           (SELECT COUNT(*) FROM (
+                SELECT 1 FROM messages AS u
+                WHERE u.chatroom_id = c.id AND u.id > COALESCE(r.last_read_id, 0)
+                  AND u.user_id != :user_id
+                LIMIT :max_unread)) AS unread_count
+    FROM chatrooms AS c
+    LEFT JOIN chatroom_reads AS r ON r.chatroom_id = c.id AND r.user_id = :user_id
+    LEFT JOIN messages AS m ON m.id = (
+        SELECT MAX(id) FROM messages WHERE chatroom_id = c.id)
+    ORDER BY COALESCE(m.id, 0) DESC, c.id DESC
+""").columns(
+    id=Integer, name=String, creator_id=Integer, created_at=DateTime,
+    last_message_id=Integer, last_message_user_id=Integer,
+    last_message_content=String, last_message_at=DateTime, unread_count=Integer,
+)
+
+@app.get("/chatrooms/summaries", response_model=List[ChatRoomSummary])
+async def get_chatroom_summaries(request: Request, current_user: User = Depends(get_current_user)):
+    query = CHATROOM_SUMMARY_QUERY.bindparams(
+        user_id=current_user.id, max_unread=MAX_UNREAD_COUNT
+    )
+    rows = await database.fetch_all(query)
+    return etag_response(
+        request,
+        [ChatRoomSummary.model_validate(row) for row in rows],
+        [chatroom_summary_record(row) for row in rows],
+    )
+
+# 已读位置只前进不后退，多台设备先后上报时以较大的为准
+async def save_read_marker(user_id: int, chatroom_id: int, last_read_id: int):
+    query = sqlite_insert(chatroom_reads).values(
+        user_id=user_id, chatroom_id=chatroom_id, last_read_id=last_read_id
+    )
+    query = query.on_conflict_do_update(
+        index_elements=[chatroom_reads.c.user_id, chatroom_reads.c.chatroom_id],
+        set_={"last_read_id": sqlalchemy.func.max(
+            chatroom_reads.c.last_read_id, query.excluded.last_read_id
+        )},
+    )
+    await database.execute(query)
+
+@app.post("/chatrooms/{chatroom_id}/read")
+async def mark_chatroom_read(
+    chatroom_id: int,
+    marker: ReadMarker,
+    current_user: User = Depends(get_current_user)
+):
+    chatroom_query = chatrooms.select().where(chatrooms.c.id == chatroom_id)
+    chatroom = await database.fetch_one(chatroom_query)
+    if not chatroom:
+        raise HTTPException(status_code=404, detail="Chatroom not found")
+
+    await save_read_marker(current_user.id, chatroom_id, marker.last_read_id)
+    return {"chatroom_id": chatroom_id, "last_read_id": marker.last_read_id}
+
+async def find_message_by_client_id(user_id: int, client_id: str):
+    query = messages.select().where(
+        (messages.c.user_id == user_id) & (messages.c.client_id == client_id)
+    )
+    return await database.fetch_one(query)
+
+# 幂等键在同一用户下唯一，只能对应一个聊天室。
+# 拿到别的聊天室的键说明客户端用错了键，返回 409，不能把其他聊天室的消息当作结果
+def replayed_message(existing, chatroom_id: int):
+    if existing.chatroom_id != chatroom_id:
+        raise HTTPException(status_code=409, detail="Idempotency key used in another chatroom")
+    return existing
 
 @app.post("/chatrooms/{chatroom_id}/messages", response_model=Message)
 async def create_message(
     chatroom_id: int,
     message: MessageCreate,
-    current_user: User = Depends(get_current_user)
+    current_user: User = Depends(get_current_user),
+    idempotency_key: Optional[str] = Header(None)
 ):
     # 检查聊天室是否存在
     chatroom_query = chatrooms.select().where(chatrooms.c.id == chatroom_id)
     chatroom = await database.fetch_one(chatroom_query)
     if not chatroom:
         raise HTTPException(status_code=404, detail="Chatroom not found")
-    
+
+    if message.image_url is not None and not message.image_url.startswith(IMAGE_URL_PREFIX):
+        raise HTTPException(status_code=400, detail="Invalid image url")
+    if not message.content and message.image_url is None:
+        raise HTTPException(status_code=400, detail="Message is empty")
+
+    # 客户端超时重试时，同一个幂等键直接返回第一次创建的消息
+    if idempotency_key:
+        existing = await find_message_by_client_id(current_user.id, idempotency_key)
+        if existing:
+            return replayed_message(existing, chatroom_id)
+
     # 创建消息
     query = messages.insert().values(
         chatroom_id=chatroom_id,
         user_id=current_user.id,
-        content=message.content
+        content=message.content,
+        client_id=idempotency_key or None,
+        image_url=message.image_url,
+        image_width=message.image_width,
+        image_height=message.image_height
     )
-    message_id = await database.execute(query)
+    try:
+        message_id = await database.execute(query)
+    except sqlite3.IntegrityError:
+        # 并发的重复请求已经先一步写入
+        existing = await find_message_by_client_id(current_user.id, idempotency_key)
+        if existing is None:
+            raise
+        return replayed_message(existing, chatroom_id)
     
     created_message = await database.fetch_one(
         messages.select().where(messages.c.id == message_id)
     )
+    # 发消息的人已经看过此前的消息
+    await save_read_marker(current_user.id, chatroom_id, message_id)
+    # 推送给该聊天室的所有在线连接
+    await manager.broadcast(chatroom_id, created_message)
     return created_message
 
+# 上传图片，返回的地址用于随后发送的图片消息。
+# 边读边写入临时文件，超过大小上限时中止，不会把整个文件读进内存
+@app.post("/uploads/images")
+async def upload_image(
+    file: UploadFile = File(...),
+    current_user: User = Depends(get_current_user)
+):
+    extension = IMAGE_EXTENSIONS.get(file.content_type)
+    if extension is None:
+        raise HTTPException(status_code=415, detail="Unsupported image type")
+
+    name = secrets.token_urlsafe(16) + extension
+    path = os.path.join(UPLOAD_DIR, name)
+    temp_path = path + ".part"
+    size = 0
+    try:
+        with open(temp_path, "wb") as out:
+            while True:
+                chunk = await file.read(UPLOAD_READ_SIZE)
+                if not chunk:
+                    break
+                size += len(chunk)
+                if size > MAX_IMAGE_BYTES:
+                    raise HTTPException(status_code=413, detail="Image too large")
+                out.write(chunk)
+        os.replace(temp_path, path)
+    finally:
+        if os.path.exists(temp_path):
+            os.remove(temp_path)
+    return {"url": IMAGE_URL_PREFIX + name}
+
+# 上传的文件名随机且内容不会再改变，允许客户端永久缓存，之后不再发起请求
+def uploaded_file_response(name: str) -> FileResponse:
+    path = os.path.join(UPLOAD_DIR, os.path.basename(name))
+    if name.startswith(".") or name.endswith(".part") or not os.path.isfile(path):
+        raise HTTPException(status_code=404, detail="File not found")
+    return FileResponse(path, headers={"Cache-Control": "public, max-age=31536000, immutable"})
+
+@app.get("/uploads/images/{name}")
+async def get_image(name: str):
+    return uploaded_file_response(name)
+
+@app.get("/uploads/files/{name}")
+async def get_file(name: str):
+    return uploaded_file_response(name)
+
+def partial_upload_path(upload_id: str) -> str:
+    return os.path.join(PARTIAL_UPLOAD_DIR, upload_id + ".part")
+
+def upload_chunk_count(session) -> int:
+    return max(1, -(-session.size // session.chunk_size))
+
+def upload_extension(content_type: str, filename: Optional[str]) -> str:
+    if content_type in IMAGE_EXTENSIONS:
+        return IMAGE_EXTENSIONS[content_type]
+    extension = os.path.splitext(os.path.basename(filename or ""))[1].lower()
+    # 扩展名会成为下载地址的一部分，只保留简单的字母数字
+    if 1 < len(extension) <= 10 and extension[1:].isalnum():
+        return extension
+    return ""
+
+async def get_upload_session(upload_id: str, user_id: int):
+    query = upload_sessions.select().where(
+        (upload_sessions.c.id == upload_id) & (upload_sessions.c.user_id == user_id)
+    )
+    session = await database.fetch_one(query)
+    if not session:
+        raise HTTPException(status_code=404, detail="Upload not found")
+    return session
+
+async def upload_session_response(session) -> dict:
+    query = sqlalchemy.select(upload_chunks.c.chunk_index).where(
+        upload_chunks.c.upload_id == session.id
+    ).order_by(upload_chunks.c.chunk_index)
+    rows = await database.fetch_all(query)
+    return {
+        "upload_id": session.id,
+        "size": session.size,
+        "chunk_size": session.chunk_size,
+        "received": [row.chunk_index for row in rows],
+        # 已提交的会话直接给出地址，客户端不必重新上传
+        "url": session.url,
+    }
+
+async def delete_upload_session(upload_id: str):
+    await database.execute(upload_chunks.delete().where(upload_chunks.c.upload_id == upload_id))
+    await database.execute(upload_sessions.delete().where(upload_sessions.c.id == upload_id))
+    path = partial_upload_path(upload_id)
+    if os.path.exists(path):
+        os.remove(path)
+
+# 清理放弃的会话，在创建新会话时顺带执行
+async def delete_expired_upload_sessions():
+    expired_before = datetime.utcnow() - timedelta(hours=UPLOAD_SESSION_EXPIRE_HOURS)
+    query = sqlalchemy.select(upload_sessions.c.id).where(upload_sessions.c.created_at < expired_before)
+    for row in await database.fetch_all(query):
+        await delete_upload_session(row.id)
+
+# 分片上传第一步：创建会话并预留文件空间，返回分片大小。
+# 之后用 PUT /uploads/{id} 按 Content-Range 上传各个分片（可以并行、可以重传），
+# 全部收到后 POST /uploads/{id}/commit 得到下载地址
+@app.post("/uploads")
+async def create_upload_session(
+    upload: UploadSessionCreate,
+    current_user: User = Depends(get_current_user)
+):
+    limit = MAX_IMAGE_BYTES if upload.content_type in IMAGE_EXTENSIONS else MAX_ATTACHMENT_BYTES
+    if upload.size <= 0:
+        raise HTTPException(status_code=400, detail="Invalid size")
+    if upload.size > limit:
+        raise HTTPException(status_code=413, detail="File too large")
+
+    await delete_expired_upload_sessions()
+    upload_id = secrets.token_urlsafe(16)
+    # 稀疏文件，各个分片按偏移直接写入
+    with open(partial_upload_path(upload_id), "wb") as out:
+        out.truncate(upload.size)
+    query = upload_sessions.insert().values(
+        id=upload_id,
+        user_id=current_user.id,
+        size=upload.size,
+        chunk_size=UPLOAD_CHUNK_SIZE,
+        content_type=upload.content_type,
+        extension=upload_extension(upload.content_type, upload.filename),
+        created_at=datetime.utcnow(),
+    )
+    await database.execute(query)
+    return await upload_session_response(await get_upload_session(upload_id, current_user.id))
+
+# 续传前查询已经收到的分片
+@app.get("/uploads/{upload_id}")
+async def get_upload(upload_id: str, current_user: User = Depends(get_current_user)):
+    return await upload_session_response(await get_upload_session(upload_id, current_user.id))
+
+# 上传一个分片，Content-Range 必须与分片边界对齐，例如 "bytes 0-1048575/5000000"。
+# 请求体边收边写到文件中对应的位置，同一分片重复上传会覆盖，结果相同
+@app.put("/uploads/{upload_id}")
+async def upload_chunk(
+    upload_id: str,
+    request: Request,
+    content_range: str = Header(...),
+    current_user: User = Depends(get_current_user)
+):
+    session = await get_upload_session(upload_id, current_user.id)
+    if session.url is not None:
+        raise HTTPException(status_code=409, detail="Upload already committed")
+    try:
+        unit, _, rest = content_range.partition(" ")
+        span, _, total = rest.partition("/")
+        first, _, last = span.partition("-")
+        start, end, size = int(first), int(last), int(total)
+    except ValueError:
+        raise HTTPException(status_code=400, detail="Invalid Content-Range")
+    if (unit != "bytes" or size != session.size or start % session.chunk_size != 0
+            or end != min(start + session.chunk_size, session.size) - 1):
+        raise HTTPException(status_code=416, detail="Range does not match a chunk")
+
+    expected = end - start + 1
+    written = 0
+    with open(partial_upload_path(upload_id), "r+b") as out:
+        out.seek(start)
+        async for piece in request.stream():
+            written += len(piece)
+            if written > expected:
+                raise HTTPException(status_code=400, detail="Chunk larger than range")
+            out.write(piece)
+    if written != expected:
+        raise HTTPException(status_code=400, detail="Incomplete chunk")
+
+    query = sqlite_insert(upload_chunks).values(
+        upload_id=upload_id, chunk_index=start // session.chunk_size
+    ).on_conflict_do_nothing()
+    await database.execute(query)
+    return Response(status_code=204)
+
+# 所有分片都收到后转为正式文件，返回的地址与单次上传接口的相同。
+# 提交是幂等的：响应丢失后客户端重试，得到的是第一次提交的地址，不会留下孤立的文件
+@app.post("/uploads/{upload_id}/commit")
+async def commit_upload(upload_id: str, current_user: User = Depends(get_current_user)):
+    session = await get_upload_session(upload_id, current_user.id)
+    if session.url is not None:
+        return {"url": session.url}
+    count_query = sqlalchemy.select(sqlalchemy.func.count()).select_from(upload_chunks).where(
+        upload_chunks.c.upload_id == upload_id
+    )
+    if await database.fetch_val(count_query) < upload_chunk_count(session):
+        raise HTTPException(status_code=409, detail="Upload incomplete")
+
+    name = secrets.token_urlsafe(16) + session.extension
+    os.replace(partial_upload_path(upload_id), os.path.join(UPLOAD_DIR, name))
+    prefix = IMAGE_URL_PREFIX if session.content_type in IMAGE_EXTENSIONS else FILE_URL_PREFIX
+    url = prefix + name
+    # 分片记录不再需要，会话本身留到过期时由 delete_expired_upload_sessions 清理
+    await database.execute(upload_chunks.delete().where(upload_chunks.c.upload_id == upload_id))
+    await database.execute(
+        upload_sessions.update().where(upload_sessions.c.id == upload_id).values(url=url)
+    )
+    return {"url": url}
+
 @app.get("/chatrooms/{chatroom_id}/messages", response_model=List[Message])
 async def get_messages(
+    request: Request,
     chatroom_id: int,
+    after_id: Optional[int] = None,
+    before_id: Optional[int] = None,
+    limit: Optional[int] = None,
     current_user: User = Depends(get_current_user)
 ):
     # 检查聊天室是否存在
@@ -213,14 +870,77 @@ async def get_messages(
     if not chatroom:
         raise HTTPException(status_code=404, detail="Chatroom not found")
     
-    # 获取消息
+    # 获取消息，传入 after_id 时只返回该 id 之后的增量消息
     query = messages.select().where(messages.c.chatroom_id == chatroom_id)
-    return await database.fetch_all(query)
+    if after_id is not None:
+        query = query.where(messages.c.id > after_id)
+    if before_id is not None:
+        query = query.where(messages.c.id < before_id)
+    if limit is None:
+        rows = await database.fetch_all(query.order_by(messages.c.id))
+        return message_list_response(request, rows)
+
+    # 分页：有 after_id 时向后翻页，否则取 before_id 之前（或最新）的一页
+    limit = max(1, min(limit, MAX_PAGE_SIZE))
+    if after_id is not None:
+        rows = await database.fetch_all(query.order_by(messages.c.id).limit(limit))
+        return message_list_response(request, rows)
+    rows = await database.fetch_all(query.order_by(messages.c.id.desc()).limit(limit))
+    return message_list_response(request, list(reversed(rows)))
+
+# 聊天室实时消息推送，after_id 用于断线重连后补发遗漏的消息，
+# format=cbor 时用二进制帧推送 CBOR 编码的消息。
+# token 优先从 Authorization 头读取，握手请求经过客户端的拦截器，过期前会先刷新；
+# 旧版客户端仍通过查询参数传入
+@app.websocket("/ws/chatrooms/{chatroom_id}")
+async def chatroom_socket(
+    websocket: WebSocket,
+    chatroom_id: int,
+    token: Optional[str] = None,
+    after_id: Optional[int] = None,
+    format: str = "json",
+    authorization: Optional[str] = Header(None)
+):
+    if authorization and authorization.lower().startswith("bearer "):
+        token = authorization[7:]
+    if not token:
+        await websocket.close(code=1008)
+        return
+    try:
+        await get_current_user(token)
+    except HTTPException:
+        await websocket.close(code=1008)
+        return
+
+    chatroom_query = chatrooms.select().where(chatrooms.c.id == chatroom_id)
+    chatroom = await database.fetch_one(chatroom_query)
+    if not chatroom:
+        await websocket.close(code=4404)
+        return
+
+    await websocket.accept()
+    # 先登记连接再补发，避免两者之间产生的消息丢失（客户端按 id 去重）
+    binary = format == "cbor"
+    manager.connect(chatroom_id, websocket, binary)
+    try:
+        if after_id is not None:
+            query = messages.select().where(
+                (messages.c.chatroom_id == chatroom_id) & (messages.c.id > after_id)
+            ).order_by(messages.c.id)
+            for row in await database.fetch_all(query):
+                await send_frame(websocket, encode_frame(row, binary))
+        # 心跳由 WebSocket ping/pong 完成，这里只需等待连接断开
+        while True:
+            await websocket.receive_text()
+    except WebSocketDisconnect:
+        pass
+    finally:
+        manager.disconnect(chatroom_id, websocket)
 
 # 获取用户信息的端点
 @app.get("/users/me", response_model=User)
-async def get_current_user_info(current_user: User = Depends(get_current_user)):
-    return current_user
+async def get_current_user_info(request: Request, current_user: User = Depends(get_current_user)):
+    return etag_response(request, {"id": current_user.id, "username": current_user.username})
 
 # 删除聊天室
 @app.delete("/chatrooms/{chatroom_id}")
@@ -246,6 +966,11 @@ async def delete_chatroom(
         messages.c.chatroom_id == chatroom_id
     )
     await database.execute(delete_messages_query)
+
+    delete_reads_query = chatroom_reads.delete().where(
+        chatroom_reads.c.chatroom_id == chatroom_id
+    )
+    await database.execute(delete_reads_query)
     
     # 删除聊天室
     delete_chatroom_query = chatrooms.delete().where(